@@ -0,0 +1,23 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+
+// Non-blocking counterpart of Repository: every call returns at once and
+// completes its future when the (possibly I/O-bound) storage work is done
+interface AsyncRepository<T> extends AutoCloseable {
+    java.util.concurrent.CompletableFuture<Integer> save(T entity);
+    java.util.concurrent.CompletableFuture<T> findById(int id); // completes with null if absent
+    java.util.concurrent.CompletableFuture<List<T>> findAll();
+    java.util.concurrent.CompletableFuture<Void> delete(int id);
+    java.util.concurrent.CompletableFuture<int[]> saveAll(Collection<? extends T> entities);
+    java.util.concurrent.CompletableFuture<Void> deleteAll(int... ids);
+
+    @Override
+    void close(); // stops accepting work; does not close the wrapped repository
+
+    // Runs each call on its own virtual thread: blocking inside the call
+    // (fsync, locks) parks the virtual thread, not a platform thread
+    static <T> AsyncRepository<T> onVirtualThreads(Repository<T> repository) {
+        return new VirtualThreadRepository<>(repository);
+    }
+}
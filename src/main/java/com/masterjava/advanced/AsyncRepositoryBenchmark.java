@@ -0,0 +1,122 @@
+package com.masterjava.advanced;
+
+import java.lang.management.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * ASYNC (VIRTUAL THREADS) vs BLOCKING REPOSITORY LOAD TEST
+ * ========================================================
+ *
+ * Durable save() throughput of a WAL-backed {@link PersonRepository} as
+ * the number of concurrent callers grows.
+ *
+ * CONTENDERS:
+ * • blocking - Repository called from one platform thread per concurrent
+ *              caller (the only way to have N calls in flight)
+ * • async    - AsyncRepository on virtual threads; one driver thread keeps
+ *              N calls in flight and never blocks on any of them
+ *
+ * WHAT TO LOOK FOR:
+ * • Throughput of both grows with concurrency (bigger WAL group commits)
+ * • Peak platform threads: blocking needs one per caller, async stays at
+ *   roughly the carrier pool size plus JVM housekeeping threads
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.advanced.AsyncRepositoryBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class AsyncRepositoryBenchmark {
+    private static final long RUN_MILLIS = 1_500;
+    private static final int[] CONCURRENCY = {16, 256, 2048};
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   ASYNC (VIRTUAL THREADS) vs BLOCKING DURABLE SAVES    ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.printf("  %-12s %16s %16s %14s %14s%n", "In flight",
+            "blocking ops/s", "async ops/s", "blocking thr.", "async thr.");
+
+        for (int concurrency : CONCURRENCY) {
+            long[] blocking = measure(concurrency, false);
+            long[] async = measure(concurrency, true);
+            System.out.printf("  %-12d %16d %16d %14d %14d%n",
+                concurrency, blocking[0], async[0], blocking[1], async[1]);
+        }
+    }
+
+    // {ops per second, peak platform threads}
+    private static long[] measure(int concurrency, boolean async) throws Exception {
+        Path directory = Files.createTempDirectory("async-bench-");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        try (PersonRepository repository = new PersonRepository(directory)) {
+            threads.resetPeakThreadCount();
+            double opsPerSecond = async ? runAsync(repository, concurrency) : runBlocking(repository, concurrency);
+            return new long[] {Math.round(opsPerSecond), threads.getPeakThreadCount()};
+        } finally {
+            TempDirectories.deleteRecursively(directory);
+        }
+    }
+
+    private static double runBlocking(Repository<Person> repository, int concurrency) throws InterruptedException {
+        Person sample = new Person("blocking", 30);
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder completed = new LongAdder();
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Thread caller = new Thread(() -> {
+                while (!stop.get()) {
+                    repository.save(sample);
+                    completed.increment();
+                }
+            });
+            callers.add(caller);
+            caller.start();
+        }
+        long began = System.nanoTime();
+        Thread.sleep(RUN_MILLIS);
+        long done = completed.sum();
+        double seconds = (System.nanoTime() - began) / 1e9;
+        stop.set(true);
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        return done / seconds;
+    }
+
+    private static double runAsync(Repository<Person> repository, int concurrency) throws InterruptedException {
+        Person sample = new Person("async", 30);
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        Semaphore inFlight = new Semaphore(concurrency);
+        try (AsyncRepository<Person> async = AsyncRepository.onVirtualThreads(repository)) {
+            long began = System.nanoTime();
+            long deadline = began + RUN_MILLIS * 1_000_000;
+            while (System.nanoTime() < deadline) {
+                if (!inFlight.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                async.save(sample).whenComplete((id, failure) -> {
+                    if (failure == null) {
+                        completed.increment();
+                    } else {
+                        failed.increment();
+                        firstFailure.compareAndSet(null, failure);
+                    }
+                    inFlight.release();
+                });
+            }
+            long done = completed.sum();
+            double seconds = (System.nanoTime() - began) / 1e9;
+            inFlight.acquire(concurrency); // drain before the repository closes
+            if (failed.sum() > 0) {
+                System.out.printf("  ✗ %d async saves failed, first: %s%n", failed.sum(), firstFailure.get());
+            }
+            return done / seconds;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.masterjava.advanced;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * BATCH vs SINGLE-CALL WRITES
+ * ===========================
+ *
+ * saveAll()/deleteAll() against the same number of save()/delete() calls
+ * on a {@link GenericDAO} with a hash index ("name") and a sorted index
+ * ("age"), from one thread.
+ *
+ * WHERE A BATCH SAVES WORK:
+ * ┌────────────────────┬───────────────────────┬──────────────────────────┐
+ * │ Cost               │ per save()            │ per saveAll(n)           │
+ * ├────────────────────┼───────────────────────┼──────────────────────────┤
+ * │ id allocation      │ 1 atomic op           │ 1 atomic op              │
+ * │ commit timestamp   │ 1 atomic op           │ 1 atomic op              │
+ * │ index update       │ 1 compute per index   │ 1 compute per distinct   │
+ * │                    │                       │ key per index            │
+ * │ WAL (durable mode) │ 1 fsync               │ ⌈n / maxBatch⌉ fsyncs    │
+ * └────────────────────┴───────────────────────┴──────────────────────────┘
+ *
+ * The durable rows dominate: a lone thread calling save() waits for one
+ * fsync per entity, which is exactly what group commit cannot help with.
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.advanced.BatchBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class BatchBenchmark {
+    private static final int BATCH = 1_000;
+    private static final int IN_MEMORY_OPS = 500_000;
+    private static final int DURABLE_OPS = 10_000;
+    private static final String[] NAMES = {"ann", "bob", "cat", "dan", "eve", "fay", "gus", "hal"};
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   BATCH vs SINGLE-CALL WRITES (batch = " + BATCH + ")           ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.printf("  %-22s %16s %16s %9s%n", "Workload", "single (ops/s)", "batch (ops/s)", "speedup");
+
+        for (int round = 0; round < 2; round++) { // first round warms up the JIT
+            boolean report = round == 1;
+            compare("in-memory save", report, IN_MEMORY_OPS, null, false);
+            compare("in-memory delete", report, IN_MEMORY_OPS, null, true);
+        }
+        Path directory = Files.createTempDirectory("batch-bench-");
+        try {
+            compare("durable save", true, DURABLE_OPS, directory.resolve("save"), false);
+            compare("durable delete", true, DURABLE_OPS, directory.resolve("delete"), true);
+        } finally {
+            TempDirectories.deleteRecursively(directory);
+        }
+    }
+
+    private static void compare(String workload, boolean report, int ops, Path directory,
+                                boolean deletes) throws IOException {
+        double single = run(ops, directory == null ? null : directory.resolve("single"), deletes, false);
+        double batch = run(ops, directory == null ? null : directory.resolve("batch"), deletes, true);
+        if (report) {
+            System.out.printf("  %-22s %16.0f %16.0f %8.1fx%n", workload, single, batch, batch / single);
+        }
+    }
+
+    // Returns ops/sec of the measured phase (saves, or deletes of pre-saved entities)
+    private static double run(int ops, Path directory, boolean deletes, boolean batched) throws IOException {
+        List<Person> people = new ArrayList<>(ops);
+        for (int i = 0; i < ops; i++) {
+            people.add(new Person(NAMES[i % NAMES.length], i % 90));
+        }
+        try (GenericDAO<Person> dao = directory == null
+                ? new GenericDAO<>() : new GenericDAO<>(directory, Person.CODEC)) {
+            dao.addHashIndex("name", Person::getName);
+            dao.addSortedIndex("age", Person::getAge);
+            int[] ids = new int[ops];
+            if (deletes) {
+                saveAll(dao, people, ids);
+            }
+            long began = System.nanoTime();
+            if (deletes && batched) {
+                for (int from = 0; from < ops; from += BATCH) {
+                    dao.deleteAll(Arrays.copyOfRange(ids, from, Math.min(from + BATCH, ops)));
+                }
+            } else if (deletes) {
+                for (int id : ids) {
+                    dao.delete(id);
+                }
+            } else if (batched) {
+                saveAll(dao, people, ids);
+            } else {
+                for (int i = 0; i < ops; i++) {
+                    ids[i] = dao.save(people.get(i));
+                }
+            }
+            return ops / ((System.nanoTime() - began) / 1e9);
+        }
+    }
+
+    private static void saveAll(GenericDAO<Person> dao, List<Person> people, int[] ids) {
+        for (int from = 0; from < people.size(); from += BATCH) {
+            int[] batchIds = dao.saveAll(people.subList(from, Math.min(from + BATCH, people.size())));
+            System.arraycopy(batchIds, 0, ids, from, batchIds.length);
+        }
+    }
+}
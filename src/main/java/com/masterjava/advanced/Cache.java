@@ -0,0 +1,86 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+
+// Generic Cache (unbounded by default, W-TinyLFU eviction when bounded)
+class Cache<K, V> {
+    private Map<K, V> cache = new HashMap<>();
+    private final TinyLfuPolicy<K> policy;
+    private final OffHeapTier<K, V> offHeapTier;
+    private final CacheStats.Counter stats = new CacheStats.Counter();
+
+    public Cache() {
+        this.policy = null;
+        this.offHeapTier = null;
+    }
+
+    public Cache(int maximumSize) {
+        this(maximumSize, null);
+    }
+
+    // Evicted values go to the off-heap tier and are promoted back on a miss
+    public Cache(int maximumSize, OffHeapTier<K, V> offHeapTier) {
+        this.policy = new TinyLfuPolicy<>(maximumSize);
+        this.offHeapTier = offHeapTier;
+    }
+
+    public void put(K key, V value) {
+        if (offHeapTier != null) {
+            offHeapTier.invalidate(key); // the tier must never hold an older value
+        }
+        V previous = cache.put(key, value);
+        if (policy == null) {
+            return;
+        }
+        if (previous != null) {
+            policy.recordAccess(key);
+            return;
+        }
+        K victim = policy.recordInsert(key);
+        if (victim != null) {
+            V evicted = cache.remove(victim);
+            stats.recordEviction();
+            if (offHeapTier != null && evicted != null) {
+                offHeapTier.put(victim, evicted, Long.MAX_VALUE);
+            }
+        }
+    }
+
+    public Optional<V> get(K key) {
+        V value = cache.get(key);
+        if (value != null && policy != null) {
+            policy.recordAccess(key);
+        }
+        if (value == null && offHeapTier != null) {
+            OffHeapTier.Promoted<V> promoted = offHeapTier.remove(key);
+            if (promoted != null) {
+                value = promoted.value();
+                put(key, value);
+            }
+        }
+        if (value != null) {
+            stats.recordHit();
+        } else {
+            stats.recordMiss();
+        }
+        return Optional.ofNullable(value);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    public void clear() {
+        cache.clear();
+        if (policy != null) {
+            policy.clear();
+        }
+        if (offHeapTier != null) {
+            offHeapTier.clear();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * CACHE THROUGHPUT HARNESS
+ * ========================
+ *
+ * Multi-threaded throughput comparison between a lock-wrapped {@link Cache}
+ * and {@link ConcurrentCache} at 1, 4, 16 and 64 threads.
+ *
+ * WORKLOAD:
+ * • 90% get / 10% put
+ * • Skewed (Zipf-like) key popularity over 2× the cache capacity
+ * • Keys pre-generated and pre-boxed so the loop measures the cache,
+ *   not the random number generator or Integer allocation
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.advanced.CacheBenchmark"
+ *
+ * Numbers are indicative only: no JIT isolation or fork control as a
+ * JMH run would give. Compare the shape (scaling curve), not absolutes.
+ */
+public class CacheBenchmark {
+    private static final int CAPACITY = 10_000;
+    private static final int KEY_SPACE = CAPACITY * 2;
+    private static final int KEYS_PER_THREAD = 1 << 16;
+    private static final long RUN_MILLIS = 1_000;
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+    interface Target {
+        Object get(Integer key);
+        void put(Integer key, String value);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║           CACHE THROUGHPUT (90% read / 10% write)      ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.println("  Cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("  %-8s %20s %20s%n", "Threads", "synchronized Cache", "ConcurrentCache");
+
+        Integer[][] keys = generateKeys(THREAD_COUNTS[THREAD_COUNTS.length - 1]);
+        for (int threads : THREAD_COUNTS) {
+            Cache<Integer, String> plain = new Cache<>(CAPACITY);
+            Target lockedTarget = new Target() {
+                public synchronized Object get(Integer key) { return plain.get(key).orElse(null); }
+                public synchronized void put(Integer key, String value) { plain.put(key, value); }
+            };
+            ConcurrentCache<Integer, String> concurrent = new ConcurrentCache<>(CAPACITY);
+            Target concurrentTarget = new Target() {
+                public Object get(Integer key) { return concurrent.get(key).orElse(null); }
+                public void put(Integer key, String value) { concurrent.put(key, value); }
+            };
+
+            double locked = run(lockedTarget, threads, keys);
+            double lockFree = run(concurrentTarget, threads, keys);
+            System.out.printf("  %-8d %14.1f Mops/s %14.1f Mops/s%n", threads, locked, lockFree);
+        }
+    }
+
+    static double run(Target target, int threads, Integer[][] keys) throws InterruptedException {
+        for (int key = 0; key < CAPACITY; key++) {
+            target.put(key, "v");
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder operations = new LongAdder();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Integer[] threadKeys = keys[t];
+            Thread worker = new Thread(() -> {
+                awaitQuietly(start);
+                long ops = 0;
+                int index = 0;
+                while (!stop.get()) {
+                    for (int i = 0; i < 1024; i++) {
+                        Integer key = threadKeys[index++ & (KEYS_PER_THREAD - 1)];
+                        if (i % 10 != 0) {
+                            target.get(key);
+                        } else {
+                            target.put(key, "v");
+                        }
+                    }
+                    ops += 1024;
+                }
+                operations.add(ops);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        return operations.sum() / seconds / 1e6;
+    }
+
+    // Inverse-CDF sampling of a power law: low keys are hot, the tail is cold
+    static Integer[][] generateKeys(int threads) {
+        Integer[] boxed = new Integer[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            boxed[i] = i;
+        }
+        Random random = new Random(42);
+        Integer[][] keys = new Integer[threads][KEYS_PER_THREAD];
+        for (Integer[] threadKeys : keys) {
+            for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                double u = random.nextDouble();
+                int key = (int) (KEY_SPACE * Math.pow(u, 3));
+                threadKeys[i] = boxed[Math.min(key, KEY_SPACE - 1)];
+            }
+        }
+        return keys;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.masterjava.advanced;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CACHE STATISTICS SNAPSHOT
+ * =========================
+ *
+ * Immutable point-in-time copy of a cache's counters. Take two snapshots
+ * and {@link #minus} them to measure an interval, e.g. to compare two
+ * capacity settings or eviction policies against the same live traffic.
+ *
+ * LOAD LATENCY HISTOGRAM:
+ * • 64 power-of-two buckets: bucket i counts loads in [2^i, 2^(i+1)) ns
+ * • Percentiles are reported as the bucket's upper bound (≤ 2× error),
+ *   which is plenty to tell a 50µs backend from a 5ms one
+ *
+ * @param loadLatencyHistogram counts per power-of-two nanosecond bucket
+ *                             (copied in and out, so a snapshot stays fixed)
+ */
+record CacheStats(long hitCount, long missCount,
+                  long loadSuccessCount, long loadFailureCount, long totalLoadTimeNanos,
+                  long evictionCount, long expirationCount,
+                  long[] loadLatencyHistogram) {
+
+    static final int HISTOGRAM_BUCKETS = 64;
+
+    CacheStats {
+        loadLatencyHistogram = loadLatencyHistogram.clone();
+    }
+
+    @Override
+    public long[] loadLatencyHistogram() {
+        return loadLatencyHistogram.clone();
+    }
+
+    long requestCount() {
+        return hitCount + missCount;
+    }
+
+    double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    double missRate() {
+        long requests = requestCount();
+        return requests == 0 ? 0.0 : (double) missCount / requests;
+    }
+
+    double averageLoadPenaltyNanos() {
+        long loads = loadSuccessCount + loadFailureCount;
+        return loads == 0 ? 0.0 : (double) totalLoadTimeNanos / loads;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100) of
+     * load latencies, or 0 if nothing was loaded.
+     */
+    long loadLatencyPercentileNanos(double percentile) {
+        long total = 0;
+        for (long count : loadLatencyHistogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int bucket = 0; bucket < loadLatencyHistogram.length; bucket++) {
+            seen += loadLatencyHistogram[bucket];
+            if (seen >= Math.max(rank, 1)) {
+                return bucket >= 62 ? Long.MAX_VALUE : 1L << (bucket + 1);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    // Activity between an earlier snapshot and this one
+    CacheStats minus(CacheStats earlier) {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            histogram[i] = Math.max(0, loadLatencyHistogram[i] - earlier.loadLatencyHistogram[i]);
+        }
+        return new CacheStats(
+            Math.max(0, hitCount - earlier.hitCount),
+            Math.max(0, missCount - earlier.missCount),
+            Math.max(0, loadSuccessCount - earlier.loadSuccessCount),
+            Math.max(0, loadFailureCount - earlier.loadFailureCount),
+            Math.max(0, totalLoadTimeNanos - earlier.totalLoadTimeNanos),
+            Math.max(0, evictionCount - earlier.evictionCount),
+            Math.max(0, expirationCount - earlier.expirationCount),
+            histogram);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{hits=%d, misses=%d, hitRate=%.3f, loads=%d, loadFailures=%d, "
+                + "avgLoad=%.1fµs, p99Load≤%.1fµs, evictions=%d, expirations=%d}",
+            hitCount, missCount, hitRate(), loadSuccessCount, loadFailureCount,
+            averageLoadPenaltyNanos() / 1_000, loadLatencyPercentileNanos(99) / 1_000.0,
+            evictionCount, expirationCount);
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // RECORDING SIDE
+    // ═══════════════════════════════════════════════════════════
+
+    /**
+     * Live counters behind a cache. LongAdder spreads contended increments
+     * over per-CPU cells, so recording is a few nanoseconds and allocates
+     * nothing once the cells exist. {@link #DISABLED} makes every call a no-op.
+     */
+    static class Counter {
+        static final Counter DISABLED = new Counter() {
+            @Override void recordHit() { }
+            @Override void recordMiss() { }
+            @Override void recordLoadSuccess(long loadTimeNanos) { }
+            @Override void recordLoadFailure(long loadTimeNanos) { }
+            @Override void recordEviction() { }
+            @Override void recordExpiration() { }
+        };
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder loadSuccesses = new LongAdder();
+        private final LongAdder loadFailures = new LongAdder();
+        private final LongAdder totalLoadTime = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+        private final LongAdder[] loadLatency = new LongAdder[HISTOGRAM_BUCKETS];
+
+        Counter() {
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                loadLatency[i] = new LongAdder();
+            }
+        }
+
+        void recordHit() {
+            hits.increment();
+        }
+
+        void recordMiss() {
+            misses.increment();
+        }
+
+        void recordLoadSuccess(long loadTimeNanos) {
+            loadSuccesses.increment();
+            recordLoadTime(loadTimeNanos);
+        }
+
+        void recordLoadFailure(long loadTimeNanos) {
+            loadFailures.increment();
+            recordLoadTime(loadTimeNanos);
+        }
+
+        void recordEviction() {
+            evictions.increment();
+        }
+
+        void recordExpiration() {
+            expirations.increment();
+        }
+
+        CacheStats snapshot() {
+            long[] histogram = new long[HISTOGRAM_BUCKETS];
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                histogram[i] = loadLatency[i].sum();
+            }
+            return new CacheStats(hits.sum(), misses.sum(),
+                loadSuccesses.sum(), loadFailures.sum(), totalLoadTime.sum(),
+                evictions.sum(), expirations.sum(), histogram);
+        }
+
+        private void recordLoadTime(long loadTimeNanos) {
+            long nanos = Math.max(1, loadTimeNanos);
+            totalLoadTime.add(nanos);
+            loadLatency[63 - Long.numberOfLeadingZeros(nanos)].increment();
+        }
+    }
+}
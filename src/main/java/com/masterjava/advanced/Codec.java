@@ -0,0 +1,47 @@
+package com.masterjava.advanced;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts values to and from bytes, for storage outside the Java heap
+ * ({@link OffHeapTier}) or on disk ({@link WriteAheadLog}). Plug in a
+ * compact format for your value type; {@link #serializable()} works for
+ * anything {@link Serializable} but is slow and verbose.
+ *
+ * @param <V> value type
+ */
+interface Codec<V> {
+    byte[] encode(V value);
+    V decode(byte[] bytes);
+
+    Codec<String> UTF8 = new Codec<>() {
+        public byte[] encode(String value) { return value.getBytes(StandardCharsets.UTF_8); }
+        public String decode(byte[] bytes) { return new String(bytes, StandardCharsets.UTF_8); }
+    };
+
+    static <V extends Serializable> Codec<V> serializable() {
+        return new Codec<>() {
+            public byte[] encode(V value) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return bytes.toByteArray();
+            }
+
+            @SuppressWarnings("unchecked")
+            public V decode(byte[] bytes) {
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (V) in.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+}
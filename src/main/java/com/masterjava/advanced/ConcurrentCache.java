@@ -0,0 +1,576 @@
+package com.masterjava.advanced;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * THREAD-SAFE BOUNDED CACHE
+ * =========================
+ *
+ * Same put/get/clear API as {@link Cache}, safe to share between threads.
+ *
+ * DESIGN:
+ * ┌──────────┐  lock-free get   ┌───────────────────────┐
+ * │ readers  │ ───────────────→ │ ConcurrentHashMap     │
+ * │          │ ──record entry─→ │ striped read buffers  │──┐
+ * └──────────┘   (lossy)        └───────────────────────┘  │ drained in
+ * ┌──────────┐  put + lock      ┌───────────────────────┐  │ batches under
+ * │ writers  │ ───────────────→ │ TinyLfuPolicy         │←─┘ evictionLock
+ * └──────────┘                  │ TimerWheel (expiry)   │
+ *                               └───────────────────────┘
+ *
+ * WHY IT SCALES:
+ * ✓ Reads never block: the map lookup is lock-free and the policy update
+ *   is only a slot write into a per-thread-stripe ring buffer
+ * ✓ The eviction lock is taken once per full buffer, not once per read
+ * ✓ A full buffer drops the record instead of waiting (policy is a
+ *   heuristic, losing a few samples is harmless)
+ * ✗ Writes still serialize on the eviction lock for bookkeeping
+ *
+ * EXPIRY:
+ * • expireAfterWrite (TTL): entry dies a fixed time after its last put;
+ *   put(key, value, ttl) overrides the default per entry
+ * • expireAfterAccess (idle): entry dies after a period without reads
+ * • An expired entry is invisible to get() immediately; its memory is
+ *   reclaimed by the timer wheel on the next write or background sweep
+ *
+ * OFF-HEAP TIER (optional, see {@link OffHeapTier}):
+ * • Size-evicted values are encoded into direct memory instead of dropped
+ * • A heap miss checks the tier and promotes the value back on-heap,
+ *   keeping its original write deadline; a put that races with the
+ *   promotion wins
+ * • Every write drops the key's tier copy, so an older value can never
+ *   be promoted over (or after the expiry of) a newer one
+ *
+ * STATISTICS (builder.recordStats(), see {@link CacheStats}):
+ * • Hits, misses, evictions, expirations, load times in LongAdders
+ * • stats() returns an immutable snapshot; disabled = no-op counter
+ *
+ * USAGE:
+ *   ConcurrentCache<String, Person> cache = ConcurrentCache.<String, Person>builder()
+ *       .maximumSize(10_000)
+ *       .expireAfterWrite(Duration.ofMinutes(10))
+ *       .expireAfterAccess(Duration.ofMinutes(2))
+ *       .build();
+ *
+ * @param <K> key type (non-null)
+ * @param <V> value type (non-null)
+ */
+class ConcurrentCache<K, V> {
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+    private static final long CLEANUP_PERIOD_MILLIS = 1_000;
+
+    // One daemon thread sweeps every expiring cache; holds caches weakly.
+    // Started by the first cache that needs it, not at class load
+    private static final Lazy<ScheduledExecutorService> CLEANER = Lazy.of(() ->
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        }));
+
+    private final ConcurrentHashMap<K, Entry<K, V>> data = new ConcurrentHashMap<>();
+    private final TinyLfuPolicy<K> policy;
+    private final ReadBuffer<Entry<K, V>> readBuffer = new ReadBuffer<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final TimerWheel<K, V> timerWheel;
+    private final OffHeapTier<K, V> offHeapTier;
+    final CacheStats.Counter statsCounter;
+    private final long origin = System.nanoTime();
+
+    public ConcurrentCache(int maximumSize) {
+        this(new Builder<K, V>().maximumSize(maximumSize));
+    }
+
+    protected ConcurrentCache(Builder<K, V> builder) {
+        if (builder.offHeapTier != null && builder.maximumSize == 0) {
+            throw new IllegalStateException("offHeapTier requires maximumSize: an unbounded cache never evicts");
+        }
+        this.policy = builder.maximumSize > 0 ? new TinyLfuPolicy<>(builder.maximumSize) : null;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.timerWheel = new TimerWheel<>();
+        this.offHeapTier = builder.offHeapTier;
+        this.statsCounter = builder.recordStats ? new CacheStats.Counter() : CacheStats.Counter.DISABLED;
+        if (builder.expires()) {
+            scheduleCleanup(this);
+        }
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    public void put(K key, V value) {
+        put(key, value, expireAfterWriteNanos);
+    }
+
+    public void put(K key, V value, Duration timeToLive) {
+        put(key, value, timeToLive.toNanos());
+    }
+
+    public Optional<V> get(K key) {
+        Entry<K, V> entry = getEntry(key);
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.value);
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    public void clear() {
+        evictionLock.lock();
+        try {
+            readBuffer.drainTo(entry -> { });
+            for (Entry<K, V> entry : data.values()) {
+                entry.retired = true;
+            }
+            data.clear();
+            timerWheel.clear();
+            if (policy != null) {
+                policy.clear();
+            }
+            if (offHeapTier != null) {
+                offHeapTier.clear();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Replays buffered reads and reclaims expired entries. Runs on every
+     * write and periodically on the background cleaner.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Live entry lookup that records the read; null if absent or expired
+    Entry<K, V> getEntry(K key) {
+        Entry<K, V> entry = data.get(key);
+        if (entry == null) {
+            Entry<K, V> promoted = offHeapTier == null ? null : promote(key);
+            if (promoted == null) {
+                statsCounter.recordMiss();
+            } else {
+                statsCounter.recordHit();
+            }
+            return promoted;
+        }
+        long now = now();
+        if (entry.expiresAt(expireAfterAccessNanos) <= now) {
+            statsCounter.recordMiss();
+            return null;
+        }
+        statsCounter.recordHit();
+        if (expireAfterAccessNanos > 0) {
+            entry.accessTime = now;
+        }
+        if (readBuffer.offer(entry) == ReadBuffer.FULL) {
+            tryCleanUp();
+        }
+        return entry;
+    }
+
+    // Mapped, unexpired entry; unlike getEntry() it records nothing
+    Entry<K, V> liveEntry(K key) {
+        Entry<K, V> entry = data.get(key);
+        return entry == null || entry.expiresAt(expireAfterAccessNanos) <= now() ? null : entry;
+    }
+
+    private Entry<K, V> promote(K key) {
+        OffHeapTier.Promoted<V> promoted = offHeapTier.remove(key);
+        if (promoted == null) {
+            return null;
+        }
+        long remaining = promoted.expiresAt() == NO_EXPIRY ? NO_EXPIRY : promoted.expiresAt() - now();
+        if (remaining <= 0) {
+            return null;
+        }
+        Entry<K, V> entry = new Entry<>(key, promoted.value(), now(), remaining);
+        Entry<K, V> winner = data.putIfAbsent(key, entry);
+        if (winner != null) {
+            return winner; // a put landed meanwhile; it is newer than the tier copy
+        }
+        track(null, entry);
+        return entry;
+    }
+
+    private void put(K key, V value, long timeToLiveNanos) {
+        Entry<K, V> entry = new Entry<>(key, value, now(), timeToLiveNanos);
+        track(data.put(key, entry), entry);
+    }
+
+    /**
+     * Installs {@code value} only if the key has no live entry: a miss load
+     * must not overwrite a put that landed while it was loading. An expired
+     * entry not yet reclaimed counts as absent.
+     *
+     * @return false if a live entry was already mapped
+     */
+    boolean putIfAbsent(K key, V value) {
+        Entry<K, V> entry = new Entry<>(key, value, now(), expireAfterWriteNanos);
+        while (true) {
+            Entry<K, V> current = data.get(key);
+            if (current == null) {
+                if (data.putIfAbsent(key, entry) == null) {
+                    track(null, entry);
+                    return true;
+                }
+            } else if (current.expiresAt(expireAfterAccessNanos) > now()) {
+                return false;
+            } else if (data.replace(key, current, entry)) {
+                track(current, entry);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Replaces {@code expected} with a fresh entry for {@code value}, but
+     * only if {@code expected} is still the mapped entry: a background
+     * refresh must not overwrite a put that landed while it was loading.
+     *
+     * @return false if the key was written, removed or evicted meanwhile
+     */
+    boolean replace(Entry<K, V> expected, V value) {
+        Entry<K, V> entry = new Entry<>(expected.key, value, now(), expireAfterWriteNanos);
+        if (!data.replace(expected.key, expected, entry)) {
+            return false;
+        }
+        track(expected, entry);
+        return true;
+    }
+
+    // Policy and timer bookkeeping for an entry just installed in the map
+    private void track(Entry<K, V> previous, Entry<K, V> entry) {
+        K key = entry.key;
+        evictionLock.lock();
+        try {
+            // Any older copy of the key in the tier is stale now. Demotion
+            // happens under this lock too, so none can slip in after this
+            if (offHeapTier != null) {
+                offHeapTier.invalidate(key);
+            }
+            if (previous != null) {
+                retire(previous);
+            }
+            // A concurrent eviction may have removed the key again; if so the
+            // write lost the race and there is nothing to track.
+            if (data.get(key) != entry) {
+                return;
+            }
+            long expiresAt = entry.expiresAt(expireAfterAccessNanos);
+            if (expiresAt != NO_EXPIRY) {
+                timerWheel.schedule(entry, expiresAt);
+            }
+            if (policy != null) {
+                K victim = policy.recordInsert(key);
+                if (victim != null) {
+                    Entry<K, V> evicted = data.remove(victim);
+                    if (evicted != null) {
+                        retire(evicted);
+                        statsCounter.recordEviction();
+                        if (offHeapTier != null) {
+                            offHeapTier.put(victim, evicted.value, evicted.writeDeadline);
+                        }
+                    }
+                }
+            }
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void tryCleanUp() {
+        if (evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    // Caller holds evictionLock
+    private void maintenance() {
+        readBuffer.drainTo(this::onAccess);
+        timerWheel.advance(now(), this::onTimerDue);
+    }
+
+    // Caller holds evictionLock
+    private void onAccess(Entry<K, V> entry) {
+        if (entry.retired) {
+            return;
+        }
+        if (policy != null) {
+            policy.recordAccess(entry.key);
+        }
+        if (expireAfterAccessNanos > 0) {
+            timerWheel.schedule(entry, entry.expiresAt(expireAfterAccessNanos));
+        }
+    }
+
+    // Caller holds evictionLock. Wheel buckets are coarse and idle time may
+    // have been extended by a read that was not drained yet, so re-check.
+    private void onTimerDue(Entry<K, V> entry) {
+        if (entry.retired) {
+            return;
+        }
+        long expiresAt = entry.expiresAt(expireAfterAccessNanos);
+        if (expiresAt > now()) {
+            timerWheel.schedule(entry, expiresAt);
+            return;
+        }
+        if (data.remove(entry.key, entry)) {
+            entry.retired = true;
+            statsCounter.recordExpiration();
+            if (policy != null) {
+                policy.recordRemoval(entry.key);
+            }
+        }
+    }
+
+    // Caller holds evictionLock
+    private void retire(Entry<K, V> entry) {
+        entry.retired = true;
+        timerWheel.deschedule(entry);
+    }
+
+    long now() {
+        return System.nanoTime() - origin;
+    }
+
+    private static void scheduleCleanup(ConcurrentCache<?, ?> cache) {
+        WeakReference<ConcurrentCache<?, ?>> ref = new WeakReference<>(cache);
+        Future<?>[] task = new Future<?>[1];
+        task[0] = CLEANER.get().scheduleWithFixedDelay(() -> {
+            ConcurrentCache<?, ?> target = ref.get();
+            if (target == null) {
+                task[0].cancel(false); // cache was garbage collected
+            } else {
+                target.cleanUp();
+            }
+        }, CLEANUP_PERIOD_MILLIS, CLEANUP_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // BUILDER
+    // ═══════════════════════════════════════════════════════════
+
+    static class Builder<K, V> {
+        private int maximumSize;
+        private long expireAfterWriteNanos = NO_EXPIRY;
+        private long expireAfterAccessNanos;
+        long refreshAfterWriteNanos;
+        Executor executor = ForkJoinPool.commonPool();
+        private OffHeapTier<K, V> offHeapTier;
+        private boolean recordStats;
+
+        // 0 (default) = unbounded
+        public Builder<K, V> maximumSize(int maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder<K, V> expireAfterWrite(Duration duration) {
+            this.expireAfterWriteNanos = positiveNanos(duration);
+            return this;
+        }
+
+        public Builder<K, V> expireAfterAccess(Duration duration) {
+            this.expireAfterAccessNanos = positiveNanos(duration);
+            return this;
+        }
+
+        // Size-evicted values move to direct memory instead of being dropped
+        public Builder<K, V> offHeapTier(Codec<V> codec, long capacityBytes) {
+            this.offHeapTier = new OffHeapTier<>(codec, capacityBytes);
+            return this;
+        }
+
+        public Builder<K, V> recordStats() {
+            this.recordStats = true;
+            return this;
+        }
+
+        // Loading caches only: reload entries read after this age, in the background
+        public Builder<K, V> refreshAfterWrite(Duration duration) {
+            this.refreshAfterWriteNanos = positiveNanos(duration);
+            return this;
+        }
+
+        // Loading caches only: runs asynchronous loads and refreshes
+        public Builder<K, V> executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        public ConcurrentCache<K, V> build() {
+            if (refreshAfterWriteNanos > 0) {
+                throw new IllegalStateException("refreshAfterWrite requires a loader: use build(loader)");
+            }
+            return new ConcurrentCache<>(this);
+        }
+
+        public LoadingCache<K, V> build(java.util.function.Function<? super K, ? extends V> loader) {
+            if (refreshAfterWriteNanos > 0 && refreshAfterWriteNanos >= expireAfterWriteNanos) {
+                throw new IllegalStateException("refreshAfterWrite must be shorter than expireAfterWrite");
+            }
+            return new LoadingCache<>(this, loader);
+        }
+
+        boolean expires() {
+            return expireAfterWriteNanos != NO_EXPIRY || expireAfterAccessNanos > 0;
+        }
+
+        private static long positiveNanos(Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            return duration.toNanos();
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // ENTRY
+    // ═══════════════════════════════════════════════════════════
+
+    /**
+     * Map value holding the cached value plus expiry bookkeeping.
+     * Timer links and {@code retired} are guarded by the eviction lock;
+     * {@code accessTime} is written racily by readers (last writer wins,
+     * which is fine for an idle timestamp).
+     */
+    static final class Entry<K, V> {
+        final K key;
+        final V value;
+        final long writeTime;
+        final long writeDeadline;
+        volatile long accessTime;
+        boolean retired;
+
+        Entry<K, V> prevInTimer;
+        Entry<K, V> nextInTimer;
+
+        Entry(K key, V value, long now, long timeToLiveNanos) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = now;
+            this.accessTime = now;
+            this.writeDeadline = timeToLiveNanos == NO_EXPIRY ? NO_EXPIRY : saturatedAdd(now, timeToLiveNanos);
+        }
+
+        static <K, V> Entry<K, V> sentinel() {
+            Entry<K, V> sentinel = new Entry<>(null, null, 0, NO_EXPIRY);
+            sentinel.prevInTimer = sentinel;
+            sentinel.nextInTimer = sentinel;
+            return sentinel;
+        }
+
+        long expiresAt(long expireAfterAccessNanos) {
+            if (expireAfterAccessNanos <= 0) {
+                return writeDeadline;
+            }
+            return Math.min(writeDeadline, saturatedAdd(accessTime, expireAfterAccessNanos));
+        }
+
+        private static long saturatedAdd(long a, long b) {
+            long sum = a + b;
+            return sum < a ? NO_EXPIRY : sum;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // STRIPED LOSSY READ BUFFER
+    // ═══════════════════════════════════════════════════════════
+
+    /**
+     * Multi-producer / single-consumer ring buffers, one stripe per
+     * thread hash. Producers claim a slot with one CAS; the consumer
+     * (holder of the eviction lock) replays slots into the policy.
+     */
+    static final class ReadBuffer<E> {
+        static final int SUCCESS = 0;
+        static final int FULL = 1;
+        static final int FAILED = 2;
+
+        private static final int STRIPE_SIZE = 16;
+        private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+        private final Stripe<E>[] stripes;
+        private final int stripesMask;
+
+        ReadBuffer() {
+            int count = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+            // No generic array creation in Java; the raw array never escapes
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Stripe<E>[] created = new Stripe[Math.max(count, 2)];
+            stripes = created;
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Stripe<>();
+            }
+            stripesMask = stripes.length - 1;
+        }
+
+        int offer(E element) {
+            long probe = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+            Stripe<E> stripe = stripes[(int) (probe >>> 32) & stripesMask];
+            long tail = stripe.writeCounter.get();
+            long head = stripe.readCounter;
+            if (tail - head >= STRIPE_SIZE) {
+                return FULL;
+            }
+            if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+                stripe.slots.lazySet((int) (tail & STRIPE_MASK), element);
+                return SUCCESS;
+            }
+            return FAILED;
+        }
+
+        // Single consumer only (caller holds the owning cache's lock)
+        void drainTo(java.util.function.Consumer<E> consumer) {
+            for (Stripe<E> stripe : stripes) {
+                long head = stripe.readCounter;
+                long tail = stripe.writeCounter.get();
+                for (; head < tail; head++) {
+                    int index = (int) (head & STRIPE_MASK);
+                    E element = stripe.slots.get(index);
+                    if (element == null) {
+                        break; // slot claimed but not yet published
+                    }
+                    stripe.slots.lazySet(index, null);
+                    consumer.accept(element);
+                }
+                stripe.readCounter = head;
+            }
+        }
+
+        private static final class Stripe<E> {
+            final AtomicReferenceArray<E> slots = new AtomicReferenceArray<>(STRIPE_SIZE);
+            final AtomicLong writeCounter = new AtomicLong();
+            volatile long readCounter;
+        }
+    }
+}
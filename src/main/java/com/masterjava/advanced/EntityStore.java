@@ -0,0 +1,900 @@
+package com.masterjava.advanced;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * CONCURRENT ENTITY STORE
+ * =======================
+ *
+ * Thread-safe storage engine behind {@link GenericDAO} and
+ * {@link PersonRepository}.
+ *
+ * WHY NOT HashMap + idCounter++:
+ * ✗ idCounter++ is read-modify-write: two threads can get the same id
+ * ✗ Concurrent HashMap.put can corrupt buckets (lost entries, loops)
+ *
+ * LAYOUT (ids are dense and only grow, so no hashing is needed):
+ * ┌─────────────── directory (volatile, grows by copy) ───────────────┐
+ * │ chunk 0          chunk 1          chunk 2          ...            │
+ * └──┬───────────────┬───────────────┬────────────────────────────────┘
+ *    ↓               ↓               ↓
+ * [id 0..4095]    [4096..8191]    [8192..12287]   AtomicReferenceArray
+ *
+ * • save:     id = nextId.getAndIncrement()  (one atomic op, never reused)
+ *             then a volatile store into the id's slot
+ * • findById: two array loads + two volatile reads - no lock, no hashing,
+ *             no Integer boxing
+ * • delete:   CAS a tombstone over the slot's head version
+ * • Growth:   only the directory is copied (under a lock, rarely);
+ *             chunks never move, so readers are never blocked
+ * • Scans:    stream()/page() walk the id range in place - no copy;
+ *             the spliterator splits the id range in halves, so parallel
+ *             streams divide work evenly without materializing anything
+ *
+ * DURABILITY (optional, see {@link #durable}):
+ * • Every save/delete is appended to a {@link WriteAheadLog} and returns
+ *   only once the record is fsynced; concurrent writers share fsyncs
+ *   through the log's group commit
+ * • save logs BEFORE publishing the slot, so no reader can see an entity
+ *   that a crash would lose, and a delete can never be logged ahead of
+ *   the save it undoes
+ * • On open the newest snapshot is loaded, then only the log records
+ *   after it are replayed; nextId resumes past the highest recovered id
+ *   (ids are still never reused)
+ *
+ * MVCC READ VIEWS (consistent scans alongside writes, see {@link #openReadView}):
+ *
+ *   slot → [tombstone @12] → [Person v @7] → null     (newest first)
+ *
+ * • Every write installs a new head version, then stamps it with
+ *   commitTs = clock.incrementAndGet(). Writers never look at readers.
+ * • A view pins readTs = clock when opened and, per slot, returns the
+ *   newest version with commitTs ≤ readTs. A head still being stamped is
+ *   waited out (a couple of instructions), so a view reads the same
+ *   answer every time it looks.
+ * • GC: with no open view, a delete drops its tombstone and the old
+ *   version immediately. With views open, the id is queued; whenever a
+ *   view closes, queued chains are cut below the newest version the
+ *   oldest open view can still see.
+ * • The no-view fast path is safe without locks: writers bump the clock
+ *   before checking openViews, views bump openViews before reading the
+ *   clock, so a view a writer missed always pins a readTs ≥ that write.
+ *
+ * OPTIMISTIC UPDATES (see {@link #compareAndUpdate}):
+ * • Each version carries an entity version: 1 on save, +1 per update
+ * • update CASes a new head over the head whose version the caller read;
+ *   losers get false and retry with a fresh read - no per-row locks
+ * • Between install and stamp a head is PENDING: other updates and deletes
+ *   of that id wait (a few instructions), so per id the WAL records and
+ *   index changes happen in exactly the order the versions were installed
+ * • Like a delete, an update is visible just before it is durable; the
+ *   call returns only after its log record is fsynced
+ * • If that log write fails, memory is ahead of the log: the call throws
+ *   and the store refuses every later write, so nothing is built on a
+ *   change a restart would not see. Reopening reloads the durable state.
+ *
+ * SNAPSHOT + COMPACTION (keeps restart time ∝ live data, not history):
+ * 1. Briefly exclude writers (they share a read lock around log+publish)
+ *    to read a cut point: every record ≤ lsn is visible in the slots
+ * 2. Roll the log, let writers go, scan the slots into a snapshot file
+ * 3. Delete WAL segments ≤ lsn and older snapshots
+ * • The scan is fuzzy (writes after the cut may or may not be in it);
+ *   that is safe because replaying the tail re-applies them: a SAVE puts
+ *   the same entity in the same slot, a DELETE clears it again, and an
+ *   UPDATE only applies if it is newer than the version already there
+ *
+ * @param <T> entity type
+ */
+class EntityStore<T> {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object growLock = new Object();
+    private volatile AtomicReferenceArray<Version<T>>[] directory;
+
+    // MVCC bookkeeping (see class comment)
+    private static final long PENDING = -1;
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger openViews = new AtomicInteger();
+    private final Set<View> views = ConcurrentHashMap.newKeySet();
+    private final Queue<Integer> garbage = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger garbageCount = new AtomicInteger();
+    private final Lock reclaimLock = new ReentrantLock();
+
+    private static final byte[] NO_PAYLOAD = new byte[0];
+    // Only stores with snapshotEvery() need this thread; start it on first use
+    private static final Lazy<ScheduledExecutorService> SNAPSHOTTER = Lazy.of(() ->
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entity-store-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        }));
+
+    private WriteAheadLog log; // null = in-memory only
+    private Codec<T> codec;
+    private Path logDirectory;
+    // Writers hold the read lock from id allocation to publish; snapshots take
+    // the write lock only to pick their cut point
+    private final ReentrantReadWriteLock cutLock = new ReentrantReadWriteLock();
+    private final Object snapshotLock = new Object();
+    private volatile long snapshotLsn;
+    private volatile Throwable writeFailure; // a change went visible but never reached the log
+    private ScheduledFuture<?> snapshotTask;
+
+    EntityStore() {
+        // No generic array creation in Java; chunks only ever hold Version<T>
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        AtomicReferenceArray<Version<T>>[] chunks = new AtomicReferenceArray[] {
+            new AtomicReferenceArray<Version<T>>(CHUNK_SIZE)
+        };
+        directory = chunks;
+    }
+
+    /**
+     * Opens a store that persists to a write-ahead log in {@code directory},
+     * first rebuilding its contents from whatever the log already holds.
+     *
+     * @param maxBatchSize upper bound of writes sharing one fsync
+     */
+    static <T> EntityStore<T> durable(Path directory, Codec<T> codec, int maxBatchSize) throws IOException {
+        EntityStore<T> store = new EntityStore<>();
+        store.codec = Objects.requireNonNull(codec, "codec");
+        store.logDirectory = directory;
+        java.nio.file.Files.createDirectories(directory);
+        SnapshotFile.Header snapshot = SnapshotFile.loadLatest(directory, codec, store::restore);
+        store.snapshotLsn = snapshot.lsn();
+        store.nextId.accumulateAndGet(snapshot.nextId(), Math::max);
+        store.log = WriteAheadLog.open(directory, maxBatchSize, snapshot.lsn(), store::replay);
+        return store;
+    }
+
+    /**
+     * Stores a new entity and returns its freshly allocated id.
+     */
+    int insert(T entity) {
+        Objects.requireNonNull(entity, "entity");
+        if (log == null) {
+            return publish(allocateId(), entity);
+        }
+        byte[] payload = codec.encode(entity);
+        cutLock.readLock().lock();
+        try {
+            checkWritable();
+            int id = allocateId();
+            log.appendAndSync(WriteAheadLog.SAVE, id, payload);
+            return publish(id, entity);
+        } finally {
+            cutLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a batch under consecutive ids, paying once for what insert()
+     * pays per entity: one id-range allocation, one lock round-trip, one
+     * group of log records, one commit timestamp. The batch becomes visible
+     * to read views atomically.
+     */
+    int[] insertAll(Collection<? extends T> entities) {
+        List<T> batch = List.copyOf(entities); // also rejects null elements
+        if (batch.isEmpty()) {
+            return new int[0];
+        }
+        if (log == null) {
+            return publishAll(allocateIds(batch.size()), batch);
+        }
+        byte[][] payloads = new byte[batch.size()][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = codec.encode(batch.get(i));
+        }
+        cutLock.readLock().lock();
+        try {
+            checkWritable();
+            int firstId = allocateIds(batch.size());
+            int[] ids = new int[batch.size()];
+            Arrays.setAll(ids, i -> firstId + i);
+            log.appendAllAndSync(WriteAheadLog.SAVE, ids, payloads);
+            return publishAll(firstId, batch);
+        } finally {
+            cutLock.readLock().unlock();
+        }
+    }
+
+    private int allocateId() {
+        return allocateIds(1);
+    }
+
+    // First of count consecutive fresh ids
+    private int allocateIds(int count) {
+        int first = nextId.getAndAdd(count);
+        if (first < 0 || first + count < 0) {
+            throw new IllegalStateException("id space exhausted");
+        }
+        return first;
+    }
+
+    private int publish(int id, T entity) {
+        Version<T> version = new Version<>(entity, null, PENDING, 1);
+        chunkForWrite(id).set(id & CHUNK_MASK, version);
+        version.commitTs = clock.incrementAndGet();
+        size.incrementAndGet();
+        return id;
+    }
+
+    private int[] publishAll(int firstId, List<T> batch) {
+        List<Version<T>> versions = new ArrayList<>(batch.size());
+        int[] ids = new int[batch.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = firstId + i;
+            Version<T> version = new Version<>(batch.get(i), null, PENDING, 1);
+            versions.add(version);
+            chunkForWrite(ids[i]).set(ids[i] & CHUNK_MASK, version);
+        }
+        long commitTs = clock.incrementAndGet();
+        for (Version<T> version : versions) {
+            version.commitTs = commitTs;
+        }
+        size.addAndGet(ids.length);
+        return ids;
+    }
+
+    // Latest state, including writes still being stamped
+    T get(int id) {
+        AtomicReferenceArray<Version<T>> chunk = chunkFor(id);
+        if (chunk == null) {
+            return null;
+        }
+        Version<T> head = chunk.get(id & CHUNK_MASK);
+        return head == null ? null : head.value;
+    }
+
+    // Latest committed entity with its version stamp, or null if absent
+    Versioned<T> getVersioned(int id) {
+        AtomicReferenceArray<Version<T>> chunk = chunkFor(id);
+        if (chunk == null) {
+            return null;
+        }
+        Version<T> head = committedHead(chunk, id & CHUNK_MASK);
+        return head == null || head.value == null ? null : new Versioned<>(head.value, head.entityVersion);
+    }
+
+    /**
+     * Replaces the entity only if its current version is still
+     * {@code expectedVersion}; returns false if it changed or is absent.
+     *
+     * @param beforeCommit sees (old, new) after the new version is installed
+     *                     and before it is committed; runs strictly in
+     *                     version order per id (used for index upkeep)
+     */
+    boolean compareAndUpdate(int id, long expectedVersion, T entity, BiConsumer<T, T> beforeCommit) {
+        Objects.requireNonNull(entity, "entity");
+        AtomicReferenceArray<Version<T>> chunk = chunkFor(id);
+        if (chunk == null) {
+            return false;
+        }
+        byte[] payload = null;
+        if (log != null) {
+            byte[] bytes = codec.encode(entity);
+            payload = java.nio.ByteBuffer.allocate(Long.BYTES + bytes.length)
+                .putLong(expectedVersion + 1).put(bytes).array();
+            cutLock.readLock().lock();
+        }
+        try {
+            if (log != null) {
+                checkWritable();
+            }
+            int slot = id & CHUNK_MASK;
+            Version<T> head = committedHead(chunk, slot);
+            if (head == null || head.value == null || head.entityVersion != expectedVersion) {
+                return false;
+            }
+            Version<T> updated = new Version<>(entity, head, PENDING, expectedVersion + 1);
+            if (!chunk.compareAndSet(slot, head, updated)) {
+                return false; // another update or a delete got there first
+            }
+            CompletableFuture<Long> durable = log == null ? null : log.append(WriteAheadLog.UPDATE, id, payload);
+            try {
+                beforeCommit.accept(head.value, entity);
+            } finally {
+                updated.commitTs = clock.incrementAndGet();
+                retire(id, updated);
+            }
+            if (durable != null) {
+                try {
+                    durable.join();
+                } catch (CompletionException e) {
+                    writeFailure = e.getCause();
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+            return true;
+        } finally {
+            if (log != null) {
+                cutLock.readLock().unlock();
+            }
+        }
+    }
+
+    // Durable writes only: fails fast once memory has run ahead of the log
+    private void checkWritable() {
+        Throwable cause = writeFailure;
+        if (cause != null) {
+            throw new IllegalStateException("store " + logDirectory + " lost a log write and rejects writes", cause);
+        }
+    }
+
+    // Head once its writer has stamped it (the wait spans a few instructions)
+    private Version<T> committedHead(AtomicReferenceArray<Version<T>> chunk, int slot) {
+        for (int spins = 0; ; spins++) {
+            Version<T> head = chunk.get(slot);
+            if (head == null || head.commitTs != PENDING) {
+                return head;
+            }
+            backOff(spins);
+        }
+    }
+
+    // Spin briefly, then yield: the writer may have been descheduled mid-window
+    private static void backOff(int spins) {
+        if (spins < 64) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Removes an entity; returns the removed entity or null if absent.
+     */
+    T remove(int id) {
+        if (log == null) {
+            return clear(id);
+        }
+        cutLock.readLock().lock();
+        try {
+            checkWritable();
+            T removed = clear(id);
+            if (removed != null) {
+                try {
+                    log.appendAndSync(WriteAheadLog.DELETE, id, NO_PAYLOAD);
+                } catch (RuntimeException e) {
+                    writeFailure = e;
+                    throw e;
+                }
+            }
+            return removed;
+        } finally {
+            cutLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a batch with one lock round-trip, one group of log records
+     * and one commit timestamp (read views see all or none of it).
+     * Returns the removed entities aligned with {@code ids} (null where
+     * the id was absent).
+     */
+    List<T> removeAll(int... ids) {
+        if (log == null) {
+            return clearAll(ids);
+        }
+        cutLock.readLock().lock();
+        try {
+            checkWritable();
+            List<T> removed = clearAll(ids);
+            int[] removedIds = new int[ids.length];
+            int count = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (removed.get(i) != null) {
+                    removedIds[count++] = ids[i];
+                }
+            }
+            if (count > 0) {
+                byte[][] payloads = new byte[count][];
+                Arrays.fill(payloads, NO_PAYLOAD);
+                try {
+                    log.appendAllAndSync(WriteAheadLog.DELETE, Arrays.copyOf(removedIds, count), payloads);
+                } catch (RuntimeException e) {
+                    writeFailure = e;
+                    throw e;
+                }
+            }
+            return removed;
+        } finally {
+            cutLock.readLock().unlock();
+        }
+    }
+
+    private T clear(int id) {
+        Version<T> tombstone = installTombstone(id);
+        if (tombstone == null) {
+            return null;
+        }
+        T removed = tombstone.older.value; // read before reclaim() may unlink it
+        tombstone.commitTs = clock.incrementAndGet();
+        size.decrementAndGet();
+        retire(id, tombstone);
+        return removed;
+    }
+
+    private List<T> clearAll(int[] ids) {
+        List<T> removed = new ArrayList<>(ids.length);
+        List<Version<T>> tombstones = new ArrayList<>(ids.length);
+        int[] retired = new int[ids.length];
+        for (int id : ids) {
+            Version<T> tombstone = installTombstone(id);
+            removed.add(tombstone == null ? null : tombstone.older.value);
+            if (tombstone != null) {
+                retired[tombstones.size()] = id;
+                tombstones.add(tombstone);
+            }
+        }
+        if (tombstones.isEmpty()) {
+            return removed;
+        }
+        long commitTs = clock.incrementAndGet();
+        for (Version<T> tombstone : tombstones) {
+            tombstone.commitTs = commitTs;
+        }
+        size.addAndGet(-tombstones.size());
+        for (int i = 0; i < tombstones.size(); i++) {
+            retire(retired[i], tombstones.get(i));
+        }
+        return removed;
+    }
+
+    // CASes an unstamped tombstone over a live head; null if already absent
+    private Version<T> installTombstone(int id) {
+        AtomicReferenceArray<Version<T>> chunk = chunkFor(id);
+        if (chunk == null) {
+            return null;
+        }
+        int slot = id & CHUNK_MASK;
+        while (true) {
+            Version<T> head = committedHead(chunk, slot);
+            if (head == null || head.value == null) {
+                return null;
+            }
+            Version<T> tombstone = new Version<>(null, head, PENDING, head.entityVersion + 1);
+            if (chunk.compareAndSet(slot, head, tombstone)) {
+                return tombstone;
+            }
+        }
+    }
+
+    // Unlinks what a stamped head superseded now, or queues the id while
+    // read views may still need the older version
+    private void retire(int id, Version<T> head) {
+        if (openViews.get() == 0) {
+            if (head.value == null) {
+                chunkFor(id).compareAndSet(id & CHUNK_MASK, head, null);
+            } else {
+                head.older = null;
+            }
+            return;
+        }
+        garbage.add(id);
+        garbageCount.incrementAndGet();
+        if (openViews.get() == 0) {
+            reclaim(); // the last view closed before it could see this entry
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    // Highest id handed out so far (ids in 1..maxId may be empty)
+    int maxId() {
+        return nextId.get() - 1;
+    }
+
+    // The backing log, or null for an in-memory store
+    WriteAheadLog log() {
+        return log;
+    }
+
+    // LSN covered by the newest snapshot (0 if none)
+    long snapshotLsn() {
+        return snapshotLsn;
+    }
+
+    /**
+     * Writes a point-in-time snapshot and compacts the log behind it.
+     * Writers are paused only while the cut point is taken, not during the
+     * scan. Returns the LSN the snapshot covers.
+     */
+    long snapshot() throws IOException {
+        if (log == null) {
+            throw new IllegalStateException("in-memory store has no log to compact");
+        }
+        synchronized (snapshotLock) {
+            long lsn;
+            int cutNextId;
+            cutLock.writeLock().lock();
+            try {
+                lsn = log.durableLsn();
+                cutNextId = nextId.get();
+                if (lsn == snapshotLsn) {
+                    return lsn; // nothing written since the last snapshot
+                }
+                log.roll();
+            } finally {
+                cutLock.writeLock().unlock();
+            }
+            SnapshotFile.write(logDirectory, lsn, cutNextId, this, codec);
+            snapshotLsn = lsn;
+            log.pruneThrough(lsn);
+            SnapshotFile.deleteOlderThan(logDirectory, lsn);
+            return lsn;
+        }
+    }
+
+    /**
+     * Takes a snapshot in the background every {@code interval}, skipping
+     * rounds with no writes. Replaces any previous schedule.
+     */
+    synchronized void snapshotEvery(Duration interval) {
+        if (log == null) {
+            throw new IllegalStateException("in-memory store has no log to compact");
+        }
+        if (snapshotTask != null) {
+            snapshotTask.cancel(false);
+        }
+        long millis = interval.toMillis();
+        snapshotTask = SNAPSHOTTER.get().scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                // Keep the schedule alive; the log still holds everything
+                System.err.println("Snapshot of " + logDirectory + " failed: " + e);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    void close() throws IOException {
+        synchronized (this) {
+            if (snapshotTask != null) {
+                snapshotTask.cancel(false);
+            }
+        }
+        if (log != null) {
+            synchronized (snapshotLock) {
+                log.close();
+            }
+        }
+    }
+
+    // Called once per snapshot entry, before the store is published
+    private void restore(int id, long version, T entity) {
+        Version<T> previous = chunkForWrite(id).getAndSet(id & CHUNK_MASK, new Version<>(entity, null, 0, version));
+        if (previous == null || previous.value == null) {
+            size.incrementAndGet();
+        }
+    }
+
+    // Called once per recovered record after the snapshot, before the store is published
+    private void replay(WriteAheadLog.Record record) {
+        int id = record.id();
+        nextId.accumulateAndGet(id + 1, Math::max);
+        switch (record.type()) {
+            case WriteAheadLog.DELETE -> clear(id);
+            case WriteAheadLog.SAVE -> restoreIfNewer(id, 1, record.payload());
+            case WriteAheadLog.UPDATE -> {
+                java.nio.ByteBuffer payload = java.nio.ByteBuffer.wrap(record.payload());
+                long version = payload.getLong();
+                restoreIfNewer(id, version, Arrays.copyOfRange(record.payload(), Long.BYTES, record.payload().length));
+            }
+            default -> throw new IllegalStateException("Unknown log record type " + record.type());
+        }
+    }
+
+    // A fuzzy snapshot may already hold a later version than the tail record
+    private void restoreIfNewer(int id, long version, byte[] payload) {
+        Version<T> current = chunkForWrite(id).get(id & CHUNK_MASK);
+        if (current == null || current.entityVersion < version) {
+            restore(id, version, codec.decode(payload));
+        }
+    }
+
+    /**
+     * Copies every live entity in id order. Weakly consistent: entities
+     * saved or deleted during the copy may or may not be included.
+     */
+    List<T> values() {
+        List<T> values = new ArrayList<>(size());
+        int maxId = maxId();
+        for (int id = 1; id <= maxId; id++) {
+            T entity = get(id);
+            if (entity != null) {
+                values.add(entity);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Lazy, weakly consistent view in id order. Nothing is copied; each
+     * element is read from its slot as the stream reaches it.
+     */
+    Stream<T> stream() {
+        return StreamSupport.stream(new IdRangeSpliterator(this::get, 1, maxId() + 1), false);
+    }
+
+    /**
+     * Up to {@code limit} entities with id greater than {@code afterId}.
+     * Pass the returned cursor back in to continue; 0 starts from the beginning.
+     * hasNext is true only if a live entity follows the cursor (deleted
+     * slots after it do not count).
+     */
+    Page<T> page(int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, 1024));
+        int maxId = maxId();
+        int id = Math.max(afterId, 0);
+        while (id < maxId && items.size() < limit) {
+            T entity = get(++id);
+            if (entity != null) {
+                items.add(entity);
+            }
+        }
+        int next = id + 1;
+        while (next <= maxId && get(next) == null) {
+            next++;
+        }
+        return new Page<>(items, id, next <= maxId);
+    }
+
+    // Splits [origin, fence) of ids; skips empty (deleted) slots
+    private final class IdRangeSpliterator implements Spliterator<T> {
+        private static final int MIN_SPLIT = 1024;
+        private final IntFunction<T> reader;
+        private int origin;
+        private final int fence;
+
+        IdRangeSpliterator(IntFunction<T> reader, int origin, int fence) {
+            this.reader = reader;
+            this.origin = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (origin < fence) {
+                T entity = reader.apply(origin++);
+                if (entity != null) {
+                    action.accept(entity);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            for (int id = origin; id < fence; id++) {
+                T entity = reader.apply(id);
+                if (entity != null) {
+                    action.accept(entity);
+                }
+            }
+            origin = fence;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (origin + fence) >>> 1;
+            if (mid - origin < MIN_SPLIT) {
+                return null;
+            }
+            Spliterator<T> prefix = new IdRangeSpliterator(reader, origin, mid);
+            origin = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - origin;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | CONCURRENT;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // MVCC READ VIEWS
+    // ═══════════════════════════════════════════════════════════
+
+    /**
+     * Pins the current state for consistent reads; close it promptly, as
+     * superseded versions are kept for as long as any view could see them.
+     */
+    ReadView<T> openReadView() {
+        return new View();
+    }
+
+    int openViewCount() {
+        return openViews.get();
+    }
+
+    // Superseded versions waiting for the views that can see them to close
+    int pendingGarbage() {
+        return garbageCount.get();
+    }
+
+    private final class View implements ReadView<T> {
+        private volatile long readTs = PENDING;
+        private final int maxId;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        View() {
+            openViews.incrementAndGet(); // before reading the clock (see class comment)
+            views.add(this);
+            readTs = clock.get();
+            maxId = maxId();
+        }
+
+        @Override
+        public long version() {
+            return readTs;
+        }
+
+        @Override
+        public T findById(int id) {
+            checkOpen();
+            return readAt(id, readTs);
+        }
+
+        @Override
+        public List<T> findAll() {
+            return stream().toList();
+        }
+
+        @Override
+        public Stream<T> stream() {
+            checkOpen();
+            return StreamSupport.stream(new IdRangeSpliterator(id -> readAt(id, readTs), 1, maxId + 1), false);
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                views.remove(this);
+                openViews.decrementAndGet();
+                reclaim();
+            }
+        }
+
+        private void checkOpen() {
+            if (closed.get()) {
+                throw new IllegalStateException("read view is closed");
+            }
+        }
+    }
+
+    // Newest version of id committed at or before readTs
+    private T readAt(int id, long readTs) {
+        AtomicReferenceArray<Version<T>> chunk = chunkFor(id);
+        if (chunk == null) {
+            return null;
+        }
+        for (Version<T> version = chunk.get(id & CHUNK_MASK); version != null; version = version.older) {
+            long commitTs;
+            for (int spins = 0; (commitTs = version.commitTs) == PENDING; spins++) {
+                backOff(spins); // writer is between install and stamp
+            }
+            if (commitTs <= readTs) {
+                return version.value;
+            }
+        }
+        return null;
+    }
+
+    // Cuts queued chains below what the oldest open view can still see
+    private void reclaim() {
+        reclaimLock.lock();
+        try {
+            long horizon = clock.get(); // read before scanning views (see class comment)
+            for (View view : views) {
+                long readTs = view.readTs;
+                if (readTs == PENDING) {
+                    return; // still opening; its own close() reclaims later
+                }
+                horizon = Math.min(horizon, readTs);
+            }
+            for (int i = garbageCount.get(); i > 0; i--) {
+                Integer id = garbage.poll();
+                if (id == null) {
+                    break;
+                }
+                garbageCount.decrementAndGet();
+                if (!compact(id, horizon)) {
+                    garbage.add(id);
+                    garbageCount.incrementAndGet();
+                }
+            }
+        } finally {
+            reclaimLock.unlock();
+        }
+    }
+
+    // Returns true once the slot holds no version anyone could still need
+    private boolean compact(int id, long horizon) {
+        AtomicReferenceArray<Version<T>> chunk = chunkFor(id);
+        int slot = id & CHUNK_MASK;
+        Version<T> head = chunk.get(slot);
+        Version<T> visible = head;
+        while (visible != null) {
+            long commitTs = visible.commitTs;
+            if (commitTs != PENDING && commitTs <= horizon) {
+                break;
+            }
+            visible = visible.older;
+        }
+        if (visible == null) {
+            return head == null;
+        }
+        visible.older = null;
+        if (visible != head) {
+            return false; // newer versions may become garbage later
+        }
+        return head.value != null || chunk.compareAndSet(slot, head, null);
+    }
+
+    // A committed (or being committed) state of one slot; value null = deleted
+    private static final class Version<T> {
+        final T value;
+        final long entityVersion;
+        volatile Version<T> older;
+        volatile long commitTs;
+
+        Version(T value, Version<T> older, long commitTs, long entityVersion) {
+            this.value = value;
+            this.older = older;
+            this.commitTs = commitTs;
+            this.entityVersion = entityVersion;
+        }
+    }
+
+    private AtomicReferenceArray<Version<T>> chunkFor(int id) {
+        AtomicReferenceArray<Version<T>>[] chunks = directory;
+        int chunk = id >>> CHUNK_SHIFT;
+        if (id <= 0 || chunk >= chunks.length) {
+            return null;
+        }
+        return chunks[chunk];
+    }
+
+    private AtomicReferenceArray<Version<T>> chunkForWrite(int id) {
+        int chunk = id >>> CHUNK_SHIFT;
+        AtomicReferenceArray<Version<T>>[] chunks = directory;
+        if (chunk < chunks.length && chunks[chunk] != null) {
+            return chunks[chunk];
+        }
+        synchronized (growLock) {
+            chunks = directory;
+            if (chunk >= chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(chunk + 1, chunks.length * 2));
+            }
+            if (chunks[chunk] == null) {
+                chunks[chunk] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            }
+            directory = chunks;
+            return chunks[chunk];
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+
+// Generic DAO (thread-safe: atomic id allocation, lock-free reads)
+class GenericDAO<T> implements ReadViewSource<T>, AutoCloseable {
+    protected final EntityStore<T> storage;
+    protected final SecondaryIndexes<T> indexes = new SecondaryIndexes<>();
+
+    public GenericDAO() {
+        storage = new EntityStore<>();
+    }
+
+    // Durable: replays the log in walDirectory, then logs every write to it
+    public GenericDAO(java.nio.file.Path walDirectory, Codec<T> codec) throws java.io.IOException {
+        this(walDirectory, codec, 256);
+    }
+
+    // maxBatchSize caps how many concurrent writes share one fsync
+    public GenericDAO(java.nio.file.Path walDirectory, Codec<T> codec, int maxBatchSize)
+            throws java.io.IOException {
+        storage = EntityStore.durable(walDirectory, codec, maxBatchSize);
+    }
+    
+    public int save(T entity) {
+        int id = storage.insert(entity);
+        indexes.onInsert(id, entity);
+        return id;
+    }
+
+    // Ids are consecutive and in iteration order; one store write and one index pass
+    public int[] saveAll(Collection<? extends T> entities) {
+        List<T> batch = List.copyOf(entities);
+        int[] ids = storage.insertAll(batch);
+        indexes.onInsertAll(ids, batch);
+        return ids;
+    }
+
+    // Equality lookups, e.g. addHashIndex("username", User::getUsername)
+    public <K> void addHashIndex(String attribute, java.util.function.Function<? super T, ? extends K> extractor) {
+        backfill(indexes.addHash(attribute, extractor));
+    }
+
+    // Equality and range lookups, e.g. addSortedIndex("age", Person::getAge)
+    public <K extends Comparable<? super K>> void addSortedIndex(String attribute,
+            java.util.function.Function<? super T, ? extends K> extractor) {
+        backfill(indexes.addSorted(attribute, extractor));
+    }
+
+    // Uses the most selective declared index, then re-checks every predicate
+    public List<T> query(Query query) {
+        List<T> results = new ArrayList<>();
+        for (int id : indexes.candidates(query)) {
+            T entity = storage.get(id);
+            if (entity != null && indexes.matches(query, entity)) {
+                results.add(entity);
+            }
+        }
+        return results;
+    }
+    
+    public Optional<T> findById(int id) {
+        return Optional.ofNullable(storage.get(id));
+    }
+
+    // Read this before update(): the version is what makes the update safe
+    public Optional<Versioned<T>> findVersioned(int id) {
+        return Optional.ofNullable(storage.getVersioned(id));
+    }
+
+    // Optimistic update: false if the entity changed since expectedVersion (re-read and retry)
+    public boolean update(int id, long expectedVersion, T entity) {
+        return storage.compareAndUpdate(id, expectedVersion, entity, (previous, updated) -> {
+            indexes.onRemove(id, previous);
+            indexes.onInsert(id, updated);
+        });
+    }
+
+    // Read-modify-write with automatic retry on conflict; empty if the entity is absent
+    public Optional<T> update(int id, java.util.function.UnaryOperator<T> change) {
+        while (true) {
+            Versioned<T> current = storage.getVersioned(id);
+            if (current == null) {
+                return Optional.empty();
+            }
+            T updated = change.apply(current.value());
+            if (update(id, current.version(), updated)) {
+                return Optional.of(updated);
+            }
+        }
+    }
+    
+    public List<T> findAll() {
+        return storage.values();
+    }
+
+    public java.util.stream.Stream<T> stream() {
+        return storage.stream();
+    }
+
+    public Page<T> findPage(int afterId, int limit) {
+        return storage.page(afterId, limit);
+    }
+
+    @Override
+    public ReadView<T> openReadView() {
+        return storage.openReadView();
+    }
+
+    public void delete(int id) {
+        T removed = storage.remove(id);
+        if (removed != null) {
+            indexes.onRemove(id, removed);
+        }
+    }
+
+    public void deleteAll(int... ids) {
+        indexes.onRemoveAll(ids, storage.removeAll(ids));
+    }
+
+    // Durable DAOs only: point-in-time snapshot, then drop the log behind it
+    public void snapshot() throws java.io.IOException {
+        storage.snapshot();
+    }
+
+    // Durable DAOs only: snapshot in the background so restarts replay a short tail
+    public void snapshotEvery(java.time.Duration interval) {
+        storage.snapshotEvery(interval);
+    }
+
+    @Override
+    public void close() throws java.io.IOException {
+        storage.close();
+    }
+
+    // Index existing rows; saves racing with this are indexed by save() itself
+    private void backfill(SecondaryIndexes.Index<T, ?> index) {
+        for (int id = 1; id <= storage.maxId(); id++) {
+            T entity = storage.get(id);
+            if (entity != null) {
+                index.add(id, entity);
+            }
+        }
+    }
+}
@@ -288,11 +288,28 @@ public class GenericsDemo {
         System.out.println("  box2.compareTo(box1): " + box2.compareTo(box1));
         
         // Repository pattern
-        Repository<Person> personRepo = new PersonRepository();
+        PersonRepository personRepo = new PersonRepository(); // a Repository that is also a ReadViewSource
         Person person = new Person("Bob", 30);
         personRepo.save(person);
         System.out.println("  Saved: " + personRepo.findById(1));
         System.out.println("  All: " + personRepo.findAll());
+        personRepo.save(new Person("Carol", 41));
+        personRepo.save(new Person("Dave", 35));
+        Page<Person> firstPage = personRepo.findPage(0, 2);
+        System.out.println("  Page 1: " + firstPage.items() + ", next cursor: " + firstPage.nextCursor());
+        System.out.println("  Page 2: " + personRepo.findPage(firstPage.nextCursor(), 2).items());
+        System.out.println("  Streamed count: " + personRepo.stream().count());
+        try (ReadView<Person> view = personRepo.openReadView()) {
+            personRepo.save(new Person("Erin", 28));
+            personRepo.delete(1);
+            System.out.println("  Read view: " + view.findAll() + " vs now: " + personRepo.findAll());
+        }
+        try (AsyncRepository<Person> asyncRepo = AsyncRepository.onVirtualThreads(personRepo)) {
+            asyncRepo.save(new Person("Finn", 33))
+                .thenCompose(asyncRepo::findById)
+                .thenAccept(saved -> System.out.println("  Async save (virtual thread): " + saved))
+                .join();
+        }
     }
 
     private static void demonstrateTypeErasure() {
@@ -338,6 +355,26 @@ public class GenericsDemo {
         User user = new User(1, "admin");
         userDAO.save(user);
         System.out.println("  User DAO - Saved: " + userDAO.findById(1).orElse(null));
+        userDAO.save(new User(2, "guest"));
+        userDAO.addHashIndex("username", User::getUsername);
+        System.out.println("  User DAO - By username: " + userDAO.query(Query.eq("username", "guest")));
+
+        GenericDAO<Person> personDAO = new GenericDAO<>();
+        personDAO.addSortedIndex("age", Person::getAge);
+        personDAO.save(new Person("Ann", 19));
+        personDAO.save(new Person("Ben", 27));
+        personDAO.save(new Person("Cid", 45));
+        System.out.println("  Person DAO - Age 18..30: " + personDAO.query(Query.between("age", 18, 30)));
+        Versioned<Person> ben = personDAO.findVersioned(2).orElseThrow();
+        boolean first = personDAO.update(2, ben.version(), new Person("Ben", 28));
+        boolean stale = personDAO.update(2, ben.version(), new Person("Ben", 99)); // lost the race
+        System.out.println("  Optimistic update v" + ben.version() + ": " + first + ", stale retry: " + stale +
+                          " → " + personDAO.findVersioned(2).orElseThrow());
+
+        // Same rows as columns: scans read an int[] instead of chasing objects
+        PersonTable personTable = PersonTable.of(personDAO.findAll());
+        System.out.println("  Person table - Age 18..30: " + personTable.countAgeBetween(18, 30) +
+                          " rows, average age: " + String.format("%.1f", personTable.averageAge()));
         
         // Example 2: Generic Builder pattern
         Response<String> successResponse = Response.<String>builder()
@@ -351,7 +388,25 @@ public class GenericsDemo {
         Cache<String, Person> personCache = new Cache<>();
         personCache.put("user1", new Person("John", 25));
         System.out.println("  Cache get: " + personCache.get("user1").orElse(null));
-        
+
+        // Bounded cache: hot keys survive a one-off scan
+        Cache<Integer, String> boundedCache = new Cache<>(100);
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 50; key++) {
+                boundedCache.put(key, "hot-" + key);
+                boundedCache.get(key);
+            }
+        }
+        for (int key = 1000; key < 11000; key++) {
+            boundedCache.put(key, "scan-" + key);
+        }
+        long hotSurvivors = java.util.stream.IntStream.range(0, 50)
+            .filter(key -> boundedCache.get(key).isPresent())
+            .count();
+        System.out.println("  Bounded cache size: " + boundedCache.size() +
+                          ", hot keys kept after scan: " + hotSurvivors + "/50");
+        System.out.println("  Bounded cache stats: " + boundedCache.stats());
+
         // Example 4: Generic Result wrapper
         Result<Integer> divisionResult = divide(10, 2);
         divisionResult.ifSuccess(value -> 
@@ -514,37 +569,8 @@ class BoundedBox<T extends Number & Comparable<T>> {
 // GENERIC INTERFACES
 // ═══════════════════════════════════════════════════════════
 
-interface Repository<T> {
-    void save(T entity);
-    T findById(int id);
-    List<T> findAll();
-    void delete(int id);
-}
-
-class PersonRepository implements Repository<Person> {
-    private Map<Integer, Person> storage = new HashMap<>();
-    private int idCounter = 1;
-    
-    @Override
-    public void save(Person entity) {
-        storage.put(idCounter++, entity);
-    }
-    
-    @Override
-    public Person findById(int id) {
-        return storage.get(id);
-    }
-    
-    @Override
-    public List<Person> findAll() {
-        return new ArrayList<>(storage.values());
-    }
-    
-    @Override
-    public void delete(int id) {
-        storage.remove(id);
-    }
-}
+// Repository, AsyncRepository and ReadView (plus Page and Versioned, the
+// types they return) are shared with the storage classes: see their own files
 
 class ComparableBox<T extends Comparable<T>> implements Comparable<ComparableBox<T>> {
     private T value;
@@ -563,38 +589,7 @@ class ComparableBox<T extends Comparable<T>> implements Comparable<ComparableBox
 // REAL-WORLD EXAMPLES
 // ═══════════════════════════════════════════════════════════
 
-class Person {
-    private String name;
-    private int age;
-    
-    public Person(String name, int age) {
-        this.name = name;
-        this.age = age;
-    }
-    
-    @Override
-    public String toString() {
-        return name + " (" + age + ")";
-    }
-}
-
-// Generic DAO
-class GenericDAO<T> {
-    protected Map<Integer, T> storage = new HashMap<>();
-    protected int idCounter = 1;
-    
-    public void save(T entity) {
-        storage.put(idCounter++, entity);
-    }
-    
-    public Optional<T> findById(int id) {
-        return Optional.ofNullable(storage.get(id));
-    }
-    
-    public List<T> findAll() {
-        return new ArrayList<>(storage.values());
-    }
-}
+// Person, PersonRepository, GenericDAO and Cache live in their own files
 
 class User {
     private int id;
@@ -604,6 +599,9 @@ class User {
         this.id = id;
         this.username = username;
     }
+
+    public int getId() { return id; }
+    public String getUsername() { return username; }
     
     @Override
     public String toString() {
@@ -662,23 +660,6 @@ class Response<T> {
     }
 }
 
-// Generic Cache
-class Cache<K, V> {
-    private Map<K, V> cache = new HashMap<>();
-    
-    public void put(K key, V value) {
-        cache.put(key, value);
-    }
-    
-    public Optional<V> get(K key) {
-        return Optional.ofNullable(cache.get(key));
-    }
-    
-    public void clear() {
-        cache.clear();
-    }
-}
-
 // Generic Result (Either pattern)
 class Result<T> {
     private T value;
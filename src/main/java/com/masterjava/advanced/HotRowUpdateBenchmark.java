@@ -0,0 +1,113 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * HOT-ROW UPDATE HARNESS: OPTIMISTIC CAS vs ONE LOCK
+ * ==================================================
+ *
+ * Threads repeatedly read-modify-write (age + 1) random rows out of a
+ * small hot set in a {@link GenericDAO}.
+ *
+ * CONTENDERS:
+ * • locked     - synchronized around findById + update: correct, but every
+ *                write in the DAO queues behind every other
+ * • optimistic - findVersioned + update(id, expectedVersion, entity);
+ *                a conflict costs one retry, and only writers of the SAME
+ *                row can conflict
+ *
+ * CHECKS:
+ * • Lost updates: sum of ages after the run must equal the number of
+ *   successful updates (last-writer-wins without versions would lose some)
+ * • conflicts = failed CAS attempts per successful update
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.advanced.HotRowUpdateBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class HotRowUpdateBenchmark {
+    private static final long RUN_MILLIS = 1_000;
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+    private static final int[] HOT_ROWS = {1, 64};
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   HOT-ROW UPDATES: OPTIMISTIC CAS vs ONE LOCK          ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.println("  Cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("  %-6s %-8s %16s %18s %10s %8s%n",
+            "Rows", "Threads", "locked (Mops/s)", "optimistic (Mops/s)", "conflicts", "lost");
+
+        for (int rows : HOT_ROWS) {
+            for (int threads : THREAD_COUNTS) {
+                double[] locked = run(rows, threads, false);
+                double[] optimistic = run(rows, threads, true);
+                System.out.printf("  %-6d %-8d %16.2f %18.2f %10.3f %8.0f%n", rows, threads,
+                    locked[0], optimistic[0], optimistic[1], locked[2] + optimistic[2]);
+            }
+        }
+    }
+
+    // {Mops/s, conflicts per update, lost updates}
+    private static double[] run(int rows, int threads, boolean optimistic) throws InterruptedException {
+        GenericDAO<Person> dao = new GenericDAO<>();
+        int[] ids = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = dao.save(new Person("hot-" + i, 0));
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder updates = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!stop.get()) {
+                    int id = ids[random.nextInt(ids.length)];
+                    if (optimistic) {
+                        while (true) {
+                            Versioned<Person> current = dao.findVersioned(id).orElseThrow();
+                            Person person = current.value();
+                            if (dao.update(id, current.version(), new Person(person.getName(), person.getAge() + 1))) {
+                                break;
+                            }
+                            conflicts.increment();
+                        }
+                    } else {
+                        synchronized (dao) {
+                            Versioned<Person> current = dao.findVersioned(id).orElseThrow();
+                            Person person = current.value();
+                            dao.update(id, current.version(), new Person(person.getName(), person.getAge() + 1));
+                        }
+                    }
+                    updates.increment();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        long ageSum = dao.stream().mapToLong(Person::getAge).sum();
+        return new double[] {
+            updates.sum() / seconds / 1e6,
+            (double) conflicts.sum() / Math.max(updates.sum(), 1),
+            updates.sum() - ageSum
+        };
+    }
+}
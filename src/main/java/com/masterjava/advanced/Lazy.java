@@ -0,0 +1,158 @@
+package com.masterjava.advanced;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * MEMOIZING SUPPLIER (REUSABLE LAZY INITIALIZATION)
+ * =================================================
+ *
+ * Computes a value on first get() and returns the same value forever
+ * after. Replaces hand-rolled double-checked locking:
+ *
+ *   private final Lazy<Connection> connection = Lazy.of(Connection::open);
+ *   ...
+ *   connection.get();                        ← first caller computes, rest wait
+ *   connection.prewarm();                    ← or compute it in the background now
+ *
+ * STATE MACHINE:
+ * ┌───────┐ get()/prewarm() ┌──────────────┐  success  ┌──────────────────┐
+ * │ UNSET │────────────────→│ initializing │──────────→│ value (forever)  │
+ * └───────┘                 └──────┬───────┘           └──────────────────┘
+ *     ↑                            │ exception
+ *     │   next get() after backoff ▼
+ *     └─────────────────────── FAILED(cause, when)
+ *
+ * FAST PATH: one volatile read once initialized; no lock, no CAS.
+ *
+ * FAILURES:
+ * • The exception reaches the caller that ran the initializer; the value
+ *   is NOT cached, so a later get() tries again (a lookup that failed
+ *   because a server was briefly down should not fail forever)
+ * • With a retry backoff, calls within the backoff rethrow the last failure
+ *   (wrapped) without re-running the initializer: a dead dependency is
+ *   not hammered by every caller
+ *
+ * PREWARMING:
+ * • prewarm() runs the initializer on a virtual thread and returns at
+ *   once; a get() arriving meanwhile waits for that run instead of
+ *   starting a second one. Start slow resources in parallel at startup,
+ *   instead of paying for each on its first request
+ *
+ * Thread-safe. The initializer runs at most once at a time, under a
+ * ReentrantLock (not synchronized, so virtual threads waiting on a slow
+ * initializer do not pin their carrier).
+ *
+ * @param <T> value type (null is a valid value)
+ */
+public final class Lazy<T> implements Supplier<T> {
+    private static final Object UNSET = new Object();
+    private static final Executor PREWARM = runnable -> Thread.ofVirtual().name("lazy-prewarm").start(runnable);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long retryBackoffNanos;
+    private Supplier<? extends T> initializer; // dropped once the value is set
+
+    // UNSET, a Failure, or the value itself
+    private volatile Object state = UNSET;
+    private int attempts;
+
+    private Lazy(Supplier<? extends T> initializer, Duration retryBackoff) {
+        this.initializer = Objects.requireNonNull(initializer);
+        this.retryBackoffNanos = retryBackoff.toNanos();
+    }
+
+    // Failures are retried on the next get()
+    public static <T> Lazy<T> of(Supplier<? extends T> initializer) {
+        return new Lazy<>(initializer, Duration.ZERO);
+    }
+
+    // After a failure, get() rethrows it for retryBackoff before trying again
+    public static <T> Lazy<T> of(Supplier<? extends T> initializer, Duration retryBackoff) {
+        return new Lazy<>(initializer, retryBackoff);
+    }
+
+    /**
+     * Starts every lazy in the background; the returned future completes
+     * when all are initialized (exceptionally if any failed).
+     */
+    public static CompletableFuture<Void> prewarmAll(Lazy<?>... lazies) {
+        return CompletableFuture.allOf(Arrays.stream(lazies).map(Lazy::prewarm).toArray(CompletableFuture[]::new));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object current = state;
+        if (current != UNSET && !(current instanceof Failure)) {
+            return (T) current;
+        }
+        return initialize();
+    }
+
+    public CompletableFuture<T> prewarm() {
+        return prewarm(PREWARM);
+    }
+
+    public CompletableFuture<T> prewarm(Executor executor) {
+        return CompletableFuture.supplyAsync(this, executor);
+    }
+
+    public boolean isInitialized() {
+        Object current = state;
+        return current != UNSET && !(current instanceof Failure);
+    }
+
+    // Times the initializer has run (successfully or not)
+    public int attempts() {
+        lock.lock();
+        try {
+            return attempts;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T initialize() {
+        lock.lock();
+        try {
+            Object current = state;
+            if (current instanceof Failure failure) {
+                if (System.nanoTime() - failure.failedAt < retryBackoffNanos) {
+                    throw new IllegalStateException("Initialization failed "
+                        + (System.nanoTime() - failure.failedAt) / 1_000_000 + " ms ago; retry pending",
+                        failure.cause);
+                }
+            } else if (current != UNSET) {
+                return (T) current; // another thread won while we waited
+            }
+            attempts++;
+            try {
+                T value = initializer.get();
+                state = value;
+                initializer = null;
+                return value;
+            } catch (RuntimeException | Error e) {
+                state = new Failure(e, System.nanoTime());
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        Object current = state;
+        if (current == UNSET) {
+            return "Lazy[unset]";
+        }
+        return current instanceof Failure failure ? "Lazy[failed: " + failure.cause + "]" : "Lazy[" + current + "]";
+    }
+
+    private record Failure(Throwable cause, long failedAt) { }
+}
@@ -0,0 +1,157 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * SELF-POPULATING CACHE
+ * =====================
+ *
+ * A {@link ConcurrentCache} that computes missing values with a loader,
+ * so callers never talk to the backing store directly.
+ *
+ * REQUEST COALESCING (thundering-herd protection):
+ * ┌──────────┐
+ * │ thread 1 │──miss──┐
+ * │ thread 2 │──miss──┼──→ one CompletableFuture per key ──→ loader (1 call)
+ * │ thread 3 │──miss──┘          ↑ everyone waits on the same future
+ * └──────────┘
+ *
+ * REFRESH-AHEAD:
+ * • With refreshAfterWrite(d), a read of an entry older than d returns the
+ *   current value immediately and reloads it on the executor
+ * • Only entries that are actually read get refreshed, i.e. hot entries;
+ *   cold entries simply expire
+ * • A failed refresh keeps serving the old value until it expires
+ * • Neither a refresh nor a miss load overwrites a put() that happened
+ *   while it was loading
+ *
+ * USAGE:
+ *   LoadingCache<Integer, User> users = ConcurrentCache.<Integer, User>builder()
+ *       .maximumSize(10_000)
+ *       .expireAfterWrite(Duration.ofMinutes(5))
+ *       .refreshAfterWrite(Duration.ofMinutes(4))
+ *       .build(id -> userDao.findById(id).orElse(null));
+ *
+ * @param <K> key type (non-null)
+ * @param <V> value type; a loader returning null means "absent" (not cached)
+ */
+class LoadingCache<K, V> extends ConcurrentCache<K, V> {
+    private final Function<? super K, ? extends V> loader;
+    private final Executor executor;
+    private final long refreshAfterWriteNanos;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    LoadingCache(Builder<K, V> builder, Function<? super K, ? extends V> loader) {
+        super(builder);
+        this.loader = Objects.requireNonNull(loader);
+        this.executor = builder.executor;
+        this.refreshAfterWriteNanos = builder.refreshAfterWriteNanos;
+    }
+
+    /**
+     * Returns the cached value, loading it on the calling thread on a miss.
+     * Concurrent callers for the same key wait for that single load.
+     */
+    @Override
+    public Optional<V> get(K key) {
+        Entry<K, V> entry = getEntry(key);
+        if (entry != null) {
+            refreshIfStale(entry);
+            return Optional.ofNullable(entry.value);
+        }
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing == null) {
+            load(key, null, created);
+            existing = created;
+        }
+        try {
+            return Optional.ofNullable(existing.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant: misses are loaded on the executor.
+     */
+    public CompletableFuture<V> getAsync(K key) {
+        Entry<K, V> entry = getEntry(key);
+        if (entry != null) {
+            refreshIfStale(entry);
+            return CompletableFuture.completedFuture(entry.value);
+        }
+        return loadAsync(key, null);
+    }
+
+    /**
+     * Number of keys currently being loaded or refreshed.
+     */
+    public int loadsInFlight() {
+        return inFlight.size();
+    }
+
+    // stale: the entry a refresh replaces, or null for a miss
+    private CompletableFuture<V> loadAsync(K key, Entry<K, V> stale) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> load(key, stale, created));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    // Caches the value before publishing it, so a caller arriving after the
+    // future is removed finds it in the map instead of loading again. The
+    // reverse window (a load finishing between a caller's miss and its
+    // claim on inFlight) is closed by re-checking the map once the claim is
+    // won. A load never overwrites a put that landed meanwhile: a miss load
+    // installs only into an empty slot, a refresh only replaces the entry
+    // it started from; either way the newer value wins.
+    private void load(K key, Entry<K, V> stale, CompletableFuture<V> future) {
+        long start = System.nanoTime();
+        try {
+            if (stale == null) {
+                Entry<K, V> loaded = liveEntry(key);
+                if (loaded != null) {
+                    future.complete(loaded.value);
+                    return;
+                }
+            }
+            V value = loader.apply(key);
+            statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            if (value != null) {
+                if (stale == null) {
+                    putIfAbsent(key, value);
+                } else {
+                    replace(stale, value);
+                }
+            }
+            future.complete(value);
+        } catch (Throwable t) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            future.completeExceptionally(t);
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private void refreshIfStale(Entry<K, V> entry) {
+        if (refreshAfterWriteNanos > 0
+                && now() - entry.writeTime >= refreshAfterWriteNanos
+                && !inFlight.containsKey(entry.key)) {
+            loadAsync(entry.key, entry);
+        }
+    }
+}
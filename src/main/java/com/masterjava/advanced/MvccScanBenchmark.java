@@ -0,0 +1,98 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * MVCC SCANS ALONGSIDE WRITES
+ * ===========================
+ *
+ * Analytics-style full scans through {@link ReadView}s while writer
+ * threads keep saving and deleting.
+ *
+ * CHECKS:
+ * • Repeatable reads: scanning the same view twice gives the same count
+ *   and age sum, however many writes landed in between
+ * • Writers never wait: write throughput with scanners running should be
+ *   close to the run without them (scans cost CPU, not blocking)
+ * • GC: once every view is closed, no superseded version is left queued
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.advanced.MvccScanBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class MvccScanBenchmark {
+    private static final int PRELOAD = 200_000;
+    private static final int WRITERS = 4;
+    private static final long RUN_MILLIS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   MVCC READ VIEWS (scans alongside save/delete)        ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.printf("  %-10s %16s %8s %12s %16s%n",
+            "Scanners", "writes (Mops/s)", "scans", "mismatches", "garbage after");
+
+        for (int scanners : new int[] {0, 1, 4}) {
+            run(scanners);
+        }
+    }
+
+    private static void run(int scanners) throws InterruptedException {
+        GenericDAO<Person> repository = new GenericDAO<>();
+        for (int i = 0; i < PRELOAD; i++) {
+            repository.save(new Person("p" + i, i % 100));
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder writes = new LongAdder();
+        LongAdder scans = new LongAdder();
+        LongAdder mismatches = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!stop.get()) {
+                    int id = repository.save(new Person("w", random.nextInt(100)));
+                    repository.delete(1 + random.nextInt(id));
+                    writes.add(2);
+                }
+            }));
+        }
+        for (int s = 0; s < scanners; s++) {
+            threads.add(new Thread(() -> {
+                while (!stop.get()) {
+                    try (ReadView<Person> view = repository.openReadView()) {
+                        long[] first = summarize(view);
+                        long[] second = summarize(view);
+                        if (!Arrays.equals(first, second)) {
+                            mismatches.increment();
+                        }
+                    }
+                    scans.increment();
+                }
+            }));
+        }
+        long began = System.nanoTime();
+        threads.forEach(Thread::start);
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        System.out.printf("  %-10d %16.2f %8d %12d %16d%n", scanners, writes.sum() / seconds / 1e6,
+            scans.sum(), mismatches.sum(), repository.storage.pendingGarbage());
+    }
+
+    // {count, sum of ages}
+    private static long[] summarize(ReadView<Person> view) {
+        long[] summary = new long[2];
+        view.stream().forEach(person -> {
+            summary[0]++;
+            summary[1] += person.getAge();
+        });
+        return summary;
+    }
+}
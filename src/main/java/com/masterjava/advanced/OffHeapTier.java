@@ -0,0 +1,196 @@
+package com.masterjava.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * OFF-HEAP SECOND TIER
+ * ====================
+ *
+ * Holds values evicted from a heap cache as bytes in direct ByteBuffers,
+ * i.e. memory the garbage collector never scans or copies.
+ *
+ * LAYOUT (circular log of fixed-size slabs):
+ * ┌────────────── JVM HEAP ──────────────┐
+ * │ index: key → (slab, offset, length)  │  ~40 bytes per key
+ * │ slab keys: keys written per slab     │  makes wiping a slab O(its keys)
+ * └──────────────────┬───────────────────┘
+ *                    ↓
+ * ┌──────── NATIVE MEMORY (allocateDirect) ─────────┐
+ * │ slab 0 [v1|v2|v3|....]  slab 1 [v9|v4|.....]     │
+ * │ slab 2 [v7|  ← write  ]  slab 3 (oldest, next)   │
+ * └──────────────────────────────────────────────────┘
+ *
+ * LIFECYCLE:
+ * 1. Heap cache evicts → value encoded and appended to the current slab
+ * 2. Heap miss → value decoded from its slab and promoted back on-heap
+ *    (its bytes become dead space)
+ * 3. Current slab full → writing moves to the next slab; when the ring
+ *    wraps, the oldest slab is wiped and its keys dropped (FIFO eviction)
+ *
+ * WHY:
+ * ✓ Gigabytes of cached data add only the small index to the GC's work
+ * ✓ Slabs are allocated once and reused, never freed/reallocated
+ *   (allocateDirect is slow and its release is GC-dependent)
+ * ✗ Every hit pays a decode, every demotion an encode
+ * ✗ Dead space is reclaimed only when its slab comes round again
+ *
+ * Thread-safe (all operations synchronized; callers already serialize
+ * demotion under their eviction lock).
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+class OffHeapTier<K, V> {
+    static final int DEFAULT_SLAB_SIZE = 16 * 1024 * 1024;
+
+    private final Codec<V> codec;
+    private final int slabSize;
+    private final ByteBuffer[] slabs;
+    private final long[] liveBytes;
+    private final Map<K, Location> index = new HashMap<>();
+    // Keys written into each slab since it was last wiped; may hold keys that
+    // have since moved or left, so recycle() checks each against the index
+    private final List<List<K>> slabKeys;
+
+    private int currentSlab;
+    private int writeOffset;
+    private long evictions;
+
+    OffHeapTier(Codec<V> codec, long capacityBytes) {
+        this(codec, capacityBytes, (int) Math.min(DEFAULT_SLAB_SIZE, capacityBytes));
+    }
+
+    OffHeapTier(Codec<V> codec, long capacityBytes, int slabSize) {
+        if (slabSize <= 0 || capacityBytes < slabSize) {
+            throw new IllegalArgumentException("capacity must hold at least one slab: "
+                + capacityBytes + " < " + slabSize);
+        }
+        this.codec = Objects.requireNonNull(codec);
+        this.slabSize = slabSize;
+        this.slabs = new ByteBuffer[(int) (capacityBytes / slabSize)];
+        this.liveBytes = new long[slabs.length];
+        this.slabKeys = new ArrayList<>(slabs.length);
+        for (int i = 0; i < slabs.length; i++) {
+            slabKeys.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Stores a demoted value. {@code expiresAt} is an opaque deadline the
+     * owning cache hands back on promotion; this tier never interprets it.
+     * Values larger than one slab are dropped.
+     */
+    synchronized void put(K key, V value, long expiresAt) {
+        byte[] bytes = codec.encode(value);
+        discard(index.remove(key));
+        if (bytes.length > slabSize) {
+            return;
+        }
+        if (slabs[currentSlab] == null || writeOffset + bytes.length > slabSize) {
+            advanceSlab();
+        }
+        slabs[currentSlab].put(writeOffset, bytes);
+        index.put(key, new Location(currentSlab, writeOffset, bytes.length, expiresAt));
+        slabKeys.get(currentSlab).add(key);
+        liveBytes[currentSlab] += bytes.length;
+        writeOffset += bytes.length;
+    }
+
+    /**
+     * Removes and decodes a value for promotion back on-heap, or returns null.
+     */
+    synchronized Promoted<V> remove(K key) {
+        Location location = index.remove(key);
+        if (location == null) {
+            return null;
+        }
+        byte[] bytes = new byte[location.length];
+        slabs[location.slab].get(location.offset, bytes);
+        discard(location);
+        return new Promoted<>(codec.decode(bytes), location.expiresAt);
+    }
+
+    /**
+     * Drops a key's value without decoding it: the owning cache wrote a
+     * newer value, so this copy must never be promoted.
+     */
+    synchronized void invalidate(K key) {
+        discard(index.remove(key));
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    // Bytes of direct memory reserved by allocated slabs
+    synchronized long allocatedBytes() {
+        long allocated = 0;
+        for (ByteBuffer slab : slabs) {
+            if (slab != null) {
+                allocated += slab.capacity();
+            }
+        }
+        return allocated;
+    }
+
+    // Bytes still holding reachable values (the rest is dead space)
+    synchronized long liveBytes() {
+        long live = 0;
+        for (long bytes : liveBytes) {
+            live += bytes;
+        }
+        return live;
+    }
+
+    synchronized void clear() {
+        index.clear();
+        Arrays.fill(liveBytes, 0);
+        slabKeys.forEach(List::clear);
+        currentSlab = 0;
+        writeOffset = 0;
+    }
+
+    private void advanceSlab() {
+        if (slabs[currentSlab] != null) {
+            currentSlab = (currentSlab + 1) % slabs.length;
+        }
+        if (slabs[currentSlab] == null) {
+            slabs[currentSlab] = ByteBuffer.allocateDirect(slabSize);
+        } else {
+            recycle(currentSlab);
+        }
+        writeOffset = 0;
+    }
+
+    // Ring wrapped onto a slab: drop the values still in it (oldest first out).
+    // Only keys written here can live here, so the rest of the index is untouched
+    private void recycle(int slab) {
+        List<K> keys = slabKeys.get(slab);
+        if (liveBytes[slab] > 0) {
+            for (K key : keys) {
+                Location location = index.get(key);
+                if (location != null && location.slab == slab) {
+                    index.remove(key);
+                    evictions++;
+                }
+            }
+        }
+        keys.clear();
+        liveBytes[slab] = 0;
+    }
+
+    private void discard(Location location) {
+        if (location != null) {
+            liveBytes[location.slab] -= location.length;
+        }
+    }
+
+    private record Location(int slab, int offset, int length, long expiresAt) { }
+
+    record Promoted<V>(V value, long expiresAt) { }
+}
@@ -0,0 +1,7 @@
+package com.masterjava.advanced;
+
+import java.util.List;
+
+// One page of results plus the cursor to fetch the next one (an id: the
+// last one examined, not a position, see Repository.findPage)
+record Page<T>(List<T> items, int nextCursor, boolean hasNext) { }
@@ -0,0 +1,35 @@
+package com.masterjava.advanced;
+
+import java.util.Arrays;
+
+class Person {
+    // [int age][UTF-8 name] - used when persisting to a write-ahead log
+    static final Codec<Person> CODEC = new Codec<>() {
+        public byte[] encode(Person person) {
+            byte[] name = Codec.UTF8.encode(person.name);
+            return java.nio.ByteBuffer.allocate(4 + name.length).putInt(person.age).put(name).array();
+        }
+
+        public Person decode(byte[] bytes) {
+            java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(bytes);
+            int age = buffer.getInt();
+            return new Person(Codec.UTF8.decode(Arrays.copyOfRange(bytes, 4, bytes.length)), age);
+        }
+    };
+
+    private String name;
+    private int age;
+    
+    public Person(String name, int age) {
+        this.name = name;
+        this.age = age;
+    }
+
+    public String getName() { return name; }
+    public int getAge() { return age; }
+    
+    @Override
+    public String toString() {
+        return name + " (" + age + ")";
+    }
+}
@@ -0,0 +1,67 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+
+// Thread-safe: backed by a lock-free EntityStore, whose MVCC versions also serve read views
+class PersonRepository implements Repository<Person>, ReadViewSource<Person>, AutoCloseable {
+    private final EntityStore<Person> storage;
+
+    public PersonRepository() {
+        storage = new EntityStore<>();
+    }
+
+    // Durable: replays the log in walDirectory, then logs every write to it
+    public PersonRepository(java.nio.file.Path walDirectory) throws java.io.IOException {
+        storage = EntityStore.durable(walDirectory, Person.CODEC, 256);
+    }
+    
+    @Override
+    public int save(Person entity) {
+        return storage.insert(entity);
+    }
+
+    @Override
+    public int[] saveAll(Collection<? extends Person> entities) {
+        return storage.insertAll(entities);
+    }
+    
+    @Override
+    public Person findById(int id) {
+        return storage.get(id);
+    }
+    
+    @Override
+    public List<Person> findAll() {
+        return storage.values();
+    }
+
+    @Override
+    public java.util.stream.Stream<Person> stream() {
+        return storage.stream();
+    }
+
+    @Override
+    public Page<Person> findPage(int afterId, int limit) {
+        return storage.page(afterId, limit);
+    }
+
+    @Override
+    public ReadView<Person> openReadView() {
+        return storage.openReadView();
+    }
+    
+    @Override
+    public void delete(int id) {
+        storage.remove(id);
+    }
+
+    @Override
+    public void deleteAll(int... ids) {
+        storage.removeAll(ids);
+    }
+
+    @Override
+    public void close() throws java.io.IOException {
+        storage.close();
+    }
+}
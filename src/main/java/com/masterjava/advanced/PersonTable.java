@@ -0,0 +1,186 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * COLUMNAR PERSON TABLE (STRUCT OF ARRAYS)
+ * ========================================
+ *
+ * Stores {@link Person} rows as two parallel int columns instead of one
+ * heap object per row.
+ *
+ *   names [ 0 | 1 | 0 | 2 | ...]   int codes → dictionary (each name once)
+ *   ages  [30 |41 |35 |28 | ...]   int
+ *
+ * WHY:
+ * ✓ 8 bytes per row instead of an object header, a reference and (when
+ *   rows come from a loader) a private String copy per row
+ * ✓ Age scans and aggregations read one contiguous int[]: sequential,
+ *   prefetch-friendly, no pointer chasing
+ * ✓ Filtering by name compares int codes: the String is looked up once
+ * ✗ Reading a whole row back means re-assembling it (row())
+ * ✗ Appends only; not thread-safe (like ArrayList) - use
+ *   {@link PersonRepository} for concurrent OLTP-style access
+ */
+class PersonTable {
+    private final Dictionary names = new Dictionary();
+    private int[] nameCodes;
+    private int[] ages;
+    private int size;
+
+    PersonTable() {
+        this(16);
+    }
+
+    PersonTable(int initialCapacity) {
+        nameCodes = new int[Math.max(initialCapacity, 1)];
+        ages = new int[nameCodes.length];
+    }
+
+    static PersonTable of(Collection<Person> people) {
+        PersonTable table = new PersonTable(people.size());
+        for (Person person : people) {
+            table.append(person);
+        }
+        return table;
+    }
+
+    // Returns the new row's index
+    int append(Person person) {
+        return append(person.getName(), person.getAge());
+    }
+
+    int append(String name, int age) {
+        if (size == ages.length) {
+            int capacity = size * 2;
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+        }
+        nameCodes[size] = names.encode(name);
+        ages[size] = age;
+        return size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String name(int row) {
+        return names.decode(nameCodes[checkRow(row)]);
+    }
+
+    int age(int row) {
+        return ages[checkRow(row)];
+    }
+
+    // Re-assembles one row as an object
+    Person row(int row) {
+        return new Person(name(row), age(row));
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // SCANS & AGGREGATIONS
+    // ═══════════════════════════════════════════════════════════
+
+    IntStream ages() {
+        return Arrays.stream(ages, 0, size);
+    }
+
+    double averageAge() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += ages[i];
+        }
+        return size == 0 ? 0 : (double) total / size;
+    }
+
+    int countAgeBetween(int fromInclusive, int toInclusive) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (ages[i] >= fromInclusive && ages[i] <= toInclusive) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int countByName(String name) {
+        int code = names.find(name);
+        if (code < 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (nameCodes[i] == code) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    Map<String, Double> averageAgeByName() {
+        long[] sums = new long[names.size()];
+        long[] counts = new long[sums.length];
+        for (int i = 0; i < size; i++) {
+            int code = nameCodes[i];
+            sums[code] += ages[i];
+            counts[code]++;
+        }
+        Map<String, Double> result = new TreeMap<>();
+        for (int code = 0; code < sums.length; code++) {
+            if (counts[code] > 0) {
+                result.put(names.decode(code), (double) sums[code] / counts[code]);
+            }
+        }
+        return result;
+    }
+
+    // Bytes held by the columns (allocated capacity) plus one copy of each distinct name
+    long estimatedBytes() {
+        return (long) ages.length * (Integer.BYTES * 2) + names.estimatedBytes();
+    }
+
+    private int checkRow(int row) {
+        return Objects.checkIndex(row, size);
+    }
+
+    // String ↔ dense int code; codes are assigned in first-seen order
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        // Code of a value already seen, or -1 (never assigns one)
+        int find(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        // Rough: String object + byte[] per entry, plus map/list overhead
+        long estimatedBytes() {
+            long bytes = 0;
+            for (String value : values) {
+                bytes += 24 + 16 + value.length() + 48;
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+
+/**
+ * Declarative lookup for {@link GenericDAO#query}: an AND of attribute
+ * predicates. Attribute names refer to indexes declared on the DAO.
+ *
+ * USAGE:
+ *   userDAO.query(Query.eq("username", "admin"));
+ *   personDAO.query(Query.between("age", 18, 30).and(Query.eq("name", "Alice")));
+ */
+final class Query {
+    enum Operator { EQ, RANGE }
+
+    record Predicate(String attribute, Operator operator, Object value,
+                     Comparable<?> from, Comparable<?> to) { }
+
+    private final List<Predicate> predicates;
+
+    private Query(List<Predicate> predicates) {
+        this.predicates = List.copyOf(predicates);
+    }
+
+    static Query eq(String attribute, Object value) {
+        return new Query(List.of(new Predicate(attribute, Operator.EQ, value, null, null)));
+    }
+
+    // Inclusive bounds; null means unbounded on that side
+    static Query between(String attribute, Comparable<?> fromInclusive, Comparable<?> toInclusive) {
+        return new Query(List.of(new Predicate(attribute, Operator.RANGE, null, fromInclusive, toInclusive)));
+    }
+
+    Query and(Query other) {
+        List<Predicate> combined = new ArrayList<>(predicates);
+        combined.addAll(other.predicates);
+        return new Query(combined);
+    }
+
+    List<Predicate> predicates() {
+        return predicates;
+    }
+
+    @Override
+    public String toString() {
+        return "Query" + predicates;
+    }
+}
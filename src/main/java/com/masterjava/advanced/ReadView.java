@@ -0,0 +1,15 @@
+package com.masterjava.advanced;
+
+import java.util.List;
+
+// Reads pinned to one version: saves/deletes after it was opened are invisible.
+// Writers never wait for it, but it holds old versions alive until closed.
+interface ReadView<T> extends AutoCloseable {
+    long version();
+    T findById(int id);
+    List<T> findAll();
+    java.util.stream.Stream<T> stream();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,9 @@
+package com.masterjava.advanced;
+
+// Capability of stores that keep old versions (MVCC), kept out of Repository
+// so a plain repository never has to pretend: implement it only when
+// superseded versions stay readable while a view is open.
+interface ReadViewSource<T> {
+    // Pins the current version; close the view to let old versions go
+    ReadView<T> openReadView();
+}
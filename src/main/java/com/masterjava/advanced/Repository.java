@@ -0,0 +1,38 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+
+interface Repository<T> {
+    int save(T entity); // returns the allocated id
+    T findById(int id);
+    List<T> findAll();
+    void delete(int id);
+
+    // Batch forms; implementations should override to amortize per-call costs
+    default int[] saveAll(Collection<? extends T> entities) {
+        int[] ids = new int[entities.size()];
+        int i = 0;
+        for (T entity : entities) {
+            ids[i++] = save(entity);
+        }
+        return ids;
+    }
+
+    default void deleteAll(int... ids) {
+        for (int id : ids) {
+            delete(id);
+        }
+    }
+
+    // Lazy view; implementations should override to avoid the findAll() copy
+    default java.util.stream.Stream<T> stream() {
+        return findAll().stream();
+    }
+
+    // Keyset pagination: up to limit entities with id > afterId, in id order.
+    // Pass page.nextCursor() back in, 0 for the first page. Keyed on ids, so
+    // deletes between pages never shift or skip rows. No default: ids are
+    // only known to the storage, and a position-based fallback would not be
+    // keyset paging
+    Page<T> findPage(int afterId, int limit);
+}
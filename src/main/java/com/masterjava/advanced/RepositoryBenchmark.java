@@ -0,0 +1,124 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * REPOSITORY THROUGHPUT HARNESS
+ * =============================
+ *
+ * Mixed-workload throughput of the DAO storage engines at 1 to 64 threads.
+ *
+ * CONTENDERS:
+ * • synchronized HashMap - the original HashMap + idCounter++ DAO made
+ *   thread-safe the simplest way (every call takes one lock)
+ * • GenericDAO           - backed by the lock-free {@link EntityStore}
+ *
+ * WORKLOAD (per operation, random id in the live range):
+ * • 90% findById / 8% save / 2% delete
+ * • 100,000 entities pre-loaded
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.advanced.RepositoryBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class RepositoryBenchmark {
+    private static final int PRELOAD = 100_000;
+    private static final long RUN_MILLIS = 1_000;
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+    interface Target {
+        int save(Person person);
+        Object findById(int id);
+        void delete(int id);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   REPOSITORY THROUGHPUT (90% read / 8% save / 2% del)  ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.println("  Cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("  %-8s %22s %20s%n", "Threads", "synchronized HashMap", "GenericDAO");
+
+        for (int threads : THREAD_COUNTS) {
+            double locked = run(new LockedHashMapTarget(), threads);
+            GenericDAO<Person> dao = new GenericDAO<>();
+            double lockFree = run(new Target() {
+                public int save(Person person) { return dao.save(person); }
+                public Object findById(int id) { return dao.findById(id).orElse(null); }
+                public void delete(int id) { dao.delete(id); }
+            }, threads);
+            System.out.printf("  %-8d %15.2f Mops/s %13.2f Mops/s%n", threads, locked, lockFree);
+        }
+    }
+
+    static double run(Target target, int threads) throws InterruptedException {
+        Person sample = new Person("bench", 30);
+        for (int i = 0; i < PRELOAD; i++) {
+            target.save(sample);
+        }
+        AtomicInteger highestId = new AtomicInteger(PRELOAD);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder operations = new LongAdder();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long ops = 0;
+                while (!stop.get()) {
+                    for (int i = 0; i < 1000; i++) {
+                        int roll = random.nextInt(100);
+                        int id = 1 + random.nextInt(highestId.get());
+                        if (roll < 90) {
+                            target.findById(id);
+                        } else if (roll < 98) {
+                            highestId.accumulateAndGet(target.save(sample), Math::max);
+                        } else {
+                            target.delete(id);
+                        }
+                    }
+                    ops += 1000;
+                }
+                operations.add(ops);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() / ((System.nanoTime() - began) / 1e9) / 1e6;
+    }
+
+    // Baseline: the original DAO shape with a single lock around it
+    static final class LockedHashMapTarget implements Target {
+        private final Map<Integer, Person> storage = new HashMap<>();
+        private int idCounter = 1;
+
+        public synchronized int save(Person person) {
+            int id = idCounter++;
+            storage.put(id, person);
+            return id;
+        }
+
+        public synchronized Object findById(int id) {
+            return storage.get(id);
+        }
+
+        public synchronized void delete(int id) {
+            storage.remove(id);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * SECONDARY INDEXES
+ * =================
+ *
+ * Maps attribute values back to entity ids so a lookup by anything other
+ * than the id does not need findAll() plus a linear filter.
+ *
+ * INDEX TYPES:
+ * ┌──────────┬────────────────────────────┬──────────────────────────────┐
+ * │ Type     │ Structure                  │ Answers                      │
+ * ├──────────┼────────────────────────────┼──────────────────────────────┤
+ * │ HASH     │ ConcurrentHashMap<K, ids>  │ equality, O(1)               │
+ * │ SORTED   │ ConcurrentSkipListMap      │ equality + ranges, O(log n)  │
+ * └──────────┴────────────────────────────┴──────────────────────────────┘
+ *
+ * QUERY PLANNING:
+ * 1. Every equality predicate with an index → exact candidate count known
+ * 2. Pick the smallest candidate set; otherwise the first indexed range
+ * 3. Fetch candidates by id and re-check ALL predicates on the entity
+ *    (this also filters index entries that are momentarily stale)
+ *
+ * CONSISTENCY:
+ * • The DAO updates indexes right after each save/delete, so a query
+ *   racing with a write may miss it briefly, but never returns an entity
+ *   that does not match
+ * • Thread-safe: concurrent maps and concurrent id sets throughout
+ *
+ * @param <T> entity type
+ */
+class SecondaryIndexes<T> {
+    private final Map<String, Index<T, ?>> hashIndexes = new ConcurrentHashMap<>();
+    private final Map<String, Index<T, ?>> sortedIndexes = new ConcurrentHashMap<>();
+
+    <K> Index<T, K> addHash(String attribute, Function<? super T, ? extends K> extractor) {
+        Index<T, K> index = new Index<>(extractor, new ConcurrentHashMap<>());
+        hashIndexes.put(attribute, index);
+        return index;
+    }
+
+    <K extends Comparable<? super K>> Index<T, K> addSorted(String attribute,
+                                                          Function<? super T, ? extends K> extractor) {
+        Index<T, K> index = new Index<>(extractor, new ConcurrentSkipListMap<>());
+        sortedIndexes.put(attribute, index);
+        return index;
+    }
+
+    void onInsert(int id, T entity) {
+        for (Index<T, ?> index : hashIndexes.values()) {
+            index.add(id, entity);
+        }
+        for (Index<T, ?> index : sortedIndexes.values()) {
+            index.add(id, entity);
+        }
+    }
+
+    // One index pass per batch; entities sharing a key touch that key once
+    void onInsertAll(int[] ids, List<? extends T> entities) {
+        for (Index<T, ?> index : hashIndexes.values()) {
+            index.addAll(ids, entities);
+        }
+        for (Index<T, ?> index : sortedIndexes.values()) {
+            index.addAll(ids, entities);
+        }
+    }
+
+    void onRemove(int id, T entity) {
+        for (Index<T, ?> index : hashIndexes.values()) {
+            index.remove(id, entity);
+        }
+        for (Index<T, ?> index : sortedIndexes.values()) {
+            index.remove(id, entity);
+        }
+    }
+
+    // Batch counterpart of onRemove; null entities (ids that were absent) are skipped
+    void onRemoveAll(int[] ids, List<? extends T> entities) {
+        for (Index<T, ?> index : hashIndexes.values()) {
+            index.removeAll(ids, entities);
+        }
+        for (Index<T, ?> index : sortedIndexes.values()) {
+            index.removeAll(ids, entities);
+        }
+    }
+
+    /**
+     * Candidate ids for a query, from the most selective usable index.
+     * The caller must still check {@link #matches} on each entity.
+     */
+    Collection<Integer> candidates(Query query) {
+        Collection<Integer> best = null;
+        Query.Predicate firstRange = null;
+        for (Query.Predicate predicate : query.predicates()) {
+            if (predicate.operator() == Query.Operator.EQ) {
+                Index<T, ?> index = hashIndexes.getOrDefault(predicate.attribute(),
+                    sortedIndexes.get(predicate.attribute()));
+                if (index != null) {
+                    Collection<Integer> ids = index.equalTo(predicate.value());
+                    if (best == null || ids.size() < best.size()) {
+                        best = ids;
+                    }
+                }
+            } else if (firstRange == null && sortedIndexes.containsKey(predicate.attribute())) {
+                firstRange = predicate;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        if (firstRange != null) {
+            return sortedIndexes.get(firstRange.attribute()).range(firstRange.from(), firstRange.to());
+        }
+        throw new IllegalArgumentException("No index can answer " + query
+            + "; declared: hash=" + hashIndexes.keySet() + ", sorted=" + sortedIndexes.keySet());
+    }
+
+    boolean matches(Query query, T entity) {
+        for (Query.Predicate predicate : query.predicates()) {
+            Index<T, ?> index = hashIndexes.getOrDefault(predicate.attribute(),
+                sortedIndexes.get(predicate.attribute()));
+            if (index == null) {
+                throw new IllegalArgumentException("No index declared for attribute: " + predicate.attribute());
+            }
+            Object value = index.extractor.apply(entity);
+            boolean matches = predicate.operator() == Query.Operator.EQ
+                ? Objects.equals(value, predicate.value())
+                : inRange(value, predicate.from(), predicate.to());
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean inRange(Object value, Comparable from, Comparable to) {
+        if (value == null) {
+            return false;
+        }
+        return (from == null || from.compareTo(value) <= 0) && (to == null || to.compareTo(value) >= 0);
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // INDEX
+    // ═══════════════════════════════════════════════════════════
+
+    /**
+     * One attribute → ids mapping. Entities whose attribute is null are
+     * not indexed (and never match an equality or range predicate).
+     */
+    static final class Index<T, K> {
+        final Function<? super T, ? extends K> extractor;
+        private final ConcurrentMap<K, Set<Integer>> entries;
+
+        Index(Function<? super T, ? extends K> extractor, ConcurrentMap<K, Set<Integer>> entries) {
+            this.extractor = extractor;
+            this.entries = entries;
+        }
+
+        void add(int id, T entity) {
+            K key = extractor.apply(entity);
+            if (key != null) {
+                // compute (not computeIfAbsent + add) so a concurrent remove
+                // cannot drop the set between lookup and add
+                entries.compute(key, (k, ids) -> {
+                    Set<Integer> bucket = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    bucket.add(id);
+                    return bucket;
+                });
+            }
+        }
+
+        void addAll(int[] ids, List<? extends T> entities) {
+            groupByKey(ids, entities).forEach((key, keyIds) -> entries.compute(key, (k, existing) -> {
+                Set<Integer> bucket = existing != null ? existing : ConcurrentHashMap.newKeySet();
+                bucket.addAll(keyIds);
+                return bucket;
+            }));
+        }
+
+        void removeAll(int[] ids, List<? extends T> entities) {
+            groupByKey(ids, entities).forEach((key, keyIds) -> entries.computeIfPresent(key, (k, existing) -> {
+                existing.removeAll(keyIds);
+                return existing.isEmpty() ? null : existing;
+            }));
+        }
+
+        private Map<K, List<Integer>> groupByKey(int[] ids, List<? extends T> entities) {
+            Map<K, List<Integer>> byKey = new HashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                T entity = entities.get(i);
+                K key = entity == null ? null : extractor.apply(entity);
+                if (key != null) {
+                    byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(ids[i]);
+                }
+            }
+            return byKey;
+        }
+
+        void remove(int id, T entity) {
+            K key = extractor.apply(entity);
+            if (key != null) {
+                entries.computeIfPresent(key, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+
+        Collection<Integer> equalTo(Object key) {
+            if (key == null) {
+                return Set.of();
+            }
+            Set<Integer> ids = entries.get(key);
+            return ids == null ? Set.of() : ids;
+        }
+
+        @SuppressWarnings("unchecked")
+        Collection<Integer> range(Object fromInclusive, Object toInclusive) {
+            ConcurrentNavigableMap<K, Set<Integer>> sorted = (ConcurrentNavigableMap<K, Set<Integer>>) entries;
+            if (fromInclusive != null && toInclusive != null) {
+                sorted = sorted.subMap((K) fromInclusive, true, (K) toInclusive, true);
+            } else if (fromInclusive != null) {
+                sorted = sorted.tailMap((K) fromInclusive, true);
+            } else if (toInclusive != null) {
+                sorted = sorted.headMap((K) toInclusive, true);
+            }
+            List<Integer> ids = new ArrayList<>();
+            for (Set<Integer> bucket : sorted.values()) {
+                ids.addAll(bucket);
+            }
+            return ids;
+        }
+    }
+}
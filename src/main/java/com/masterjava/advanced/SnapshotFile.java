@@ -0,0 +1,131 @@
+package com.masterjava.advanced;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ * POINT-IN-TIME SNAPSHOTS OF AN ENTITY STORE
+ * ==========================================
+ *
+ * A snapshot holds every live entity as of log position {@code lsn}, so
+ * recovery = load newest snapshot + replay only WAL records after it.
+ *
+ * ON DISK (next to the WAL segments):
+ *   snapshot-00000000000000052112.snap               ← named by the LSN it covers
+ *
+ *   [int MAGIC][long lsn][int nextId]
+ *   [int id][long version][int length][payload] ...  ← one per live entity
+ *   [int id = 0]                                     ← end marker
+ *   [int crc32 of everything above]
+ *
+ * CRASH SAFETY:
+ * • Written to a .tmp file, fsynced, then atomically renamed: a reader
+ *   sees either the old snapshot or the complete new one
+ * • Only after the rename are older snapshots and WAL segments deleted
+ */
+final class SnapshotFile {
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+
+    private SnapshotFile() { }
+
+    interface Sink<T> {
+        void accept(int id, long version, T entity);
+    }
+
+    // What a snapshot covers; NONE when the directory has no snapshot yet
+    record Header(long lsn, int nextId) {
+        static final Header NONE = new Header(0, 1);
+    }
+
+    static <T> void write(Path directory, long lsn, int nextId, EntityStore<T> store,
+                          Codec<T> codec) throws IOException {
+        Path target = directory.resolve(String.format(PREFIX + "%020d" + SUFFIX, lsn));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(
+                 new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc))) {
+            out.writeInt(MAGIC);
+            out.writeLong(lsn);
+            out.writeInt(nextId);
+            for (int id = 1; id < nextId; id++) {
+                Versioned<T> entity = store.getVersioned(id);
+                if (entity != null) {
+                    byte[] payload = codec.encode(entity.value());
+                    out.writeInt(id);
+                    out.writeLong(entity.version());
+                    out.writeInt(payload.length);
+                    out.write(payload);
+                }
+            }
+            out.writeInt(0);
+            out.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Loads the newest snapshot into {@code sink}. A damaged snapshot is an
+     * error rather than something to skip: the log before it may already
+     * be pruned.
+     */
+    static <T> Header loadLatest(Path directory, Codec<T> codec, Sink<T> sink) throws IOException {
+        List<Path> snapshots = list(directory);
+        if (snapshots.isEmpty()) {
+            return Header.NONE;
+        }
+        Path newest = snapshots.get(snapshots.size() - 1);
+        CRC32 crc = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(newest), 1 << 16);
+             DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot: " + newest);
+            }
+            Header header = new Header(in.readLong(), in.readInt());
+            for (int id = in.readInt(); id != 0; id = in.readInt()) {
+                long version = in.readLong();
+                sink.accept(id, version, codec.decode(in.readNBytes(in.readInt())));
+            }
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(file).readInt() != expected) {
+                throw new IOException("Corrupt snapshot: " + newest);
+            }
+            return header;
+        } catch (EOFException e) {
+            throw new IOException("Truncated snapshot: " + newest, e);
+        }
+    }
+
+    // Deletes snapshots (and leftover temp files) older than the one covering lsn
+    static void deleteOlderThan(Path directory, long lsn) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX + ".tmp")) {
+                    Files.delete(path);
+                } else if (name.startsWith(PREFIX) && name.endsWith(SUFFIX) && lsnOf(path) < lsn) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().matches(PREFIX + "\\d{20}\\" + SUFFIX))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    private static long lsnOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,19 @@
+package com.masterjava.advanced;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Comparator;
+
+// Scratch-directory cleanup shared by the WAL-backed benchmarks
+final class TempDirectories {
+    private TempDirectories() { }
+
+    // Children before parents, so every directory is empty when deleted
+    static void deleteRecursively(Path directory) throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.masterjava.advanced;
+
+import java.util.function.Consumer;
+
+/**
+ * HIERARCHICAL TIMER WHEEL
+ * ========================
+ *
+ * Schedules cache entries by expiration time so expired entries can be
+ * found without scanning the whole map.
+ *
+ * LAYOUT (like a clock: seconds, minutes, hours hands):
+ * ┌───────┬──────────┬─────────────┬──────────────────────┐
+ * │ Level │ Buckets  │ Bucket span │ Covers               │
+ * ├───────┼──────────┼─────────────┼──────────────────────┤
+ * │   0   │    64    │ 2^30 ns ≈1s │ ~1.1 minutes         │
+ * │   1   │    64    │ 2^36 ≈ 1.1m │ ~1.2 hours           │
+ * │   2   │    32    │ 2^42 ≈ 1.2h │ ~1.6 days            │
+ * │   3   │     4    │ 2^47 ≈ 1.6d │ ~6.5 days            │
+ * │   4   │     1    │ overflow    │ everything later     │
+ * └───────┴──────────┴─────────────┴──────────────────────┘
+ *
+ * COST:
+ * • schedule / deschedule: O(1) - link into a bucket's doubly-linked list
+ * • advance: visits only buckets whose time has passed; entries that are
+ *   not due yet cascade down to a finer level (amortized O(1) per entry)
+ *
+ * Times are nanoseconds relative to the owning cache's origin, so they are
+ * never negative. Not thread-safe: guarded by the cache's eviction lock.
+ */
+final class TimerWheel<K, V> {
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final int[] SHIFT = {30, 36, 42, 47, 49};
+
+    private final ConcurrentCache.Entry<K, V>[][] wheel;
+    private long nanos;
+
+    TimerWheel() {
+        // No generic array creation in Java; the raw arrays never escape and
+        // only ever hold this wheel's own entries
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ConcurrentCache.Entry<K, V>[][] levels = new ConcurrentCache.Entry[BUCKETS.length][];
+        for (int level = 0; level < BUCKETS.length; level++) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            ConcurrentCache.Entry<K, V>[] buckets = new ConcurrentCache.Entry[BUCKETS[level]];
+            for (int bucket = 0; bucket < buckets.length; bucket++) {
+                buckets[bucket] = ConcurrentCache.Entry.sentinel();
+            }
+            levels[level] = buckets;
+        }
+        wheel = levels;
+    }
+
+    void schedule(ConcurrentCache.Entry<K, V> entry, long deadline) {
+        deschedule(entry);
+        link(findBucket(deadline), entry);
+    }
+
+    void deschedule(ConcurrentCache.Entry<K, V> entry) {
+        if (entry.nextInTimer != null) {
+            entry.prevInTimer.nextInTimer = entry.nextInTimer;
+            entry.nextInTimer.prevInTimer = entry.prevInTimer;
+            entry.nextInTimer = null;
+            entry.prevInTimer = null;
+        }
+    }
+
+    /**
+     * Moves the wheel to {@code currentTime}, passing every entry whose
+     * bucket elapsed to {@code onDue}. The callback decides whether the
+     * entry really expired (and removes it) or reschedules it.
+     */
+    void advance(long currentTime, Consumer<ConcurrentCache.Entry<K, V>> onDue) {
+        long previousTime = nanos;
+        nanos = currentTime;
+        for (int level = 0; level < SHIFT.length; level++) {
+            long previousTicks = previousTime >>> SHIFT[level];
+            long currentTicks = currentTime >>> SHIFT[level];
+            if (currentTicks - previousTicks <= 0) {
+                break;
+            }
+            expire(level, previousTicks, currentTicks - previousTicks, onDue);
+        }
+    }
+
+    void clear() {
+        for (ConcurrentCache.Entry<K, V>[] buckets : wheel) {
+            for (ConcurrentCache.Entry<K, V> sentinel : buckets) {
+                ConcurrentCache.Entry<K, V> node = sentinel.nextInTimer;
+                while (node != sentinel) {
+                    ConcurrentCache.Entry<K, V> next = node.nextInTimer;
+                    node.prevInTimer = null;
+                    node.nextInTimer = null;
+                    node = next;
+                }
+                sentinel.prevInTimer = sentinel;
+                sentinel.nextInTimer = sentinel;
+            }
+        }
+    }
+
+    private void expire(int level, long previousTicks, long delta,
+                        Consumer<ConcurrentCache.Entry<K, V>> onDue) {
+        ConcurrentCache.Entry<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int probes = (int) Math.min(delta + 1, buckets.length);
+        int start = (int) (previousTicks & mask);
+        for (int i = 0; i < probes; i++) {
+            ConcurrentCache.Entry<K, V> sentinel = buckets[(start + i) & mask];
+            // Detach the whole bucket first: callbacks may reschedule into it
+            ConcurrentCache.Entry<K, V> node = sentinel.nextInTimer;
+            sentinel.prevInTimer.nextInTimer = null;
+            sentinel.prevInTimer = sentinel;
+            sentinel.nextInTimer = sentinel;
+            while (node != null && node != sentinel) {
+                ConcurrentCache.Entry<K, V> next = node.nextInTimer;
+                node.prevInTimer = null;
+                node.nextInTimer = null;
+                onDue.accept(node);
+                node = next;
+            }
+        }
+    }
+
+    private ConcurrentCache.Entry<K, V> findBucket(long deadline) {
+        // Overdue entries go into the current bucket and fire on the next tick
+        long time = Math.max(deadline, nanos);
+        long duration = time - nanos;
+        for (int level = 0; level < SHIFT.length - 1; level++) {
+            if (duration < (1L << SHIFT[level + 1])) {
+                long ticks = time >>> SHIFT[level];
+                return wheel[level][(int) (ticks & (BUCKETS[level] - 1))];
+            }
+        }
+        return wheel[SHIFT.length - 1][0];
+    }
+
+    private static <K, V> void link(ConcurrentCache.Entry<K, V> sentinel, ConcurrentCache.Entry<K, V> entry) {
+        entry.prevInTimer = sentinel.prevInTimer;
+        entry.nextInTimer = sentinel;
+        sentinel.prevInTimer.nextInTimer = entry;
+        sentinel.prevInTimer = entry;
+    }
+}
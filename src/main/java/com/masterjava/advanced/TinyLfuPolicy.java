@@ -0,0 +1,322 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+
+/**
+ * W-TINYLFU EVICTION POLICY
+ * =========================
+ *
+ * Decides which key leaves a size-bounded cache. The policy only tracks keys;
+ * the owning cache keeps the values and removes whatever key is returned.
+ *
+ * REGIONS:
+ * ┌──────────────┐  candidate  ┌──────────────────────────────────────────┐
+ * │ WINDOW (1%)  │ ──────────→ │ MAIN (99%)                               │
+ * │ plain LRU    │  admission  │ PROBATION (20%) ──hit──→ PROTECTED (80%) │
+ * └──────────────┘   filter    │           ←──demote──                    │
+ *                              └──────────────────────────────────────────┘
+ *
+ * HOW IT WORKS:
+ * 1. New keys enter the small window LRU (absorbs bursts of new keys)
+ * 2. Keys pushed out of the window become admission candidates
+ * 3. Candidate competes against the main region's LRU victim:
+ *    the one with the higher estimated frequency stays
+ * 4. A hit in probation promotes the key to protected
+ *
+ * WHY:
+ * ✓ One-hit wonders (scans) die in the window, never pollute main
+ * ✓ Frequency history survives eviction (kept in the sketch, not the map)
+ * ✗ Not thread-safe: callers must serialize access
+ *
+ * @param <K> key type
+ */
+class TinyLfuPolicy<K> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private final AccessOrder<K> window = new AccessOrder<>();
+    private final AccessOrder<K> probation = new AccessOrder<>();
+    private final AccessOrder<K> protectedRegion = new AccessOrder<>();
+    private final FrequencySketch sketch;
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    TinyLfuPolicy(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (int) ((maximumSize - windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    int maximumSize() {
+        return maximumSize;
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Records a read hit on a key already held by the cache.
+     */
+    void recordAccess(K key) {
+        sketch.increment(key);
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            return;
+        }
+        switch (node.region) {
+            case WINDOW -> window.moveToTail(node);
+            case PROBATION -> {
+                probation.remove(node);
+                node.region = PROTECTED;
+                protectedRegion.addToTail(node);
+                demoteProtectedOverflow();
+            }
+            default -> protectedRegion.moveToTail(node);
+        }
+    }
+
+    /**
+     * Records a new key and returns the key the cache must evict, or null
+     * if the cache is still within its bound. May return the new key itself
+     * when it loses the admission contest.
+     */
+    K recordInsert(K key) {
+        if (nodes.containsKey(key)) {
+            recordAccess(key);
+            return null;
+        }
+        sketch.increment(key);
+        Node<K> node = new Node<>(key);
+        nodes.put(key, node);
+        window.addToTail(node);
+
+        Node<K> candidate = null;
+        if (window.size > windowMaximum) {
+            candidate = window.removeHead();
+            candidate.region = PROBATION;
+            probation.addToTail(candidate);
+        }
+        if (nodes.size() <= maximumSize) {
+            return null;
+        }
+        Node<K> evicted = selectVictim(candidate);
+        remove(evicted);
+        return evicted.key;
+    }
+
+    /**
+     * Forgets a key removed from the cache by the caller (explicit delete,
+     * expiry). The sketch keeps its frequency.
+     */
+    void recordRemoval(K key) {
+        Node<K> node = nodes.get(key);
+        if (node != null) {
+            remove(node);
+        }
+    }
+
+    void clear() {
+        nodes.clear();
+        window.clear();
+        probation.clear();
+        protectedRegion.clear();
+    }
+
+    private Node<K> selectVictim(Node<K> candidate) {
+        Node<K> victim = probation.head != null ? probation.head : protectedRegion.head;
+        if (victim == null) {
+            return window.head;
+        }
+        if (candidate == null || candidate == victim) {
+            return victim;
+        }
+        return sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+    }
+
+    private void demoteProtectedOverflow() {
+        while (protectedRegion.size > protectedMaximum) {
+            Node<K> demoted = protectedRegion.removeHead();
+            demoted.region = PROBATION;
+            probation.addToTail(demoted);
+        }
+    }
+
+    private void remove(Node<K> node) {
+        nodes.remove(node.key);
+        switch (node.region) {
+            case WINDOW -> window.remove(node);
+            case PROBATION -> probation.remove(node);
+            default -> protectedRegion.remove(node);
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // INTRUSIVE LRU LIST
+    // ═══════════════════════════════════════════════════════════
+
+    private static final class Node<K> {
+        final K key;
+        int region = WINDOW;
+        Node<K> prev;
+        Node<K> next;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    // Doubly-linked list: head = least recently used, tail = most recently used
+    private static final class AccessOrder<K> {
+        Node<K> head;
+        Node<K> tail;
+        int size;
+
+        void addToTail(Node<K> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void moveToTail(Node<K> node) {
+            if (node != tail) {
+                remove(node);
+                addToTail(node);
+            }
+        }
+
+        Node<K> removeHead() {
+            Node<K> node = head;
+            remove(node);
+            return node;
+        }
+
+        void remove(Node<K> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // FREQUENCY SKETCH (Count-Min, 4-bit counters)
+    // ═══════════════════════════════════════════════════════════
+
+    /**
+     * Approximate access counts in a fixed-size table.
+     *
+     * MEMORY LAYOUT:
+     * • Each long packs 16 counters of 4 bits (max count 15)
+     * • Every key maps to 4 counters; its estimate is the minimum
+     * • ~8 bytes per cached entry, regardless of key size
+     *
+     * AGING:
+     * After 10 × maximumSize increments every counter is halved,
+     * so keys that were popular long ago gradually lose priority.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long ONE_MASK = 0x1111111111111111L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int capacity = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 30)) - 1) << 1;
+            this.table = new long[capacity];
+            this.tableMask = capacity - 1;
+            this.sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+        }
+
+        int frequency(Object key) {
+            int hash = spread(Objects.hashCode(key));
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(Object key) {
+            int hash = spread(Objects.hashCode(key));
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int index, int counter) {
+            int offset = counter << 2;
+            long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                return true;
+            }
+            return false;
+        }
+
+        private void reset() {
+            int oddCounters = 0;
+            for (int i = 0; i < table.length; i++) {
+                oddCounters += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions = (additions - (oddCounters >>> 2)) >>> 1;
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return ((int) h) & tableMask;
+        }
+
+        private static int spread(int h) {
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            return (h >>> 16) ^ h;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.masterjava.advanced;
+
+// An entity plus its version stamp: 1 when saved, +1 on every update
+record Versioned<T>(T value, long version) { }
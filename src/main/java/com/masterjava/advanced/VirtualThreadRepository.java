@@ -0,0 +1,94 @@
+package com.masterjava.advanced;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * ASYNC REPOSITORY ON VIRTUAL THREADS
+ * ===================================
+ *
+ * Adapts any blocking {@link Repository} to {@link AsyncRepository} by
+ * running every call as its own task on a virtual-thread-per-task
+ * executor (Java 21).
+ *
+ * WHY VIRTUAL THREADS:
+ * ┌──────────────────────┬──────────────────────┬──────────────────────┐
+ * │                      │ platform thread/call │ virtual thread/call  │
+ * ├──────────────────────┼──────────────────────┼──────────────────────┤
+ * │ Cost per in-flight   │ ~1 MB stack reserve, │ a few hundred bytes  │
+ * │ call                 │ an OS thread         │ on the heap          │
+ * │ Blocked in fsync/lock│ OS thread idles      │ unmounted; carrier   │
+ * │                      │                      │ runs other calls     │
+ * │ 10,000 callers       │ 10,000 OS threads    │ ~#cores carriers     │
+ * └──────────────────────┴──────────────────────┴──────────────────────┘
+ *
+ * • The wrapped repository must be thread-safe (PersonRepository and
+ *   GenericDAO-backed ones are)
+ * • With a durable repository, many parked callers means large WAL group
+ *   commits: throughput grows with concurrency instead of thread count
+ * ✗ Work pinned by synchronized blocks or native frames still holds its
+ *   carrier (the storage engine uses java.util.concurrent locks)
+ *
+ * @param <T> entity type
+ */
+final class VirtualThreadRepository<T> implements AsyncRepository<T> {
+    private final Repository<T> repository;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    VirtualThreadRepository(Repository<T> repository) {
+        this.repository = Objects.requireNonNull(repository, "repository");
+    }
+
+    @Override
+    public CompletableFuture<Integer> save(T entity) {
+        return submit(() -> repository.save(entity));
+    }
+
+    @Override
+    public CompletableFuture<T> findById(int id) {
+        return submit(() -> repository.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<List<T>> findAll() {
+        return submit(repository::findAll);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(int id) {
+        return submit(() -> {
+            repository.delete(id);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<int[]> saveAll(Collection<? extends T> entities) {
+        List<T> batch = List.copyOf(entities); // caller may mutate its collection after returning
+        return submit(() -> repository.saveAll(batch));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAll(int... ids) {
+        int[] batch = ids.clone();
+        return submit(() -> {
+            repository.deleteAll(batch);
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // A rejected task (after close) fails its future instead of throwing to the caller
+    private <R> CompletableFuture<R> submit(Supplier<R> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.masterjava.advanced;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * WRITE-AHEAD LOG THROUGHPUT HARNESS
+ * ==================================
+ *
+ * 1. Durable save() throughput of a WAL-backed {@link GenericDAO} for
+ *    several group-commit batch sizes, then a restart to check nothing
+ *    was lost
+ * 2. Restart time after heavy churn (many saves, almost all deleted again):
+ *    full log replay vs background snapshots + log compaction
+ *
+ * WHAT TO LOOK FOR:
+ * • maxBatch 1  → one fsync per save: throughput ≈ 1 / fsync latency,
+ *   no matter how many threads write
+ * • larger caps → concurrent saves share an fsync; writes/sec scales with
+ *   the average batch until the disk bandwidth or the writer thread is the
+ *   bottleneck
+ * • avg batch never exceeds the number of writer threads (each thread has
+ *   at most one save in flight)
+ * • without snapshots, log size and reopen time grow with every write ever
+ *   made; with them, both track the small live set
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.advanced.WalBenchmark"
+ *
+ * Indicative numbers only: fsync cost depends heavily on the disk and on
+ * whether the file system honours it (tmpfs does not).
+ */
+public class WalBenchmark {
+    private static final long RUN_MILLIS = 2_000;
+    private static final int WRITER_THREADS = 64;
+    private static final int[] BATCH_SIZES = {1, 8, 64, 512};
+    private static final int CHURN_THREADS = 32;
+    private static final int CHURN_SAVES = 4_000;
+    private static final int CHURN_LIVE = 100; // per thread
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   WAL GROUP COMMIT (" + WRITER_THREADS + " writer threads, durable saves)  ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.printf("  %-10s %14s %10s %10s %12s%n", "maxBatch", "writes/sec", "fsyncs", "avg batch", "recovered");
+
+        for (int maxBatch : BATCH_SIZES) {
+            Path directory = Files.createTempDirectory("wal-bench-");
+            try {
+                run(directory, maxBatch);
+            } finally {
+                TempDirectories.deleteRecursively(directory);
+            }
+        }
+
+        System.out.printf("%n  RECOVERY after %d threads × %,d saves (all but %d each deleted)%n",
+            CHURN_THREADS, CHURN_SAVES, CHURN_LIVE);
+        System.out.printf("  %-24s %12s %10s %12s%n", "mode", "on disk", "live", "reopen");
+        for (boolean snapshots : new boolean[] {false, true}) {
+            Path directory = Files.createTempDirectory("wal-bench-");
+            try {
+                recovery(directory, snapshots);
+            } finally {
+                TempDirectories.deleteRecursively(directory);
+            }
+        }
+    }
+
+    private static void run(Path directory, int maxBatch) throws Exception {
+        GenericDAO<Person> dao = new GenericDAO<>(directory, Person.CODEC, maxBatch);
+        Person sample = new Person("bench", 30);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder writes = new LongAdder();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < WRITER_THREADS; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop.get()) {
+                    dao.save(sample);
+                    writes.increment();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        long fsyncs = dao.storage.log().syncCount();
+        long records = dao.storage.log().recordCount();
+        dao.close();
+
+        // Restart: every acknowledged save must come back from the log
+        int recovered;
+        try (GenericDAO<Person> reopened = new GenericDAO<>(directory, Person.CODEC, maxBatch)) {
+            recovered = reopened.findAll().size();
+        }
+        System.out.printf("  %-10d %14.0f %10d %10.1f %12s%n",
+            maxBatch, writes.sum() / seconds, fsyncs, (double) records / Math.max(fsyncs, 1),
+            recovered == writes.sum() ? recovered + " ✓" : recovered + " ✗");
+    }
+
+    private static void recovery(Path directory, boolean snapshots) throws Exception {
+        try (GenericDAO<Person> dao = new GenericDAO<>(directory, Person.CODEC)) {
+            if (snapshots) {
+                dao.snapshotEvery(java.time.Duration.ofMillis(250));
+            }
+            Person sample = new Person("churn", 40);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < CHURN_THREADS; t++) {
+                Thread worker = new Thread(() -> {
+                    ArrayDeque<Integer> live = new ArrayDeque<>();
+                    for (int i = 0; i < CHURN_SAVES; i++) {
+                        live.addLast(dao.save(sample));
+                        if (live.size() > CHURN_LIVE) {
+                            dao.delete(live.removeFirst());
+                        }
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        long bytes;
+        try (var files = Files.list(directory)) {
+            bytes = files.mapToLong(path -> path.toFile().length()).sum();
+        }
+        long began = System.nanoTime();
+        int live;
+        try (GenericDAO<Person> reopened = new GenericDAO<>(directory, Person.CODEC)) {
+            live = reopened.findAll().size();
+        }
+        double millis = (System.nanoTime() - began) / 1e6;
+        System.out.printf("  %-24s %9d KB %10s %9.1f ms%n",
+            snapshots ? "snapshots every 250 ms" : "full log replay", bytes / 1024,
+            live == CHURN_THREADS * CHURN_LIVE ? live + " ✓" : live + " ✗", millis);
+    }
+}
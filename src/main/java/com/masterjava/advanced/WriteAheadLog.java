@@ -0,0 +1,492 @@
+package com.masterjava.advanced;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+/**
+ * SEGMENTED WRITE-AHEAD LOG WITH GROUP COMMIT
+ * ===========================================
+ *
+ * Append-only record of every save/delete, so an in-memory store can be
+ * rebuilt after a restart by replaying it.
+ *
+ * ON DISK:
+ *   wal-00000000000000000001.log   ← segment named by its first LSN
+ *   wal-00000000000000052113.log   ← rolled when the previous one hit the size limit
+ *
+ *   record = [int bodyLength][int crc32(body)][body]
+ *   body   = [long lsn][byte type][int id][payload...]
+ *
+ * GROUP COMMIT (why throughput does not collapse to 1 write per fsync):
+ * ┌──────────┐ append() ┌────────────┐ drain ≤ maxBatch ┌─────────────────┐
+ * │ writer 1 │─────────→│            │─────────────────→│ wal-writer      │
+ * │ writer 2 │─────────→│   queue    │                  │ 1 write + 1     │
+ * │ writer N │─────────→│            │                  │ fsync per batch │
+ * └──────────┘  wait    └────────────┘                  └────────┬────────┘
+ *      ↑                                                         │
+ *      └─────────────── all futures in batch complete ───────────┘
+ *
+ * • While one fsync runs, new appends pile up in the queue and go out
+ *   together in the next batch: cost per write ≈ fsync / batch size
+ * • An append's future completes only after its batch is on disk
+ *
+ * RECOVERY:
+ * • Segments are replayed in LSN order, skipping records already covered
+ *   by a snapshot (lsn ≤ afterLsn)
+ * • A torn or corrupt record (crash mid-write) ends replay; the segment
+ *   is truncated there so new records are not appended after garbage
+ *
+ * WRITE FAILURES:
+ * • A batch that fails (I/O error, or any exception while encoding it)
+ *   fails only its own futures; the segment is truncated back to where
+ *   the batch started, so no torn record sits in front of later batches
+ *   (recovery stops at the first bad record and would drop them)
+ * • If that truncation fails too, the log is FAILED for good: every
+ *   queued and future append completes exceptionally instead of hanging
+ *
+ * COMPACTION:
+ * • roll() starts a fresh segment; pruneThrough(lsn) then deletes every
+ *   older segment whose records are all ≤ lsn (the active one is kept)
+ */
+final class WriteAheadLog implements Closeable {
+    static final byte SAVE = 1;
+    static final byte DELETE = 2;
+    static final byte UPDATE = 3; // payload = [long new version][entity]
+
+    private static final int HEADER_BYTES = 8;
+    private static final int BODY_FIXED_BYTES = 8 + 1 + 4;
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final int INITIAL_BATCH_BUFFER = 64 * 1024;
+    // Larger batches get a one-off buffer instead of growing the kept one
+    private static final int MAX_KEPT_BATCH_BUFFER = 4 * 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxBatchSize;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private final Object segmentLock = new Object();
+    private FileChannel segment;
+    // Direct, so the channel writes it without first copying it off-heap;
+    // reused across batches (only the writer touches it, under segmentLock)
+    private ByteBuffer batchBuffer = ByteBuffer.allocateDirect(INITIAL_BATCH_BUFFER);
+    private long nextLsn;
+    private volatile long durableLsn;
+    private volatile boolean closed;
+    private volatile Throwable failure; // set once: the log can no longer be appended to safely
+    private volatile long syncCount;
+    private volatile long recordCount;
+
+    record Record(long lsn, byte type, int id, byte[] payload) { }
+
+    private record Pending(byte type, int id, byte[] payload, CompletableFuture<Long> durable) { }
+
+    // Poison pill: the writer must not be interrupted, or NIO closes the channel
+    private static final Pending SHUTDOWN = new Pending((byte) 0, 0, new byte[0], null);
+
+    interface Replayer {
+        void apply(Record record);
+    }
+
+    private WriteAheadLog(Path directory, long segmentBytes, int maxBatchSize) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBatchSize = maxBatchSize;
+        this.writer = new Thread(this::writeLoop, "wal-writer-" + directory.getFileName());
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Opens (or creates) the log in {@code directory}, replays every intact
+     * record into {@code replayer}, then starts accepting appends.
+     *
+     * @param maxBatchSize upper bound of records per fsync (1 = no grouping)
+     */
+    static WriteAheadLog open(Path directory, int maxBatchSize, Replayer replayer) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES, maxBatchSize, 0, replayer);
+    }
+
+    /**
+     * @param afterLsn records up to and including this LSN are already
+     *                 reflected in a snapshot and are not replayed
+     */
+    static WriteAheadLog open(Path directory, int maxBatchSize, long afterLsn,
+                              Replayer replayer) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES, maxBatchSize, afterLsn, replayer);
+    }
+
+    static WriteAheadLog open(Path directory, long segmentBytes, int maxBatchSize, long afterLsn,
+                              Replayer replayer) throws IOException {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        Files.createDirectories(directory);
+        WriteAheadLog log = new WriteAheadLog(directory, segmentBytes, maxBatchSize);
+        log.recover(afterLsn, replayer);
+        log.writer.start();
+        return log;
+    }
+
+    /**
+     * Queues a record; the returned future completes with its LSN once the
+     * record has been fsynced.
+     */
+    CompletableFuture<Long> append(byte type, int id, byte[] payload) {
+        CompletableFuture<Long> durable = new CompletableFuture<>();
+        if (closed || failure != null) {
+            durable.completeExceptionally(rejection());
+            return durable;
+        }
+        queue.add(new Pending(type, id, payload, durable));
+        // The writer may have stopped after the check above; it drains the
+        // queue only once, so whatever it missed is failed here
+        if (failure != null || (closed && !writer.isAlive())) {
+            failQueued();
+        }
+        return durable;
+    }
+
+    /**
+     * Blocking append: returns once the record is durable.
+     */
+    long appendAndSync(byte type, int id, byte[] payload) {
+        try {
+            return append(type, id, payload).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Blocking append of a batch of same-typed records; returns once all
+     * are durable. They are queued together, so they share fsyncs (up to
+     * maxBatchSize records each) rather than paying one per record.
+     */
+    void appendAllAndSync(byte type, int[] ids, byte[][] payloads) {
+        List<CompletableFuture<Long>> durable = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            durable.add(append(type, ids[i], payloads[i]));
+        }
+        try {
+            CompletableFuture.allOf(durable.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // LSN of the last fsynced record (0 if none)
+    long durableLsn() {
+        return durableLsn;
+    }
+
+    long syncCount() {
+        return syncCount;
+    }
+
+    /**
+     * Starts a new segment, so everything written so far becomes prunable
+     * as a whole. No-op if the active segment is still empty.
+     */
+    void roll() throws IOException {
+        synchronized (segmentLock) {
+            if (segment.size() > 0) {
+                segment.close();
+                segment = openSegment(nextLsn);
+            }
+        }
+    }
+
+    /**
+     * Deletes every inactive segment whose records all have LSN ≤ {@code lsn}.
+     */
+    void pruneThrough(long lsn) throws IOException {
+        synchronized (segmentLock) {
+            List<Path> segments = segments();
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                // segment i holds [first(i), first(i + 1) - 1]
+                if (firstLsn(segments.get(i + 1)) - 1 > lsn) {
+                    break;
+                }
+                Files.delete(segments.get(i));
+            }
+        }
+    }
+
+    long recordCount() {
+        return recordCount;
+    }
+
+    // True once a failed batch could not be rolled back; appends are rejected from then on
+    boolean failed() {
+        return failure != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        queue.add(SHUTDOWN);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Appends that raced with close() after the writer's final drain
+        failQueued();
+        segment.close();
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // WRITE PATH (wal-writer thread only)
+    // ═══════════════════════════════════════════════════════════
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping && failure == null) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            try {
+                queue.drainTo(batch, maxBatchSize - 1);
+                int shutdown = indexOfShutdown(batch);
+                if (shutdown >= 0) {
+                    stopping = true;
+                    queue.addAll(batch.subList(shutdown + 1, batch.size()));
+                    batch.subList(shutdown, batch.size()).clear();
+                }
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } catch (Throwable t) {
+                // writeBatch handles write failures itself; this is the loop
+                // breaking (e.g. OutOfMemoryError), so stop rather than retry
+                failure = t;
+                for (Pending pending : batch) {
+                    if (pending != SHUTDOWN) {
+                        pending.durable.completeExceptionally(t);
+                    }
+                }
+            }
+            batch.clear();
+        }
+        if (failure != null) {
+            failQueued();
+        }
+    }
+
+    private void failQueued() {
+        for (Pending pending; (pending = queue.poll()) != null; ) {
+            if (pending != SHUTDOWN) {
+                pending.durable.completeExceptionally(rejection());
+            }
+        }
+    }
+
+    private RuntimeException rejection() {
+        Throwable cause = failure;
+        return cause == null
+            ? new IllegalStateException("log is closed")
+            : new IllegalStateException("log " + directory + " failed and rejects appends", cause);
+    }
+
+    private static int indexOfShutdown(List<Pending> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i) == SHUTDOWN) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        synchronized (segmentLock) {
+            writeBatchLocked(batch);
+        }
+    }
+
+    // Never throws: every outcome completes the batch's futures
+    private void writeBatchLocked(List<Pending> batch) {
+        long firstLsn = nextLsn;
+        long startSize = -1;
+        try {
+            if (segment.size() >= segmentBytes) {
+                segment.close();
+                segment = openSegment(nextLsn);
+            }
+            startSize = segment.size();
+            int bytes = 0;
+            for (Pending pending : batch) {
+                bytes += HEADER_BYTES + BODY_FIXED_BYTES + pending.payload.length;
+            }
+            ByteBuffer buffer = batchBuffer(bytes);
+            CRC32 crc = new CRC32();
+            for (Pending pending : batch) {
+                int bodyLength = BODY_FIXED_BYTES + pending.payload.length;
+                int bodyStart = buffer.position() + HEADER_BYTES;
+                buffer.putInt(bodyLength).putInt(0)
+                      .putLong(nextLsn++).put(pending.type).putInt(pending.id).put(pending.payload);
+                crc.reset();
+                crc.update(buffer.slice(bodyStart, bodyLength));
+                buffer.putInt(bodyStart - 4, (int) crc.getValue());
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            segment.force(false);
+            durableLsn = nextLsn - 1;
+            syncCount++;
+            recordCount += batch.size();
+        } catch (Throwable t) {
+            nextLsn = firstLsn;
+            rollBack(startSize, t);
+            Throwable reported = t instanceof IOException io ? new UncheckedIOException(io) : t;
+            for (Pending pending : batch) {
+                pending.durable.completeExceptionally(reported);
+            }
+            return;
+        }
+        long lsn = firstLsn;
+        for (Pending pending : batch) {
+            pending.durable.complete(lsn++);
+        }
+    }
+
+    // Cleared buffer with room for bytes; grows the kept one in powers of two
+    private ByteBuffer batchBuffer(int bytes) {
+        if (bytes > batchBuffer.capacity()) {
+            if (bytes > MAX_KEPT_BATCH_BUFFER) {
+                return ByteBuffer.allocateDirect(bytes);
+            }
+            batchBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes - 1) << 1);
+        }
+        return batchBuffer.clear();
+    }
+
+    // Cuts a failed batch's partial bytes off the segment. Without a known
+    // good size, or if truncating fails, the log is marked failed instead
+    private void rollBack(long startSize, Throwable cause) {
+        if (startSize < 0) {
+            failure = cause;
+            return;
+        }
+        try {
+            if (segment.size() > startSize) {
+                segment.truncate(startSize);
+                segment.force(true);
+            }
+        } catch (Throwable t) {
+            t.addSuppressed(cause);
+            failure = t;
+        }
+    }
+
+    private FileChannel openSegment(long firstLsn) throws IOException {
+        return FileChannel.open(segmentPath(firstLsn),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long firstLsn) {
+        return directory.resolve(String.format("wal-%020d.log", firstLsn));
+    }
+
+    private static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("wal-".length(), name.length() - ".log".length()));
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // RECOVERY
+    // ═══════════════════════════════════════════════════════════
+
+    private void recover(long afterLsn, Replayer replayer) throws IOException {
+        List<Path> segments = segments();
+        nextLsn = afterLsn + 1;
+        Path last = null;
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            last = path;
+            long validBytes = replaySegment(path, afterLsn, replayer);
+            if (validBytes < Files.size(path)) {
+                // Anything after a torn record is not trustworthy
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                }
+                for (Path later : segments.subList(i + 1, segments.size())) {
+                    Files.delete(later);
+                }
+                break;
+            }
+        }
+        if (last == null) {
+            segment = openSegment(nextLsn);
+        } else {
+            segment = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        durableLsn = nextLsn - 1;
+    }
+
+    // Returns the byte length of the intact prefix
+    private long replaySegment(Path path, long afterLsn, Replayer replayer) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int bodyLength;
+                int checksum;
+                byte[] body;
+                try {
+                    bodyLength = in.readInt();
+                    checksum = in.readInt();
+                    if (bodyLength < BODY_FIXED_BYTES) {
+                        return valid;
+                    }
+                    body = in.readNBytes(bodyLength);
+                } catch (EOFException e) {
+                    return valid;
+                }
+                if (body.length < bodyLength) {
+                    return valid;
+                }
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    return valid;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                long lsn = buffer.getLong();
+                byte type = buffer.get();
+                int id = buffer.getInt();
+                byte[] payload = new byte[buffer.remaining()];
+                buffer.get(payload);
+                if (lsn > afterLsn) {
+                    replayer.apply(new Record(lsn, type, id, payload));
+                }
+                nextLsn = Math.max(nextLsn, lsn + 1);
+                valid += HEADER_BYTES + bodyLength;
+            }
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().matches("wal-\\d{20}\\.log"))
+                        .sorted()
+                        .toList();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.masterjava.advanced.jvm;
+
+import java.lang.management.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * CONTINUOUS GC & HEAP TELEMETRY
+ * ==============================
+ *
+ * A daemon thread samples the JVM's memory MXBeans at a fixed interval
+ * into a ring buffer, so the process can answer "how is my memory doing
+ * over the last minute?" about itself.
+ *
+ * PER SAMPLE:
+ * • heap used / committed / max, and used bytes per heap pool
+ * • GC count and GC time since the previous sample (pause-type collectors;
+ *   "Concurrent"/"Cycles" beans report concurrent work, not pauses)
+ * • allocation rate (bytes/s, from the per-thread allocation counters)
+ * • old-gen occupancy right after the latest old-gen collection, when one
+ *   happened since the previous sample (what is genuinely retained)
+ *
+ * RING BUFFER:
+ * ┌────┬────┬────┬────┬────┬────┐
+ * │ s6 │ s7 │ s2 │ s3 │ s4 │ s5 │   capacity samples; the oldest is
+ * └────┴────┴──▲─┴────┴────┴────┘   overwritten, so memory use is fixed
+ *              next write
+ *
+ * ALERTS:
+ * • onGcOverhead(threshold, window, hook): fires when the share of wall
+ *   time spent in GC pauses over the window rises above the threshold;
+ *   fires once per excursion, re-arms when it drops back below
+ * • Hooks run on the sampler thread; keep them short
+ */
+class HeapTelemetry implements AutoCloseable {
+
+    record Sample(long timeMillis, long heapUsed, long heapCommitted, long heapMax,
+                  long gcCount, long gcPauseMillis, double allocationRate, long oldGenAfterGc,
+                  long[] poolUsed) {
+
+        // Share of the interval spent in GC pauses (0..1)
+        double gcOverhead(long intervalMillis) {
+            return intervalMillis <= 0 ? 0 : Math.min(1, (double) gcPauseMillis / intervalMillis);
+        }
+    }
+
+    record Alert(double gcOverhead, double threshold, Duration window, Sample latest) { }
+
+    private final Sample[] ring;
+    private int next;
+    private int size;
+
+    private final Duration interval;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> pauseCollectors = new ArrayList<>();
+    private final List<GarbageCollectorMXBean> oldGenCollectors = new ArrayList<>();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private final MemoryPoolMXBean oldGen;
+    private final List<Consumer<Sample>> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService sampler;
+    private long lastGcCount;
+    private long lastGcMillis;
+    private long lastOldGenCollections;
+    private long lastAllocated = -1;
+    private long lastNanos;
+
+    HeapTelemetry(Duration interval, int capacity) {
+        if (interval.isNegative() || interval.isZero() || capacity < 2) {
+            throw new IllegalArgumentException("interval=" + interval + ", capacity=" + capacity);
+        }
+        this.interval = interval;
+        this.ring = new Sample[capacity];
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!gc.getName().contains("Concurrent") && !gc.getName().contains("Cycles")) {
+                pauseCollectors.add(gc);
+            }
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        this.oldGen = findOldGen(heapPools);
+        if (oldGen != null) {
+            Set<String> managers = Set.of(oldGen.getMemoryManagerNames());
+            for (GarbageCollectorMXBean gc : pauseCollectors) {
+                if (managers.contains(gc.getName())) {
+                    oldGenCollectors.add(gc);
+                }
+            }
+        }
+        lastOldGenCollections = collections(oldGenCollectors);
+        lastGcCount = collections(pauseCollectors);
+        lastGcMillis = pauseMillis(pauseCollectors);
+        lastNanos = System.nanoTime();
+    }
+
+    synchronized HeapTelemetry start() {
+        if (sampler == null) {
+            sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "heap-telemetry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = interval.toMillis();
+            sampler.scheduleAtFixedRate(() -> {
+                try {
+                    sampleNow();
+                } catch (RuntimeException e) {
+                    // Keep sampling; one bad hook must not end monitoring
+                    System.err.println("Heap telemetry sample failed: " + e);
+                }
+            }, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    // Called after every sample, on the sampling thread
+    void addListener(Consumer<Sample> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Calls {@code hook} when GC pauses take more than {@code threshold}
+     * (0..1) of wall time over the trailing {@code window}.
+     */
+    void onGcOverhead(double threshold, Duration window, Consumer<Alert> hook) {
+        boolean[] firing = {false};
+        addListener(sample -> {
+            double overhead = gcOverhead(window);
+            if (overhead > threshold && !firing[0]) {
+                firing[0] = true;
+                hook.accept(new Alert(overhead, threshold, window, sample));
+            } else if (overhead <= threshold) {
+                firing[0] = false;
+            }
+        });
+    }
+
+    // Takes one sample immediately (also what the background thread runs)
+    Sample sampleNow() {
+        Sample sample;
+        synchronized (this) {
+            long now = System.nanoTime();
+            MemoryUsage heap = memory.getHeapMemoryUsage();
+            long gcCount = collections(pauseCollectors);
+            long gcMillis = pauseMillis(pauseCollectors);
+
+            long allocated = allocatedBytes();
+            double seconds = (now - lastNanos) / 1e9;
+            double allocationRate = allocated < 0 || lastAllocated < 0 || seconds <= 0
+                ? Double.NaN : (allocated - lastAllocated) / seconds;
+
+            long oldGenCollections = collections(oldGenCollectors);
+            long oldGenAfterGc = -1;
+            if (oldGenCollections != lastOldGenCollections) {
+                MemoryUsage afterGc = oldGen.getCollectionUsage();
+                oldGenAfterGc = afterGc == null ? -1 : afterGc.getUsed();
+            }
+
+            long[] poolUsed = new long[heapPools.size()];
+            for (int i = 0; i < poolUsed.length; i++) {
+                poolUsed[i] = heapPools.get(i).getUsage().getUsed();
+            }
+            sample = new Sample(System.currentTimeMillis(), heap.getUsed(), heap.getCommitted(), heap.getMax(),
+                                gcCount - lastGcCount, gcMillis - lastGcMillis, allocationRate, oldGenAfterGc,
+                                poolUsed);
+            lastNanos = now;
+            lastGcCount = gcCount;
+            lastGcMillis = gcMillis;
+            lastAllocated = allocated;
+            lastOldGenCollections = oldGenCollections;
+
+            ring[next] = sample;
+            next = (next + 1) % ring.length;
+            size = Math.min(size + 1, ring.length);
+        }
+        for (Consumer<Sample> listener : listeners) {
+            listener.accept(sample);
+        }
+        return sample;
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // QUERIES
+    // ═══════════════════════════════════════════════════════════
+
+    synchronized Optional<Sample> latest() {
+        return size == 0 ? Optional.empty() : Optional.of(ring[(next - 1 + ring.length) % ring.length]);
+    }
+
+    // Samples from the trailing window, oldest first
+    synchronized List<Sample> samples(Duration window) {
+        long since = System.currentTimeMillis() - window.toMillis();
+        List<Sample> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Sample sample = ring[(next - size + i + ring.length) % ring.length];
+            if (sample.timeMillis() >= since) {
+                result.add(sample);
+            }
+        }
+        return result;
+    }
+
+    OptionalDouble average(Duration window, ToDoubleFunction<Sample> metric) {
+        return samples(window).stream().mapToDouble(metric).filter(v -> !Double.isNaN(v)).average();
+    }
+
+    OptionalDouble max(Duration window, ToDoubleFunction<Sample> metric) {
+        return samples(window).stream().mapToDouble(metric).filter(v -> !Double.isNaN(v)).max();
+    }
+
+    // Share of wall time spent in GC pauses over the window (0..1)
+    double gcOverhead(Duration window) {
+        List<Sample> recent = samples(window);
+        if (recent.isEmpty()) {
+            return 0;
+        }
+        long pauses = recent.stream().mapToLong(Sample::gcPauseMillis).sum();
+        long span = Math.max(recent.get(recent.size() - 1).timeMillis() - recent.get(0).timeMillis()
+                             + interval.toMillis(), 1);
+        return Math.min(1, (double) pauses / span);
+    }
+
+    List<String> poolNames() {
+        return heapPools.stream().map(MemoryPoolMXBean::getName).toList();
+    }
+
+    long poolUsed(Sample sample, String pool) {
+        int index = poolNames().indexOf(pool);
+        return index < 0 ? -1 : sample.poolUsed()[index];
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // MXBEAN HELPERS
+    // ═══════════════════════════════════════════════════════════
+
+    private static MemoryPoolMXBean findOldGen(List<MemoryPoolMXBean> heapPools) {
+        for (MemoryPoolMXBean pool : heapPools) {
+            String name = pool.getName();
+            if (name.contains("Old") || name.contains("Tenured")) {
+                return pool;
+            }
+        }
+        // Single-generation collectors (e.g. non-generational ZGC): the whole heap
+        return heapPools.stream().filter(p -> p.getCollectionUsage() != null)
+                        .max(Comparator.comparingLong(p -> p.getUsage().getMax())).orElse(null);
+    }
+
+    private static long collections(List<GarbageCollectorMXBean> collectors) {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : collectors) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long pauseMillis(List<GarbageCollectorMXBean> collectors) {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : collectors) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    // Bytes allocated by all threads so far, or -1 if the JVM cannot say
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
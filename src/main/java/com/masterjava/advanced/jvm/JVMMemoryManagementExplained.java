@@ -1,8 +1,13 @@
 package com.masterjava.advanced.jvm;
 
+import com.masterjava.advanced.Lazy;
+import com.masterjava.core.io.DirectBufferPool;
+
 import java.lang.management.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * ═══════════════════════════════════════════════════════════════════════════════════
@@ -407,6 +412,84 @@ class GarbageCollectionDemo {
         }
     }
     
+    /**
+     * Continuous version of monitorGCMetrics(): a HeapTelemetry sampler
+     * records a time series, answers queries over a window and raises an
+     * alert when GC overhead crosses a threshold.
+     *
+     * @return void
+     */
+    void demonstrateTelemetry() {
+        try (HeapTelemetry telemetry = new HeapTelemetry(java.time.Duration.ofMillis(50), 1_200).start()) {
+            telemetry.onGcOverhead(0.02, java.time.Duration.ofSeconds(1), alert -> System.out.printf(
+                "ALERT: GC pauses took %.1f%% of the last %s (threshold %.0f%%)%n",
+                alert.gcOverhead() * 100, alert.window(), alert.threshold() * 100));
+
+            // Allocation-heavy phase: short-lived garbage plus a few forced GCs
+            List<byte[]> survivors = new ArrayList<>();
+            long end = System.currentTimeMillis() + 600;
+            while (System.currentTimeMillis() < end) {
+                byte[] garbage = new byte[64 * 1024];
+                if (garbage.hashCode() % 64 == 0) {
+                    survivors.add(garbage);
+                }
+                if (survivors.size() % 200 == 199) {
+                    System.gc();
+                }
+            }
+            telemetry.sampleNow();
+
+            java.time.Duration window = java.time.Duration.ofSeconds(1);
+            System.out.println("Samples in last 1s: " + telemetry.samples(window).size());
+            System.out.println("Avg allocation rate: " + formatBytes((long) telemetry.average(window,
+                HeapTelemetry.Sample::allocationRate).orElse(0)) + "/s");
+            System.out.println("Peak heap used: " + formatBytes((long) telemetry.max(window,
+                HeapTelemetry.Sample::heapUsed).orElse(0)));
+            System.out.printf("GC overhead: %.1f%%%n", telemetry.gcOverhead(window) * 100);
+            HeapTelemetry.Sample latest = telemetry.latest().orElseThrow();
+            for (String pool : telemetry.poolNames()) {
+                System.out.println("  " + pool + ": " + formatBytes(telemetry.poolUsed(latest, pool)));
+            }
+            survivors.clear();
+        }
+    }
+
+    /**
+     * Runs the LeakyCache and ThreadLocalLeak patterns from
+     * demonstrateMemoryLeak() for real, under a LeakWatchdog that names
+     * them once old-gen occupancy after GC keeps climbing.
+     *
+     * @return void
+     */
+    void detectMemoryLeaks() {
+        List<byte[]> leakyCache = new ArrayList<>(); // stands in for LeakyCache.cache
+        try (HeapTelemetry telemetry = new HeapTelemetry(java.time.Duration.ofSeconds(1), 64)) {
+            LeakWatchdog watchdog = new LeakWatchdog(telemetry, 4, 4L << 20,
+                report -> System.out.println("LEAK SUSPECTED: " + report));
+            watchdog.trackCollection("LeakyCache.cache", leakyCache, 256 * 1024);
+            ThreadLocal<byte[]> buffers = watchdog.threadLocal("ThreadLocalLeak.tl",
+                () -> new byte[256 * 1024], buffer -> buffer.length);
+
+            List<Thread> pooled = new ArrayList<>();
+            for (int round = 0; round < 6; round++) {
+                for (int i = 0; i < 8; i++) {
+                    leakyCache.add(new byte[256 * 1024]); // added, never removed
+                }
+                Thread worker = new Thread(() -> {
+                    buffers.get(); // never remove()d
+                    LockSupport.park(); // a pool thread that stays alive
+                });
+                worker.setDaemon(true);
+                worker.start();
+                pooled.add(worker);
+                System.gc(); // the watchdog only trusts post-GC occupancy
+                telemetry.sampleNow();
+            }
+            pooled.forEach(LockSupport::unpark);
+        }
+        leakyCache.clear();
+    }
+    
     /**
      * Utility method to format bytes to human-readable format.
      *
@@ -436,58 +519,29 @@ class GarbageCollectionDemo {
 class MemoryEfficientPatterns {
     
     /**
-     * PATTERN 1: Object Pooling
-     *
-     * Reuse objects instead of creating and discarding them repeatedly.
-     * Reduces heap allocation and GC pressure.
-     *
-     * USE CASES:
-     * • Connection pooling
-     * • Thread pools
-     * • Buffer reuse
-     * • Large object recycling
+     * PATTERN 1: Object Pooling (see {@link ObjectPool}).
+     * Acquire/release through an ObjectPool and print its metrics.
      *
-     * BENEFITS:
-     * ✓ Reduced GC pause time
-     * ✓ Better cache locality
-     * ✓ Predictable memory usage
-     *
-     * DRAWBACKS:
-     * ✗ Thread safety complexity
-     * ✗ State reset overhead
-     *
-     * @return ObjectPool instance
+     * @return void
      */
-    static class ObjectPool<T> {
-        private final Queue<T> pool;
-        private final ObjectFactory<T> factory;
-        private final int maxSize;
-        
-        interface ObjectFactory<T> {
-            T create();
-            void reset(T obj);
-        }
-        
-        ObjectPool(ObjectFactory<T> factory, int maxSize) {
-            this.factory = factory;
-            this.maxSize = maxSize;
-            this.pool = new ConcurrentLinkedQueue<>();
-        }
-        
-        T acquire() {
-            T obj = pool.poll();
-            if (obj == null) {
-                obj = factory.create();
+    void demonstrateObjectPool() {
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(new ObjectPool.ObjectFactory<>() {
+            public StringBuilder create() {
+                return new StringBuilder(256);
             }
-            return obj;
-        }
-        
-        void release(T obj) {
-            if (pool.size() < maxSize) {
-                factory.reset(obj);
-                pool.offer(obj);
+
+            public void reset(StringBuilder builder) {
+                builder.setLength(0);
             }
+        }, 64);
+        for (int i = 0; i < 1_000; i++) {
+            StringBuilder builder = pool.acquire();
+            builder.append("request-").append(i);
+            pool.release(builder);
         }
+        ObjectPool.Stats stats = pool.stats();
+        System.out.printf("ObjectPool: created=%d reused=%d dropped=%d reuse=%.1f%%%n",
+            stats.created(), stats.reused(), stats.dropped(), stats.reuseRate() * 100);
     }
     
     /**
@@ -496,33 +550,63 @@ class MemoryEfficientPatterns {
      * Delay object creation until actually needed.
      * Reduces startup memory footprint and improves startup time.
      *
+     * WHY NOT HAND-ROLLED DOUBLE-CHECKED LOCKING:
+     * • Without volatile on the field, another thread can see the reference
+     *   before the constructor's writes (a half-built object)
+     * • Failure handling and background warm-up get re-invented per field
+     * • Lazy<T> does all of it once: one volatile read when initialized,
+     *   retry after failure, prewarm() on a background thread
+     *
      * @return void
      */
     static class LazyInitializationDemo {
-        private ExpensiveResource resource;
-        private final Object lock = new Object();
+        private final Lazy<ExpensiveResource> resource = Lazy.of(ExpensiveResource::new);
         
         /**
-         * Double-checked locking pattern for lazy initialization.
-         * Safe and efficient for multi-threaded access.
-         *
          * MEMORY IMPLICATION:
          * • ExpensiveResource created only on first access
          * • Saved if never accessed
-         * • Slight overhead: null check and synchronization
+         * • Slight overhead: one volatile read per access
          *
          * @return ExpensiveResource instance
          */
         ExpensiveResource getResource() {
-            if (resource == null) {
-                synchronized (lock) {
-                    if (resource == null) {
-                        resource = new ExpensiveResource();
-                    }
-                }
+            return resource.get();
+        }
+
+        // Start building the resource now, off the caller's thread
+        CompletableFuture<ExpensiveResource> prewarm() {
+            return resource.prewarm();
+        }
+    }
+
+    /**
+     * Lazy values: background prewarm at startup, and retry after failure.
+     *
+     * @return void
+     */
+    void demonstrateLazyInitialization() {
+        LazyInitializationDemo demo = new LazyInitializationDemo();
+        CompletableFuture<ExpensiveResource> warming = demo.prewarm(); // returns at once
+        // ... rest of startup runs here while the resource is built ...
+        warming.join();
+        long began = System.nanoTime();
+        demo.getResource();
+        System.out.println("Lazy get() after prewarm: " + (System.nanoTime() - began) + " ns (no lock taken)");
+
+        int[] calls = {0};
+        Lazy<String> flaky = Lazy.of(() -> {
+            if (++calls[0] == 1) {
+                throw new IllegalStateException("config server unavailable");
             }
-            return resource;
+            return "config v" + calls[0];
+        });
+        try {
+            flaky.get();
+        } catch (IllegalStateException e) {
+            System.out.println("Lazy first attempt failed: " + e.getMessage());
         }
+        System.out.println("Lazy retry: " + flaky.get() + " (attempts=" + flaky.attempts() + ")");
     }
     
     /**
@@ -678,6 +762,59 @@ class DirectMemoryDemo {
         // No explicit cleanup needed with ByteBuffer
         // But Unsafe allocated memory requires manual cleanup
     }
+
+    /**
+     * Explicit allocate/free of direct buffers through a DirectBufferPool.
+     *
+     * POOL vs allocateDirect:
+     * ✓ Off-heap chunks allocated once; buffers carved out by size class
+     * ✓ Freed deterministically on close(), not whenever the GC runs
+     * ✓ Usage/fragmentation report and leak detection
+     * ✗ Buffers must not be used after close()
+     *
+     * @return void
+     */
+    void demonstrateBufferPool() {
+        DirectBufferPool pool = new DirectBufferPool();
+        int rounds = 10_000;
+        long directMicros = 0;
+        long pooledMicros = 0;
+        for (int pass = 0; pass < 2; pass++) { // first pass warms up the JIT
+            long began = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                java.nio.ByteBuffer.allocateDirect(64 * 1024).putInt(i);
+            }
+            directMicros = (System.nanoTime() - began) / 1_000;
+
+            began = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                try (DirectBufferPool.Lease lease = pool.allocate(64 * 1024)) {
+                    lease.buffer().putInt(i);
+                }
+            }
+            pooledMicros = (System.nanoTime() - began) / 1_000;
+        }
+        System.out.println("64 KB buffer x" + rounds + ": allocateDirect " + directMicros
+            + " µs, pooled " + pooledMicros + " µs");
+
+        // Mixed sizes held at once, then a forgotten lease
+        List<DirectBufferPool.Lease> held = new ArrayList<>();
+        for (int size : new int[] {3_000, 10_000, 100_000, 5_000}) {
+            held.add(pool.allocate(size));
+        }
+        System.out.println("In use:   " + pool.usage());
+        held.forEach(DirectBufferPool.Lease::close);
+        pool.allocate(8_192); // never closed
+        for (int i = 0; i < 5 && pool.usage().leaks() == 0; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.out.println("Released: " + pool.usage());
+    }
 }
 
 // ═════════════════════════════════════════════════════════════════════════════════════
@@ -754,11 +891,15 @@ public class JVMMemoryManagementExplained {
         GarbageCollectionDemo gcDemo = new GarbageCollectionDemo();
         gcDemo.demonstrateGarbageCollection();
         gcDemo.monitorGCMetrics();
+        gcDemo.demonstrateTelemetry();
+        gcDemo.detectMemoryLeaks();
         
         // Section 3: Memory Efficient Patterns
         System.out.println("\n▶ SECTION 3: MEMORY EFFICIENT PATTERNS");
         System.out.println("═".repeat(50));
         MemoryEfficientPatterns patterns = new MemoryEfficientPatterns();
+        patterns.demonstrateObjectPool();
+        patterns.demonstrateLazyInitialization();
         patterns.demonstrateStringInterning();
         patterns.compareDataStructures();
         
@@ -767,6 +908,7 @@ public class JVMMemoryManagementExplained {
         System.out.println("═".repeat(50));
         DirectMemoryDemo directDemo = new DirectMemoryDemo();
         directDemo.demonstrateDirectBuffers();
+        directDemo.demonstrateBufferPool();
         
         System.out.println("\n✓ Demonstrations complete!");
     }
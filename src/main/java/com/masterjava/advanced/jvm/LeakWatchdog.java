@@ -0,0 +1,186 @@
+package com.masterjava.advanced.jvm;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * IN-PROCESS MEMORY LEAK WATCHDOG
+ * ===============================
+ *
+ * Watches what survives old-gen collections and names the likely culprit
+ * before the process runs out of memory.
+ *
+ * DETECTION (fed by {@link HeapTelemetry} samples):
+ * • Live data = old-gen occupancy right AFTER a collection (before a GC
+ *   the old gen also holds garbage, so plain heap-used is just noise)
+ * • Leak suspected when the last N post-GC readings each grew and the
+ *   total growth is at least minGrowthBytes; reported once per growth
+ *   streak, re-armed by any reading that does not grow
+ *
+ *   post-GC old gen:  40M  41M  45M  52M  60M  71M   ← monotonic: report
+ *                     40M  55M  38M  41M  ...         ← sawtooth: healthy
+ *
+ * ATTRIBUTION (the classic leak patterns, registered by the owner):
+ * • trackCollection(): static caches / listener lists (LeakyCache)
+ * • threadLocal():     per-thread values never remove()d (ThreadLocalLeak)
+ * • Targets are held through WeakReferences, so tracking never keeps
+ *   anything alive; collected targets drop out of the report
+ * • Sizes are estimates (elements × bytes per element, or a caller's
+ *   sizer): a full retained-size walk needs a heap dump, but the suspect
+ *   whose estimate grows with the old gen is usually the one
+ */
+class LeakWatchdog {
+
+    record Suspect(String name, long retainedBytes, long growthBytes) { }
+
+    record LeakReport(List<Long> oldGenAfterGc, long growthBytes, List<Suspect> suspects) {
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder(String.format(
+                "Old gen grew %d KB across %d collections: %s", growthBytes >> 10, oldGenAfterGc.size(),
+                oldGenAfterGc.stream().map(bytes -> (bytes >> 10) + "K").toList()));
+            for (Suspect suspect : suspects) {
+                report.append(String.format("%n  %-28s retained ≈ %,d KB (+%,d KB)",
+                    suspect.name(), suspect.retainedBytes() >> 10, suspect.growthBytes() >> 10));
+            }
+            return report.toString();
+        }
+    }
+
+    private final int streak;
+    private final long minGrowthBytes;
+    private final Consumer<LeakReport> onLeak;
+    private final Deque<Long> readings = new ArrayDeque<>();
+    private final List<Tracked<?>> tracked = new ArrayList<>();
+    private boolean reported;
+
+    /**
+     * @param streak         consecutive growing post-GC readings that count
+     *                       as a leak (the first reading is the baseline)
+     * @param minGrowthBytes growth over the streak below which it is noise
+     */
+    LeakWatchdog(HeapTelemetry telemetry, int streak, long minGrowthBytes, Consumer<LeakReport> onLeak) {
+        if (streak < 2) {
+            throw new IllegalArgumentException("streak must be at least 2: " + streak);
+        }
+        this.streak = streak;
+        this.minGrowthBytes = minGrowthBytes;
+        this.onLeak = onLeak;
+        telemetry.addListener(sample -> {
+            if (sample.oldGenAfterGc() >= 0) {
+                onCollection(sample.oldGenAfterGc());
+            }
+        });
+    }
+
+    void trackCollection(String name, Collection<?> collection, long bytesPerElement) {
+        track(name, collection, c -> c.size() * bytesPerElement);
+    }
+
+    void trackMap(String name, Map<?, ?> map, long bytesPerEntry) {
+        track(name, map, m -> m.size() * bytesPerEntry);
+    }
+
+    <T> void track(String name, T target, ToLongFunction<? super T> sizer) {
+        synchronized (tracked) {
+            tracked.add(new Tracked<>(name, target, sizer));
+        }
+    }
+
+    /**
+     * A ThreadLocal whose values are counted: every thread that still
+     * holds a value (because nobody called remove()) shows up in the
+     * report. Values are tracked weakly, like everything else here.
+     */
+    <T> ThreadLocal<T> threadLocal(String name, Supplier<? extends T> initial, ToLongFunction<? super T> sizer) {
+        Map<Thread, WeakReference<T>> values = Collections.synchronizedMap(new WeakHashMap<>());
+        track(name, values, holders -> {
+            long total = 0;
+            synchronized (holders) {
+                for (WeakReference<T> value : holders.values()) {
+                    T held = value.get();
+                    total += held == null ? 0 : sizer.applyAsLong(held);
+                }
+            }
+            return total;
+        });
+        return new ThreadLocal<>() {
+            @Override
+            protected T initialValue() {
+                T value = initial.get();
+                values.put(Thread.currentThread(), new WeakReference<>(value));
+                return value;
+            }
+
+            @Override
+            public void set(T value) {
+                super.set(value);
+                values.put(Thread.currentThread(), new WeakReference<>(value));
+            }
+
+            @Override
+            public void remove() {
+                super.remove();
+                values.remove(Thread.currentThread());
+            }
+        };
+    }
+
+    // Current estimates, biggest growth first
+    List<Suspect> suspects() {
+        List<Suspect> suspects = new ArrayList<>();
+        synchronized (tracked) {
+            Iterator<Tracked<?>> it = tracked.iterator();
+            while (it.hasNext()) {
+                Suspect suspect = it.next().measure();
+                if (suspect == null) {
+                    it.remove(); // target was collected: not a leak
+                } else {
+                    suspects.add(suspect);
+                }
+            }
+        }
+        suspects.sort(Comparator.comparingLong(Suspect::growthBytes).reversed());
+        return suspects;
+    }
+
+    private synchronized void onCollection(long oldGenBytes) {
+        if (!readings.isEmpty() && oldGenBytes <= readings.peekLast()) {
+            readings.clear(); // streak broken: the GC got memory back
+            reported = false;
+        }
+        readings.addLast(oldGenBytes);
+        if (readings.size() > streak) {
+            readings.removeFirst();
+        }
+        long growth = readings.peekLast() - readings.peekFirst();
+        if (!reported && readings.size() == streak && growth >= minGrowthBytes) {
+            reported = true;
+            onLeak.accept(new LeakReport(List.copyOf(readings), growth, suspects()));
+        }
+    }
+
+    private static final class Tracked<T> {
+        final String name;
+        final WeakReference<T> target;
+        final ToLongFunction<? super T> sizer;
+        final long baseline;
+
+        Tracked(String name, T target, ToLongFunction<? super T> sizer) {
+            this.name = name;
+            this.target = new WeakReference<>(target);
+            this.sizer = sizer;
+            this.baseline = sizer.applyAsLong(target);
+        }
+
+        Suspect measure() {
+            T current = target.get();
+            if (current == null) {
+                return null;
+            }
+            long bytes = sizer.applyAsLong(current);
+            return new Suspect(name, bytes, bytes - baseline);
+        }
+    }
+}
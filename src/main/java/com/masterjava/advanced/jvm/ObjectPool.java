@@ -0,0 +1,303 @@
+package com.masterjava.advanced.jvm;
+
+import java.lang.ref.Cleaner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+
+/**
+ * OBJECT POOL (PATTERN 1 of {@link MemoryEfficientPatterns})
+ * ==========================================================
+ *
+ * Reuse objects instead of creating and discarding them repeatedly.
+ * Reduces heap allocation and GC pressure.
+ *
+ * USE CASES:
+ * • Connection pooling
+ * • Thread pools
+ * • Buffer reuse
+ * • Large object recycling
+ *
+ * BENEFITS:
+ * ✓ Reduced GC pause time
+ * ✓ Better cache locality
+ * ✓ Predictable memory usage
+ *
+ * DRAWBACKS:
+ * ✗ Thread safety complexity
+ * ✗ State reset overhead
+ *
+ * WHY NOT ONE SHARED QUEUE:
+ * • ConcurrentLinkedQueue.size() walks the whole queue (O(n)) and is
+ *   stale by the time it returns: two threads both see size < maxSize,
+ *   both offer, and the pool exceeds its bound
+ * • Every acquire/release CASes the same head/tail: under many threads
+ *   the pool becomes slower than just allocating
+ *
+ * MAGAZINE DESIGN (Bonwick & Adams, "Magazines and Vmem"):
+ * ┌──────────────┐  ┌──────────────┐  ┌──────────────┐
+ * │ thread 1     │  │ thread 2     │  │ thread N     │  per-thread magazine:
+ * │ [o|o|o| | ]  │  │ [o| | | | ]  │  │ [o|o|o|o|o]  │  plain array, no atomics
+ * └──────┬───────┘  └──────┬───────┘  └──────┬───────┘
+ *        │ full: push       │ empty: pop      │
+ *        ▼                  ▼                 ▼
+ * ┌─────────────────────────────────────────────────┐
+ * │ DEPOT: lock-free stack of FULL magazines        │  touched once per
+ * └─────────────────────────────────────────────────┘  magazineSize ops
+ *
+ * STRICT CAPACITY:
+ * • A magazine reserves its slots from a shared budget (maxSize) when
+ *   created, and the reservation travels with it through the depot
+ * • Sum of reservations ≤ maxSize, so pooled objects ≤ maxSize, always
+ * • No budget left → the released object is dropped (counted in stats)
+ * • A thread that exits without drainThreadCache() still gives its
+ *   magazine's reservation back: a Cleaner watching the Thread object
+ *   returns it once the thread is gone (its cached objects go to the GC)
+ *
+ * DISCARDING A POOL:
+ * • A thread's ThreadLocal entry and its Cleaner registration outlive the
+ *   pool, so left alone every long-lived thread would keep its magazine
+ *   (and the objects in it) reachable after the pool is dropped
+ * • The pool therefore tracks its slots, and emptying them is itself a
+ *   Cleaner action on the pool: run by close(), or by the GC once the
+ *   pool is unreachable. What is left per thread is an empty Slot
+ *
+ * @param <T> pooled object type
+ */
+class ObjectPool<T> {
+    static final int DEFAULT_MAGAZINE_SIZE = 16;
+
+    // Capacity 0: never accepts an object, never enters the depot
+    private static final Magazine EMPTY = new Magazine(0);
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final ObjectFactory<T> factory;
+    private final int maxSize;
+    private final int magazineSize;
+    private final AtomicInteger budget;
+    private final AtomicReference<DepotNode> depot = new AtomicReference<>();
+    private final ThreadLocal<Slot> loaded = ThreadLocal.withInitial(this::newSlot);
+    // Slots of live threads; reachable from the pool, never the other way round
+    private final Set<Slot> slots = ConcurrentHashMap.newKeySet();
+    private final Cleaner.Cleanable unloadAll;
+    private volatile boolean closed;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder depotExchanges = new LongAdder();
+    
+    interface ObjectFactory<T> {
+        T create();
+        void reset(T obj);
+    }
+
+    record Stats(long created, long reused, long dropped, long depotExchanges, int reservedSlots) {
+        // Fraction of acquires served from the pool
+        double reuseRate() {
+            long acquires = created + reused;
+            return acquires == 0 ? 0 : (double) reused / acquires;
+        }
+    }
+    
+    ObjectPool(ObjectFactory<T> factory, int maxSize) {
+        this(factory, maxSize, DEFAULT_MAGAZINE_SIZE);
+    }
+
+    ObjectPool(ObjectFactory<T> factory, int maxSize, int magazineSize) {
+        if (maxSize < 0 || magazineSize < 1) {
+            throw new IllegalArgumentException("maxSize=" + maxSize + ", magazineSize=" + magazineSize);
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.magazineSize = magazineSize;
+        this.budget = new AtomicInteger(maxSize);
+        this.unloadAll = CLEANER.register(this, new UnloadAll(slots));
+    }
+    
+    @SuppressWarnings("unchecked")
+    T acquire() {
+        Slot slot = loaded.get();
+        Magazine magazine = slot.magazine;
+        if (magazine.size == 0) {
+            magazine = refill(slot, magazine);
+        }
+        if (magazine.size == 0) {
+            created.increment();
+            return factory.create();
+        }
+        T obj = (T) magazine.items[--magazine.size];
+        magazine.items[magazine.size] = null;
+        reused.increment();
+        return obj;
+    }
+    
+    void release(T obj) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        Slot slot = loaded.get();
+        Magazine magazine = slot.magazine;
+        if (magazine.size == magazine.items.length) {
+            magazine = exchangeFull(slot, magazine);
+            if (magazine.items.length == 0) {
+                dropped.increment();
+                return;
+            }
+        }
+        factory.reset(obj);
+        magazine.items[magazine.size++] = obj;
+    }
+
+    /**
+     * Hands this thread's cached objects to the depot so other threads can
+     * reuse them. Call before a pooling thread exits; without it the
+     * reservation only comes back once the GC has noticed the dead thread,
+     * and the cached objects are lost to the pool.
+     */
+    void drainThreadCache() {
+        Slot slot = loaded.get();
+        Magazine magazine = slot.magazine;
+        if (magazine.size > 0) {
+            pushDepot(magazine); // its reservation travels with it
+            slot.magazine = EMPTY;
+        }
+        loaded.remove();
+        slot.cleanable.clean(); // returns what is still reserved, exactly once
+    }
+
+    /**
+     * Drops every cached object: the depot and each thread's magazine.
+     * Call once no thread is using the pool any more; later acquires
+     * create objects and later releases drop them. Without close() the
+     * same happens after the GC finds the pool unreachable.
+     */
+    void close() {
+        closed = true;
+        unloadAll.clean();
+        for (DepotNode node = depot.getAndSet(null); node != null; node = node.next()) {
+            budget.addAndGet(node.magazine().items.length);
+        }
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    Stats stats() {
+        return new Stats(created.sum(), reused.sum(), dropped.sum(), depotExchanges.sum(),
+                         maxSize - budget.get());
+    }
+
+    private Slot newSlot() {
+        Slot slot = new Slot(budget, slots);
+        slot.cleanable = CLEANER.register(Thread.currentThread(), slot);
+        slots.add(slot);
+        return slot;
+    }
+
+    // Local magazine is empty: swap it for a full one from the depot
+    private Magazine refill(Slot slot, Magazine empty) {
+        Magazine full = popDepot();
+        // Either way the empty magazine's reservation goes back: it would
+        // otherwise sit idle while other threads drop objects
+        budget.addAndGet(empty.items.length);
+        Magazine next = full != null ? full : EMPTY;
+        slot.magazine = next;
+        return next;
+    }
+
+    // Local magazine is full: park it in the depot, start a fresh one
+    private Magazine exchangeFull(Slot slot, Magazine full) {
+        if (full.size > 0) {
+            pushDepot(full);
+        }
+        Magazine fresh = reserveMagazine();
+        slot.magazine = fresh;
+        return fresh;
+    }
+
+    private Magazine reserveMagazine() {
+        while (true) {
+            int free = budget.get();
+            int take = Math.min(free, magazineSize);
+            if (take == 0) {
+                return EMPTY;
+            }
+            if (budget.compareAndSet(free, free - take)) {
+                return new Magazine(take);
+            }
+        }
+    }
+
+    // Treiber stack. A fresh node per push: magazines are re-pushed, and
+    // reusing their nodes would expose pop() to ABA
+    private void pushDepot(Magazine magazine) {
+        depotExchanges.increment();
+        DepotNode head;
+        DepotNode node;
+        do {
+            head = depot.get();
+            node = new DepotNode(magazine, head);
+        } while (!depot.compareAndSet(head, node));
+    }
+
+    private Magazine popDepot() {
+        DepotNode head;
+        do {
+            head = depot.get();
+            if (head == null) {
+                return null;
+            }
+        } while (!depot.compareAndSet(head, head.next()));
+        depotExchanges.increment();
+        return head.magazine();
+    }
+
+    // A thread's loaded magazine. As the cleanup action it must not reach
+    // the Thread, or the thread could never become unreachable; the thread
+    // holds it past the pool's lifetime, so it must not reach the pool either
+    private static final class Slot implements Runnable {
+        private final AtomicInteger budget;
+        private final Set<Slot> slots;
+        // Volatile: the Cleaner's thread reads it after the owner has died
+        volatile Magazine magazine = EMPTY;
+        Cleaner.Cleanable cleanable;
+
+        Slot(AtomicInteger budget, Set<Slot> slots) {
+            this.budget = budget;
+            this.slots = slots;
+        }
+
+        @Override
+        public void run() {
+            budget.addAndGet(magazine.items.length);
+            slots.remove(this);
+        }
+    }
+
+    // Pool closed or unreachable: return every slot's reservation and let
+    // go of its objects. Must not reach the pool, or it could never run
+    private record UnloadAll(Set<Slot> slots) implements Runnable {
+        @Override
+        public void run() {
+            for (Slot slot : slots) {
+                slot.cleanable.clean();
+                slot.magazine = EMPTY;
+            }
+        }
+    }
+
+    // Owned by one thread at a time (its Slot, or the depot)
+    private static final class Magazine {
+        final Object[] items;
+        int size;
+
+        Magazine(int capacity) {
+            items = new Object[capacity];
+        }
+    }
+
+    private record DepotNode(Magazine magazine, DepotNode next) { }
+}
@@ -0,0 +1,173 @@
+package com.masterjava.advanced.jvm;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * OBJECT POOL HARNESS: MAGAZINES vs ONE QUEUE vs PLAIN ALLOCATION
+ * ===============================================================
+ *
+ * Each thread repeatedly takes a burst of 4 KB buffers, touches them and
+ * gives them back. Bursts are larger than a magazine, so the depot is
+ * exercised, and threads × burst exceeds the pool size, so the capacity
+ * bound is exercised too.
+ *
+ * CONTENDERS:
+ * • allocate  - new Buffer() every time; the GC does the recycling
+ * • queue     - the classic ConcurrentLinkedQueue pool with a size() check
+ * • magazines - {@link ObjectPool}
+ *
+ * WHAT TO LOOK FOR:
+ * • queue throughput collapses as threads are added (one contended head)
+ * • queue overshoot: idle objects left above maxSize by the racy check
+ * • magazines: reuse rate, young GCs avoided, pooled objects ≤ maxSize
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.advanced.jvm.ObjectPoolBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class ObjectPoolBenchmark {
+    private static final long RUN_MILLIS = 1_000;
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+    private static final int BURST = 32;
+    private static final int MAX_POOLED = 1_024;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   OBJECT POOL: MAGAZINES vs ONE QUEUE vs ALLOCATION    ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.println("  Cores: " + Runtime.getRuntime().availableProcessors()
+            + ", burst: " + BURST + ", maxSize: " + MAX_POOLED);
+        System.out.printf("  %-8s %14s %14s %15s %10s %10s %10s%n", "Threads",
+            "alloc (Mops/s)", "queue (Mops/s)", "magaz. (Mops/s)", "overshoot", "reuse", "GCs a/m");
+
+        for (int threads : THREAD_COUNTS) {
+            Result allocate = run(threads, Buffer::new, buffer -> { }, () -> { });
+
+            QueuePool queue = new QueuePool(MAX_POOLED);
+            Result queued = run(threads, queue::acquire, queue::release, () -> { });
+
+            ObjectPool<Buffer> pool = new ObjectPool<>(Buffer.FACTORY, MAX_POOLED);
+            Result magazines = run(threads, pool::acquire, pool::release, pool::drainThreadCache);
+            ObjectPool.Stats stats = pool.stats();
+            if (stats.reservedSlots() > pool.maxSize()) {
+                throw new AssertionError("Pool exceeded maxSize: " + stats);
+            }
+            pool.close(); // don't carry its buffers into the next round
+
+            System.out.printf("  %-8d %14.2f %14.2f %15.2f %10d %9.1f%% %5d/%-4d%n", threads,
+                allocate.mops, queued.mops, magazines.mops,
+                Math.max(0, queue.pool.size() - MAX_POOLED), stats.reuseRate() * 100,
+                allocate.collections, magazines.collections);
+        }
+    }
+
+    private record Result(double mops, long collections) { }
+
+    private interface Acquire {
+        Buffer get();
+    }
+
+    private interface Release {
+        void accept(Buffer buffer);
+    }
+
+    // threadExit runs on each worker as it finishes (pools with per-thread caches flush them)
+    private static Result run(int threads, Acquire acquire, Release release, Runnable threadExit)
+            throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder operations = new LongAdder();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                Buffer[] held = new Buffer[BURST];
+                long done = 0;
+                while (!stop.get()) {
+                    for (int i = 0; i < BURST; i++) {
+                        held[i] = acquire.get();
+                        held[i].write((byte) i);
+                    }
+                    for (int i = 0; i < BURST; i++) {
+                        release.accept(held[i]);
+                        held[i] = null;
+                    }
+                    done += BURST;
+                }
+                threadExit.run();
+                operations.add(done);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long collectionsBefore = collections();
+        long began = System.nanoTime();
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        return new Result(operations.sum() / seconds / 1e6, collections() - collectionsBefore);
+    }
+
+    private static long collections() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    // A pooled resource worth reusing: 4 KB payload, cheap reset
+    private static final class Buffer {
+        static final ObjectPool.ObjectFactory<Buffer> FACTORY =
+            new ObjectPool.ObjectFactory<>() {
+                public Buffer create() {
+                    return new Buffer();
+                }
+
+                public void reset(Buffer buffer) {
+                    buffer.length = 0;
+                }
+            };
+
+        final byte[] data = new byte[4096];
+        int length;
+
+        void write(byte value) {
+            data[length++] = value;
+        }
+    }
+
+    // The shared-queue design the magazine pool replaced
+    private static final class QueuePool {
+        final Queue<Buffer> pool = new ConcurrentLinkedQueue<>();
+        final int maxSize;
+
+        QueuePool(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        Buffer acquire() {
+            Buffer buffer = pool.poll();
+            return buffer != null ? buffer : new Buffer();
+        }
+
+        void release(Buffer buffer) {
+            if (pool.size() < maxSize) {
+                Buffer.FACTORY.reset(buffer);
+                pool.offer(buffer);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.masterjava.advanced.patterns;
 
+import com.masterjava.advanced.Lazy;
+
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -185,7 +187,7 @@ public class DesignPatternsDemo {
         System.out.println("  - Thread pools");
         
         System.out.println("\n  ⚠️  Considerations:");
-        System.out.println("  - Thread safety (use enum or double-check locking)");
+        System.out.println("  - Thread safety (use enum, or a Lazy<T> instead of double-checked locking)");
         System.out.println("  - Reflection can break singleton");
         System.out.println("  - Testing difficulties");
     }
@@ -485,22 +487,16 @@ public class DesignPatternsDemo {
 
 // 1. SINGLETON PATTERN
 class DatabaseConnection {
-    private static volatile DatabaseConnection instance;
+    // Thread-safe lazy initialization (replaces hand-written double-checked
+    // locking): created on first getInstance(), one volatile read after that
+    private static final Lazy<DatabaseConnection> INSTANCE = Lazy.of(DatabaseConnection::new);
     
     private DatabaseConnection() {
         // Private constructor
     }
     
-    // Thread-safe lazy initialization
     public static DatabaseConnection getInstance() {
-        if (instance == null) {
-            synchronized (DatabaseConnection.class) {
-                if (instance == null) {
-                    instance = new DatabaseConnection();
-                }
-            }
-        }
-        return instance;
+        return INSTANCE.get();
     }
     
     public void connect() {
@@ -0,0 +1,15 @@
+package com.masterjava.core.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AtomicCounter {
+    private AtomicInteger count = new AtomicInteger(0);
+    
+    public void increment() {
+        count.incrementAndGet(); // Atomic operation
+    }
+    
+    public int getCount() {
+        return count.get();
+    }
+}
@@ -0,0 +1,124 @@
+package com.masterjava.core.concurrency;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * COUNTER CONTENTION HARNESS
+ * ==========================
+ *
+ * N threads increment one shared counter as fast as they can.
+ *
+ * CONTENDERS:
+ * • UnsafeCounter      - count++ on a plain int: fast but WRONG (lost updates)
+ * • SafeCounter        - synchronized increment
+ * • AtomicCounter      - one AtomicInteger (CAS on a single cache line)
+ * • StripedLongCounter - padded cells, one per contending thread group
+ * • LongAdder          - the JDK's version of the same idea, for reference
+ *
+ * WHAT TO LOOK FOR:
+ * • Safe/Atomic throughput flat or falling as threads are added; striped
+ *   throughput rising with the core count
+ * • "lost": increments performed minus the final count (only Unsafe > 0)
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.core.concurrency.CounterBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class CounterBenchmark {
+    private static final long RUN_MILLIS = 300;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    private interface Counter {
+        void increment();
+        long count();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   COUNTERS UNDER CONTENTION (Mops/s, 1-64 threads)     ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.println("  Cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("  %-8s %12s %10s %10s %10s %10s %12s%n",
+            "Threads", "unsafe", "safe", "atomic", "striped", "LongAdder", "unsafe lost");
+
+        for (int threads : THREAD_COUNTS) {
+            UnsafeCounter unsafeCounter = new UnsafeCounter();
+            long[] unsafe = run(threads, new Counter() {
+                public void increment() { unsafeCounter.increment(); }
+                public long count() { return unsafeCounter.getCount(); }
+            });
+            SafeCounter safeCounter = new SafeCounter();
+            long[] safe = run(threads, new Counter() {
+                public void increment() { safeCounter.increment(); }
+                public long count() { return safeCounter.getCount(); }
+            });
+            AtomicCounter atomicCounter = new AtomicCounter();
+            long[] atomic = run(threads, new Counter() {
+                public void increment() { atomicCounter.increment(); }
+                public long count() { return atomicCounter.getCount(); }
+            });
+            StripedLongCounter stripedCounter = new StripedLongCounter();
+            long[] striped = run(threads, new Counter() {
+                public void increment() { stripedCounter.increment(); }
+                public long count() { return stripedCounter.sum(); }
+            });
+            LongAdder adder = new LongAdder();
+            long[] jdk = run(threads, new Counter() {
+                public void increment() { adder.increment(); }
+                public long count() { return adder.sum(); }
+            });
+
+            for (long[] result : List.of(safe, atomic, striped, jdk)) {
+                if (result[1] != 0) {
+                    throw new AssertionError("Thread-safe counter lost " + result[1] + " increments");
+                }
+            }
+            System.out.printf("  %-8d %12.1f %10.1f %10.1f %10.1f %10.1f %12d%n", threads,
+                mops(unsafe), mops(safe), mops(atomic), mops(striped), mops(jdk), unsafe[1]);
+        }
+    }
+
+    private static double mops(long[] result) {
+        return result[0] / (RUN_MILLIS * 1e3);
+    }
+
+    // {increments performed, increments lost}; int counters wrap, so the
+    // comparison is done modulo 2^32
+    private static long[] run(int threads, Counter counter) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder performed = new LongAdder();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                while (!stop.get()) {
+                    for (int i = 0; i < 256; i++) {
+                        counter.increment();
+                    }
+                    done += 256;
+                }
+                performed.add(done);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long total = performed.sum();
+        long lost = (int) (total - counter.count());
+        return new long[] {total, lost};
+    }
+}
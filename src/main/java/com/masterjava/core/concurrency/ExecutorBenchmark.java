@@ -0,0 +1,189 @@
+package com.masterjava.core.concurrency;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * EXECUTORS UNDER I/O-BOUND LOAD: PLATFORM POOLS vs VIRTUAL THREADS
+ * =================================================================
+ *
+ * N tasks are submitted at once; each blocks the way request handlers do.
+ *
+ * WORKLOADS:
+ * • SLEEP     - Thread.sleep(10 ms): a remote call / DB round trip
+ * • FILE_READ - read a 16 KB file (page cache) then sleep 1 ms
+ *
+ * EXECUTORS:
+ * • single     - newSingleThreadExecutor
+ * • fixed(200) - newFixedThreadPool(200), a typical servlet-container size
+ * • cached     - newCachedThreadPool: one OS thread per concurrent task
+ * • virtual    - newVirtualThreadPerTaskExecutor
+ * • scope      - {@link TaskScope}: one structured scope forking every task
+ *
+ * REPORTED:
+ * • K tasks/s, p99 submit→done latency, peak heap growth, peak live
+ *   platform (OS) threads
+ * • Runs whose ideal duration (tasks × blocking time / threads) exceeds
+ *   the budget are skipped and shown as "skip"; cached is capped at
+ *   10,000 tasks (beyond that it is a thread-exhaustion test, not a
+ *   benchmark)
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.core.concurrency.ExecutorBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class ExecutorBenchmark {
+    private static final int[] TASK_COUNTS = {10_000, 100_000, 1_000_000};
+    private static final long BUDGET_MILLIS = 15_000;
+    private static final int FIXED_THREADS = 200;
+    private static final int CACHED_LIMIT = 10_000;
+
+    private enum Workload {
+        SLEEP(10), FILE_READ(1);
+
+        final long sleepMillis;
+
+        Workload(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+        }
+    }
+
+    private enum Mode {
+        SINGLE("single", 1), FIXED("fixed(200)", FIXED_THREADS), CACHED("cached", Integer.MAX_VALUE),
+        VIRTUAL("virtual", Integer.MAX_VALUE), SCOPE("scope", Integer.MAX_VALUE);
+
+        final String label;
+        final int threads;
+
+        Mode(String label, int threads) {
+            this.label = label;
+            this.threads = threads;
+        }
+    }
+
+    private record Result(double tasksPerSecond, double p99Millis, long peakHeapBytes, int peakThreads) { }
+
+    private static Path file;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   EXECUTORS: PLATFORM POOLS vs VIRTUAL THREADS         ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.println("  Cores: " + Runtime.getRuntime().availableProcessors()
+            + ", max heap: " + (Runtime.getRuntime().maxMemory() >> 20) + " MB");
+        file = Files.createTempFile("executor-bench", ".dat");
+        Files.write(file, new byte[16 * 1024]);
+        try {
+            run(Workload.SLEEP, Mode.VIRTUAL, 10_000); // warm-up
+            for (Workload workload : Workload.values()) {
+                System.out.printf("%n  %s%n", workload);
+                System.out.printf("  %-10s %-11s %10s %10s %10s %10s%n",
+                    "Tasks", "Executor", "K tasks/s", "p99 ms", "heap MB", "OS thr");
+                for (int tasks : TASK_COUNTS) {
+                    for (Mode mode : Mode.values()) {
+                        long idealMillis = tasks * workload.sleepMillis / Math.min(mode.threads, tasks);
+                        if (idealMillis > BUDGET_MILLIS || (mode == Mode.CACHED && tasks > CACHED_LIMIT)) {
+                            System.out.printf("  %-10s %-11s %10s%n", String.format("%,d", tasks), mode.label,
+                                "skip");
+                            continue;
+                        }
+                        Result r = run(workload, mode, tasks);
+                        System.out.printf("  %-10s %-11s %10.1f %10.1f %10d %10d%n", String.format("%,d", tasks),
+                            mode.label, r.tasksPerSecond() / 1e3, r.p99Millis(), r.peakHeapBytes() >> 20,
+                            r.peakThreads());
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Result run(Workload workload, Mode mode, int tasks) throws Exception {
+        System.gc();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long baseline = usedHeap();
+        AtomicLong peakHeap = new AtomicLong(baseline);
+        AtomicBoolean sampling = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (sampling.get()) {
+                peakHeap.accumulateAndGet(usedHeap(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long[] latencies = new long[tasks];
+        long began = System.nanoTime();
+        if (mode == Mode.SCOPE) {
+            try (TaskScope scope = TaskScope.open()) {
+                for (int i = 0; i < tasks; i++) {
+                    int index = i;
+                    long submitted = System.nanoTime();
+                    scope.fork(() -> {
+                        work(workload);
+                        latencies[index] = System.nanoTime() - submitted;
+                        return null;
+                    });
+                }
+                scope.join().throwIfFailed();
+            }
+        } else {
+            try (ExecutorService executor = executor(mode)) {
+                for (int i = 0; i < tasks; i++) {
+                    int index = i;
+                    long submitted = System.nanoTime();
+                    executor.submit(() -> {
+                        work(workload);
+                        latencies[index] = System.nanoTime() - submitted;
+                        return null;
+                    });
+                }
+            } // close() waits for every task
+        }
+        long elapsed = System.nanoTime() - began;
+        sampling.set(false);
+        sampler.join();
+
+        Arrays.sort(latencies);
+        if (latencies[0] == 0) {
+            throw new AssertionError(mode.label + ": not every task completed");
+        }
+        return new Result(tasks / (elapsed / 1e9), latencies[(int) (tasks * 0.99)] / 1e6,
+            Math.max(0, peakHeap.get() - baseline), threads.getPeakThreadCount());
+    }
+
+    private static ExecutorService executor(Mode mode) {
+        return switch (mode) {
+            case SINGLE -> Executors.newSingleThreadExecutor();
+            case FIXED -> Executors.newFixedThreadPool(FIXED_THREADS);
+            case CACHED -> Executors.newCachedThreadPool();
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+            case SCOPE -> throw new IllegalArgumentException("scope is not an ExecutorService");
+        };
+    }
+
+    private static void work(Workload workload) throws IOException, InterruptedException {
+        if (workload == Workload.FILE_READ && Files.readAllBytes(file).length == 0) {
+            throw new IOException("empty benchmark file");
+        }
+        Thread.sleep(workload.sleepMillis);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -4,6 +4,7 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 import java.util.concurrent.locks.*;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * LESSON 15: MULTITHREADING & CONCURRENCY
@@ -330,6 +331,28 @@ public class MultithreadingDemo {
         System.out.println("  - lockInterruptibly()");
         System.out.println("  - Multiple condition variables");
         System.out.println("  - Fair/unfair locking");
+
+        // Moving money BETWEEN accounts needs two locks: take them in a fixed
+        // global order or two opposite transfers deadlock
+        TransferEngine bank = new TransferEngine(1_000_000, 100);
+        Thread forward = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                bank.transfer(1, 2, 1);
+            }
+        });
+        Thread backward = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                bank.transfer(2, 1, 1);
+            }
+        });
+        forward.start();
+        backward.start();
+        forward.join();
+        backward.join();
+        System.out.println("\n  TransferEngine (1M accounts, ordered StampedLock stripes):");
+        System.out.println("  - 20,000 opposite transfers, no deadlock; balances " + bank.balance(1)
+            + " + " + bank.balance(2) + ", total " + bank.totalBalance());
+        System.out.println("  - See TransferBenchmark for throughput and the stress test");
     }
 
     private static void demonstrateAtomicVariables() throws InterruptedException {
@@ -358,6 +381,29 @@ public class MultithreadingDemo {
         System.out.println("  - AtomicBoolean");
         System.out.println("  - AtomicReference");
         System.out.println("  - CAS: Compare-And-Swap (hardware supported)");
+
+        // Under heavy contention one AtomicInteger becomes the bottleneck:
+        // striped cells spread the CASes over separate cache lines
+        StripedLongCounter requests = new StripedLongCounter();
+        StripedDoubleSum latency = new StripedDoubleSum();
+        StripedMax worst = new StripedMax();
+        for (int i = 0; i < 10; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    long micros = ThreadLocalRandom.current().nextLong(50, 5_000);
+                    requests.increment();
+                    latency.add(micros / 1000.0);
+                    worst.update(micros);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println("\n  Striped counters (" + requests.sum() + " requests):");
+        System.out.printf("  - avg latency %.2f ms, worst %d µs%n", latency.sum() / requests.sum(), worst.max());
+        System.out.println("  - See CounterBenchmark for 1-64 thread throughput");
     }
 
     private static void demonstrateExecutors() throws InterruptedException {
@@ -389,11 +435,92 @@ public class MultithreadingDemo {
         cachedPool.shutdown();
         cachedPool.awaitTermination(1, TimeUnit.SECONDS);
         
+        System.out.println("\n  Virtual Thread Per Task Executor (Java 21):");
+        long start = System.currentTimeMillis();
+        try (ExecutorService virtualExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10_000; i++) {
+                virtualExecutor.submit(() -> {
+                    Thread.sleep(100); // blocking unmounts the virtual thread, freeing its carrier
+                    return null;
+                });
+            }
+        } // close() waits for all tasks
+        System.out.println("    10,000 blocking tasks (100 ms each) in "
+            + (System.currentTimeMillis() - start) + " ms");
+        
+        System.out.println("\n  Structured scope (fork/join, cancel siblings on failure):");
+        try (TaskScope scope = TaskScope.open()) {
+            Supplier<String> user = scope.fork(() -> "user#42");
+            Supplier<Integer> orders = scope.fork(() -> 7);
+            scope.join().throwIfFailed();
+            System.out.println("    " + user.get() + " has " + orders.get() + " orders");
+        } catch (ExecutionException e) {
+            System.out.println("    ✗ " + e.getCause());
+        }
+        AtomicBoolean slowFinished = new AtomicBoolean();
+        try (TaskScope scope = TaskScope.open()) {
+            scope.fork(() -> {
+                Thread.sleep(5_000);
+                slowFinished.set(true);
+                return null;
+            });
+            scope.fork(() -> {
+                throw new IllegalStateException("inventory service down");
+            });
+            scope.join().throwIfFailed();
+        } catch (ExecutionException e) {
+            System.out.println("    ✓ Failed fast: " + e.getCause().getMessage()
+                + " (slow sibling cancelled: " + !slowFinished.get() + ")");
+        }
+        
+        System.out.println("\n  Work-Stealing Scheduler (priority lanes + key affinity):");
+        String[] users = {"alice", "bob", "carol"};
+        Map<String, int[]> clicks = new HashMap<>();
+        for (String user : users) {
+            clicks.put(user, new int[1]);
+        }
+        LongAdder clicked = new LongAdder();
+        WorkStealingScheduler.Stats stats;
+        try (WorkStealingScheduler scheduler = new WorkStealingScheduler(4)) {
+            // Hold every worker at a gate so a real backlog builds up
+            CountDownLatch held = new CountDownLatch(4);
+            CountDownLatch gate = new CountDownLatch(1);
+            for (int i = 0; i < 4; i++) {
+                scheduler.submit("gate", 1, () -> {
+                    held.countDown();
+                    try {
+                        gate.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            held.await();
+            for (int i = 0; i < 30_000; i++) {
+                String user = users[i % users.length];
+                // Same key → same worker, one at a time: a plain int[] needs no lock
+                scheduler.submit("click", 3, user, () -> {
+                    clicks.get(user)[0]++;
+                    clicked.increment();
+                });
+            }
+            scheduler.submit("alert", 1, () -> System.out.println("    Priority-1 task ran after "
+                + clicked.sum() + " of 30000 queued priority-3 clicks"));
+            gate.countDown();
+            scheduler.awaitQuiescence();
+            stats = scheduler.stats();
+        } // close() joins the workers: their writes are visible below
+        clicks.forEach((user, count) -> System.out.println("    " + user + ": " + count[0] + " clicks (expected 10000)"));
+        System.out.println("    Executed: " + stats.executed() + ", stolen: " + stats.stolen());
+        
         System.out.println("\n  💡 Executor types:");
         System.out.println("  - SingleThreadExecutor: 1 thread");
         System.out.println("  - FixedThreadPool: N threads");
         System.out.println("  - CachedThreadPool: Dynamic sizing");
         System.out.println("  - ScheduledThreadPool: Delayed/periodic");
+        System.out.println("  - VirtualThreadPerTaskExecutor: 1 cheap thread per task (I/O-bound work)");
+        System.out.println("  - WorkStealingScheduler: many small tasks, priorities, per-key serial execution");
+        System.out.println("  - See ExecutorBenchmark for 10k-1M concurrent tasks on each");
     }
 
     private static void demonstrateCallableAndFuture() throws Exception {
@@ -510,13 +637,27 @@ public class MultithreadingDemo {
     }
 
     private static void demonstrateProducerConsumer() throws InterruptedException {
-        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>(5);
+        // Pre-allocated slots instead of a LinkedBlockingQueue node per item;
+        // see RingBufferBenchmark for the throughput/latency comparison
+        RingBuffer<int[]> ring = new RingBuffer<>(8, () -> new int[1],
+            RingBuffer.ProducerType.SINGLE, RingBuffer.WaitStrategy.PARKING);
+        CountDownLatch consumed = new CountDownLatch(5);
+        RingBuffer.BatchConsumer<int[]> handler = ring.consumer((slot, sequence, endOfBatch) -> {
+            System.out.println("  Consumed: " + slot[0] + (endOfBatch ? "" : " (batched)"));
+            consumed.countDown();
+            try {
+                Thread.sleep(150);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
         
         // Producer
         Thread producer = new Thread(() -> {
             try {
                 for (int i = 1; i <= 5; i++) {
-                    queue.put(i);
+                    int item = i;
+                    ring.publishEvent(slot -> slot[0] = item);
                     System.out.println("  Produced: " + i);
                     Thread.sleep(100);
                 }
@@ -526,21 +667,13 @@ public class MultithreadingDemo {
         });
         
         // Consumer
-        Thread consumer = new Thread(() -> {
-            try {
-                for (int i = 1; i <= 5; i++) {
-                    Integer item = queue.take();
-                    System.out.println("  Consumed: " + item);
-                    Thread.sleep(150);
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        });
+        Thread consumer = new Thread(handler);
         
         producer.start();
         consumer.start();
         producer.join();
+        consumed.await();
+        handler.halt();
         consumer.join();
         
         System.out.println("  ✓ Producer-Consumer pattern completed");
@@ -583,30 +716,6 @@ class MyRunnable implements Runnable {
     }
 }
 
-class UnsafeCounter {
-    private int count = 0;
-    
-    public void increment() {
-        count++; // Not atomic! Read-modify-write
-    }
-    
-    public int getCount() {
-        return count;
-    }
-}
-
-class SafeCounter {
-    private int count = 0;
-    
-    public synchronized void increment() {
-        count++;
-    }
-    
-    public synchronized int getCount() {
-        return count;
-    }
-}
-
 class VolatileExample {
     private volatile boolean flag = false;
     
@@ -646,19 +755,12 @@ class BankAccountWithLock {
     }
     
     public int getBalance() {
-        return balance;
-    }
-}
-
-class AtomicCounter {
-    private AtomicInteger count = new AtomicInteger(0);
-    
-    public void increment() {
-        count.incrementAndGet(); // Atomic operation
-    }
-    
-    public int getCount() {
-        return count.get();
+        lock.lock(); // without it a reader may see a stale balance
+        try {
+            return balance;
+        } finally {
+            lock.unlock();
+        }
     }
 }
 
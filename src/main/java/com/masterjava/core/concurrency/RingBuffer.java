@@ -0,0 +1,440 @@
+package com.masterjava.core.concurrency;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.*;
+
+/**
+ * DISRUPTOR-STYLE RING BUFFER
+ * ===========================
+ *
+ * A bounded producer→consumer hand-off with no allocation and no locks.
+ *
+ * vs LinkedBlockingQueue:
+ * ✓ Slots are pre-allocated, mutable events: producers overwrite them
+ *   in place (LinkedBlockingQueue allocates a node per put)
+ * ✓ Coordination is by sequence numbers: a producer claims a slot, fills
+ *   it, then publishes the sequence; no lock, no park per hand-off
+ * ✓ Batching: a consumer that falls behind processes everything up to
+ *   the latest published sequence in one go, then publishes its own
+ *   progress once
+ * ✗ Fixed capacity (power of two); a waiting thread burns CPU unless
+ *   the wait strategy parks
+ *
+ *           cursor (published)              consumer sequence
+ *                 ↓                                ↓
+ *   ┌────┬────┬────┬────┬────┬────┬────┬────┐
+ *   │ 16 │ 17 │ 18 │ 11 │ 12 │ 13 │ 14 │ 15 │   slot = sequence & (size-1)
+ *   └────┴────┴────┴────┴────┴────┴────┴────┘
+ *   producers may not lap the slowest consumer ("gating" sequences);
+ *   consumers may not pass the cursor (the "sequence barrier")
+ *
+ * PRODUCER MODES:
+ * • SINGLE - one producer thread: claiming is a plain field increment
+ * • MULTI  - any number of producers: claim by CAS on the cursor; since
+ *   claims can be published out of order, each slot records the lap it
+ *   was published in, and consumers read only a contiguous published run
+ *
+ * WAIT STRATEGIES (how a consumer waits for the next sequence):
+ * • BUSY_SPIN - spin; lowest latency, burns a core per consumer
+ * • YIELDING  - spin briefly, then Thread.yield()
+ * • PARKING   - spin, yield, then park for ~10 µs at a time; near-idle CPU
+ *
+ * USAGE:
+ *   RingBuffer<LongEvent> ring = new RingBuffer<>(1024, LongEvent::new, ProducerType.SINGLE, WaitStrategy.PARKING);
+ *   RingBuffer.BatchConsumer<LongEvent> consumer = ring.consumer((event, seq, endOfBatch) -> ...);
+ *   new Thread(consumer).start();
+ *   ring.publishEvent(event -> event.value = 42);
+ *
+ * @param <E> event (slot) type; instances are reused, never handed out for keeps
+ */
+final class RingBuffer<E> {
+    enum ProducerType { SINGLE, MULTI }
+
+    enum WaitStrategy {
+        BUSY_SPIN {
+            void idle(int attempt) {
+                Thread.onSpinWait();
+            }
+        },
+        YIELDING {
+            void idle(int attempt) {
+                if (attempt < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        },
+        PARKING {
+            void idle(int attempt) {
+                if (attempt < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (attempt < 2 * SPIN_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        };
+
+        private static final int SPIN_TRIES = 100;
+        private static final long PARK_NANOS = 10_000;
+
+        abstract void idle(int attempt);
+    }
+
+    // Called once per event; endOfBatch marks the last event currently available
+    interface Handler<E> {
+        void onEvent(E event, long sequence, boolean endOfBatch);
+    }
+
+    // Told about an event whose Handler threw; the consumer then moves on
+    // to the next event. Throwing from here stops the consumer instead
+    interface ExceptionHandler<E> {
+        void onException(Throwable failure, long sequence, E event);
+    }
+
+    static final ExceptionHandler<Object> PRINT_AND_SKIP = (failure, sequence, event) -> {
+        System.err.println("RingBuffer handler failed on sequence " + sequence + ", skipping it:");
+        failure.printStackTrace();
+    };
+
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final Object[] entries;
+    private final int mask;
+    private final int indexShift;
+    private final ProducerType producerType;
+    private final WaitStrategy waitStrategy;
+    private final Sequence cursor = new Sequence(-1);
+    private volatile Sequence[] gating = new Sequence[0];
+
+    // SINGLE: owned by the one producer thread
+    private long nextValue = -1;
+    private long cachedGating = -1;
+
+    // MULTI: lap number each slot was last published in
+    private final int[] available;
+    private final Sequence gatingCache = new Sequence(-1);
+
+    RingBuffer(int size, Supplier<E> factory, ProducerType producerType, WaitStrategy waitStrategy) {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("size must be a power of two: " + size);
+        }
+        this.entries = new Object[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = factory.get();
+        }
+        this.mask = size - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(size);
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+        this.available = new int[producerType == ProducerType.MULTI ? size : 0];
+        Arrays.fill(available, -1);
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    // Highest claimed (MULTI) / published (SINGLE) sequence
+    long cursor() {
+        return cursor.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // PRODUCER SIDE
+    // ═══════════════════════════════════════════════════════════
+
+    // Claims one slot; waits (without a lock) while the ring is full
+    long next() {
+        return next(1);
+    }
+
+    // Claims n consecutive slots and returns the highest
+    long next(int n) {
+        if (n < 1 || n > entries.length) {
+            throw new IllegalArgumentException("n must be in [1, " + entries.length + "]: " + n);
+        }
+        return producerType == ProducerType.SINGLE ? nextSingle(n) : nextMulti(n);
+    }
+
+    void publish(long sequence) {
+        if (producerType == ProducerType.SINGLE) {
+            cursor.set(sequence);
+        } else {
+            AVAILABLE.setRelease(available, (int) sequence & mask, (int) (sequence >>> indexShift));
+        }
+    }
+
+    void publish(long low, long high) {
+        if (producerType == ProducerType.SINGLE) {
+            cursor.set(high);
+        } else {
+            for (long sequence = low; sequence <= high; sequence++) {
+                publish(sequence);
+            }
+        }
+    }
+
+    // Claim, fill in place, publish
+    void publishEvent(Consumer<? super E> writer) {
+        long sequence = next();
+        try {
+            writer.accept(get(sequence));
+        } finally {
+            publish(sequence); // a claimed slot must be published or consumers stall
+        }
+    }
+
+    private long nextSingle(int n) {
+        long next = nextValue + n;
+        long wrapPoint = next - entries.length;
+        if (wrapPoint > cachedGating) {
+            long min;
+            while (wrapPoint > (min = minimumSequence(nextValue))) {
+                LockSupport.parkNanos(1); // full: let consumers catch up
+            }
+            cachedGating = min;
+        }
+        nextValue = next;
+        return next;
+    }
+
+    private long nextMulti(int n) {
+        while (true) {
+            long current = cursor.get();
+            long next = current + n;
+            long wrapPoint = next - entries.length;
+            long cached = gatingCache.get();
+            if (wrapPoint > cached || cached > current) {
+                long min = minimumSequence(current);
+                if (wrapPoint > min) {
+                    LockSupport.parkNanos(1);
+                    continue;
+                }
+                gatingCache.set(min);
+            } else if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long minimumSequence(long fallback) {
+        long min = fallback;
+        for (Sequence sequence : gating) {
+            min = Math.min(min, sequence.get());
+        }
+        return min;
+    }
+
+    // Highest sequence in [low, high] such that everything up to it is published
+    private long highestPublished(long low, long high) {
+        if (producerType == ProducerType.SINGLE) {
+            return high;
+        }
+        for (long sequence = low; sequence <= high; sequence++) {
+            if ((int) AVAILABLE.getAcquire(available, (int) sequence & mask) != (int) (sequence >>> indexShift)) {
+                return sequence - 1;
+            }
+        }
+        return high;
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // CONSUMER SIDE
+    // ═══════════════════════════════════════════════════════════
+
+    /**
+     * A consumer of every published event, gating the producers. Pass the
+     * consumers this one must trail (e.g. a journaller before a
+     * business-logic stage) as {@code after}. Register consumers before
+     * publishing: a late one starts at the current cursor.
+     */
+    BatchConsumer<E> consumer(Handler<? super E> handler, BatchConsumer<?>... after) {
+        Sequence[] dependents = Arrays.stream(after).map(BatchConsumer::sequence).toArray(Sequence[]::new);
+        BatchConsumer<E> consumer = new BatchConsumer<>(this, new SequenceBarrier(this, dependents), handler);
+        addGatingSequence(consumer.sequence());
+        return consumer;
+    }
+
+    private synchronized void addGatingSequence(Sequence sequence) {
+        sequence.set(cursor.get()); // start from now, not from slot 0
+        Sequence[] grown = Arrays.copyOf(gating, gating.length + 1);
+        grown[gating.length] = sequence;
+        gating = grown;
+    }
+
+    // Where a consumer may read up to: the cursor, or the slowest stage ahead of it
+    static final class SequenceBarrier {
+        private final RingBuffer<?> ring;
+        private final Sequence[] dependents;
+        private volatile boolean alerted;
+
+        SequenceBarrier(RingBuffer<?> ring, Sequence[] dependents) {
+            this.ring = ring;
+            this.dependents = dependents;
+        }
+
+        // Highest available sequence ≥ sequence, or less than it if alerted
+        long waitFor(long sequence) {
+            int attempt = 0;
+            while (true) {
+                long available = upstream();
+                if (available >= sequence) {
+                    long published = dependents.length == 0 ? ring.highestPublished(sequence, available) : available;
+                    if (published >= sequence) {
+                        return published;
+                    }
+                }
+                if (alerted) {
+                    return sequence - 1;
+                }
+                ring.waitStrategy.idle(attempt++);
+            }
+        }
+
+        void alert() {
+            alerted = true;
+        }
+
+        boolean isAlerted() {
+            return alerted;
+        }
+
+        private long upstream() {
+            if (dependents.length == 0) {
+                return ring.cursor.get();
+            }
+            long min = Long.MAX_VALUE;
+            for (Sequence dependent : dependents) {
+                min = Math.min(min, dependent.get());
+            }
+            return min;
+        }
+    }
+
+    /**
+     * Runs a handler over every event in order, a batch at a time, on the
+     * thread that runs it. halt() stops it after the current batch.
+     *
+     * A handler that throws does not stop it: the failure goes to the
+     * ExceptionHandler (default {@link #PRINT_AND_SKIP}) and the event
+     * counts as processed, since a consumer that stopped advancing would
+     * leave producers waiting on a full ring forever.
+     */
+    static final class BatchConsumer<E> implements Runnable {
+        private final RingBuffer<E> ring;
+        private final SequenceBarrier barrier;
+        private final Handler<? super E> handler;
+        private final Sequence sequence = new Sequence(-1);
+        private volatile ExceptionHandler<? super E> exceptionHandler = PRINT_AND_SKIP;
+        private long batches;
+
+        BatchConsumer(RingBuffer<E> ring, SequenceBarrier barrier, Handler<? super E> handler) {
+            this.ring = ring;
+            this.barrier = barrier;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            // Checked per batch too: under continuous publishing waitFor()
+            // always has events ready and never looks at the alert
+            while (!barrier.isAlerted()) {
+                long available = barrier.waitFor(next);
+                if (available < next) {
+                    continue; // alerted while waiting
+                }
+                for (; next <= available; next++) {
+                    E event = ring.get(next);
+                    try {
+                        handler.onEvent(event, next, next == available);
+                    } catch (Throwable failure) {
+                        try {
+                            exceptionHandler.onException(failure, next, event);
+                        } catch (Throwable fatal) {
+                            sequence.set(next - 1); // everything before it was handled
+                            throw fatal;
+                        }
+                    }
+                }
+                sequence.set(available); // frees the whole batch for producers at once
+                batches++;
+            }
+        }
+
+        void halt() {
+            barrier.alert();
+        }
+
+        // Set before starting the consumer thread
+        void setExceptionHandler(ExceptionHandler<? super E> exceptionHandler) {
+            this.exceptionHandler = Objects.requireNonNull(exceptionHandler, "exceptionHandler");
+        }
+
+        // Last sequence fully processed
+        long processed() {
+            return sequence.get();
+        }
+
+        // Batches handled so far (events / batches = average batch size); read after halt
+        long batches() {
+            return batches;
+        }
+
+        Sequence sequence() {
+            return sequence;
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // PADDED SEQUENCE (same layering as StripedAccumulator.Cell:
+    // producers and consumers hammer different sequences, which
+    // must not share a cache line)
+    // ═══════════════════════════════════════════════════════════
+
+    static class SequenceValue extends StripedAccumulator.LeftPad {
+        volatile long value;
+    }
+
+    static final class Sequence extends SequenceValue {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long q1, q2, q3, q4, q5, q6, q7;
+
+        Sequence(long initial) {
+            value = initial;
+        }
+
+        long get() {
+            return value;
+        }
+
+        // Release store: cheaper than a volatile write, still orders the event writes before it
+        void set(long newValue) {
+            VALUE.setRelease(this, newValue);
+        }
+
+        boolean compareAndSet(long expected, long newValue) {
+            return VALUE.compareAndSet(this, expected, newValue);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.masterjava.core.concurrency;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * RING BUFFER vs LinkedBlockingQueue
+ * ==================================
+ *
+ * PART 1 - THROUGHPUT: producers push longs as fast as they can to one
+ * consumer that sums them (1 and 3 producers; the ring runs SINGLE and
+ * MULTI producer mode respectively)
+ *
+ * PART 2 - LATENCY: one producer sends a timestamp roughly every 10 µs;
+ * the consumer records now - timestamp. Sporadic traffic is where the
+ * wait strategy matters: the consumer is idle between events
+ *
+ * WHAT TO LOOK FOR:
+ * • Throughput: the ring allocates nothing per event and consumes in
+ *   batches ("avg batch" = events per consumer-sequence update)
+ * • Latency: BUSY_SPIN < YIELDING < PARKING ≈ queue (both park), at the
+ *   price of a core spinning; BUSY_SPIN needs a spare core per consumer
+ *   (on a machine with fewer cores than spinning threads it is the worst)
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.core.concurrency.RingBufferBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class RingBufferBenchmark {
+    private static final int EVENTS = 3_000_000;
+    private static final int CAPACITY = 4096;
+    private static final int LATENCY_EVENTS = 20_000;
+    private static final long PACE_NANOS = 10_000;
+
+    static final class LongEvent {
+        long value;
+    }
+
+    private record Throughput(double mops, double avgBatch) { }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   RING BUFFER vs LinkedBlockingQueue                   ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.println("  Cores: " + Runtime.getRuntime().availableProcessors()
+            + ", capacity: " + CAPACITY);
+
+        // Warm-up pass so the first contender does not pay for JIT compilation
+        queueThroughput(1, EVENTS / 10);
+        ringThroughput(1, RingBuffer.WaitStrategy.YIELDING, EVENTS / 10);
+
+        System.out.printf("%n  THROUGHPUT (%,d events, M events/s)%n", EVENTS);
+        System.out.printf("  %-22s %10s %10s %12s%n", "Channel", "1P→1C", "3P→1C", "avg batch");
+        Throughput q1 = queueThroughput(1, EVENTS);
+        Throughput q3 = queueThroughput(3, EVENTS);
+        System.out.printf("  %-22s %10.1f %10.1f %12s%n", "LinkedBlockingQueue", q1.mops(), q3.mops(), "-");
+        for (RingBuffer.WaitStrategy strategy : RingBuffer.WaitStrategy.values()) {
+            Throughput r1 = ringThroughput(1, strategy, EVENTS);
+            Throughput r3 = ringThroughput(3, strategy, EVENTS);
+            System.out.printf("  %-22s %10.1f %10.1f %12.1f%n", "ring " + strategy, r1.mops(), r3.mops(),
+                r1.avgBatch());
+        }
+
+        System.out.printf("%n  LATENCY (%,d events, one per ~%d µs, µs)%n", LATENCY_EVENTS, PACE_NANOS / 1000);
+        System.out.printf("  %-22s %10s %10s %10s%n", "Channel", "p50", "p99", "p99.9");
+        printLatency("LinkedBlockingQueue", queueLatency());
+        for (RingBuffer.WaitStrategy strategy : RingBuffer.WaitStrategy.values()) {
+            printLatency("ring " + strategy, ringLatency(strategy));
+        }
+    }
+
+    private static Throughput queueThroughput(int producers, int events) throws InterruptedException {
+        BlockingQueue<Long> queue = new LinkedBlockingQueue<>(CAPACITY);
+        long[] sum = new long[1];
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < events; i++) {
+                    sum[0] += queue.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        long began = System.nanoTime();
+        consumer.start();
+        List<Thread> threads = startProducers(producers, events, value -> {
+            try {
+                queue.put(value);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        consumer.join();
+        long elapsed = System.nanoTime() - began;
+        verify(sum[0], producers, events);
+        return new Throughput(events / (elapsed / 1e3), Double.NaN);
+    }
+
+    private static Throughput ringThroughput(int producers, RingBuffer.WaitStrategy strategy, int events)
+            throws InterruptedException {
+        RingBuffer<LongEvent> ring = new RingBuffer<>(CAPACITY, LongEvent::new,
+            producers == 1 ? RingBuffer.ProducerType.SINGLE : RingBuffer.ProducerType.MULTI, strategy);
+        long[] sum = new long[1];
+        CountDownLatch done = new CountDownLatch(1);
+        RingBuffer.BatchConsumer<LongEvent> consumer = ring.consumer((event, sequence, endOfBatch) -> {
+            sum[0] += event.value;
+            if (sequence == events - 1) {
+                done.countDown();
+            }
+        });
+        Thread consumerThread = new Thread(consumer);
+        long began = System.nanoTime();
+        consumerThread.start();
+        startProducers(producers, events, value -> {
+            long sequence = ring.next();
+            ring.get(sequence).value = value;
+            ring.publish(sequence);
+        });
+        done.await();
+        long elapsed = System.nanoTime() - began;
+        consumer.halt();
+        consumerThread.join();
+        verify(sum[0], producers, events);
+        return new Throughput(events / (elapsed / 1e3), (double) events / consumer.batches());
+    }
+
+    // Producer p sends p*share+1 .. (p+1)*share, so the consumer's sum is known
+    private static List<Thread> startProducers(int producers, int events, LongConsumer send) {
+        int share = events / producers;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long first = (long) p * share + 1;
+            long last = p == producers - 1 ? events : first + share - 1;
+            Thread producer = new Thread(() -> {
+                for (long value = first; value <= last; value++) {
+                    send.accept(value);
+                }
+            });
+            threads.add(producer);
+            producer.start();
+        }
+        return threads;
+    }
+
+    private static void verify(long sum, int producers, long events) {
+        long expected = events * (events + 1) / 2;
+        if (sum != expected) {
+            throw new AssertionError(producers + " producer(s): consumer summed " + sum + ", expected " + expected);
+        }
+    }
+
+    private static long[] queueLatency() throws InterruptedException {
+        BlockingQueue<Long> queue = new LinkedBlockingQueue<>(CAPACITY);
+        long[] latencies = new long[LATENCY_EVENTS];
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < LATENCY_EVENTS; i++) {
+                    long sent = queue.take();
+                    latencies[i] = System.nanoTime() - sent;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < LATENCY_EVENTS; i++) {
+            queue.put(System.nanoTime());
+            LockSupport.parkNanos(PACE_NANOS);
+        }
+        consumer.join();
+        return latencies;
+    }
+
+    private static long[] ringLatency(RingBuffer.WaitStrategy strategy) throws InterruptedException {
+        RingBuffer<LongEvent> ring = new RingBuffer<>(CAPACITY, LongEvent::new, RingBuffer.ProducerType.SINGLE,
+            strategy);
+        long[] latencies = new long[LATENCY_EVENTS];
+        CountDownLatch done = new CountDownLatch(1);
+        RingBuffer.BatchConsumer<LongEvent> consumer = ring.consumer((event, sequence, endOfBatch) -> {
+            latencies[(int) sequence] = System.nanoTime() - event.value;
+            if (sequence == LATENCY_EVENTS - 1) {
+                done.countDown();
+            }
+        });
+        Thread consumerThread = new Thread(consumer);
+        consumerThread.start();
+        for (int i = 0; i < LATENCY_EVENTS; i++) {
+            ring.publishEvent(event -> event.value = System.nanoTime());
+            LockSupport.parkNanos(PACE_NANOS);
+        }
+        done.await();
+        consumer.halt();
+        consumerThread.join();
+        return latencies;
+    }
+
+    private static void printLatency(String name, long[] latencies) {
+        Arrays.sort(latencies);
+        System.out.printf("  %-22s %10.1f %10.1f %10.1f%n", name, percentile(latencies, 0.50),
+            percentile(latencies, 0.99), percentile(latencies, 0.999));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p * sorted.length))] / 1e3;
+    }
+}
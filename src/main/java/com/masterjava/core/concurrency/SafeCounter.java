@@ -0,0 +1,13 @@
+package com.masterjava.core.concurrency;
+
+class SafeCounter {
+    private int count = 0;
+    
+    public synchronized void increment() {
+        count++;
+    }
+    
+    public synchronized int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,257 @@
+package com.masterjava.core.concurrency;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * WORK-STEALING SCHEDULER vs ForkJoinPool vs ThreadPoolExecutor
+ * =============================================================
+ *
+ * SCENARIOS (same thread count for every executor):
+ * • FLAT     - 2M tiny tasks submitted from one outside thread
+ * • FAN-OUT  - a binary tree of tasks, each spawning its two children
+ *              from inside a task (2M tasks): local queues + stealing
+ * • KEYED    - 1M tasks over 1,000 keys, each bumping a plain per-key
+ *              counter. Scheduler: key affinity, no lock. FJP/TPE: a
+ *              lock per key. Every counter is checked afterwards
+ * • PRIORITY - with every worker held at a gate, 200k low-priority tasks
+ *              are queued, then 1,000 high-priority ones; the gate opens:
+ *              how long does urgent work wait behind the backlog?
+ *
+ * WHAT TO LOOK FOR:
+ * • TPE (newFixedThreadPool) funnels every task through one
+ *   LinkedBlockingQueue; FJP and the scheduler use per-worker queues
+ * • Only the scheduler's lanes let high-priority tasks overtake
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.core.concurrency.SchedulerBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class SchedulerBenchmark {
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int FLAT_TASKS = 2_000_000;
+    private static final int TREE_DEPTH = 20; // 2^21 - 1 tasks
+    private static final int KEYED_TASKS = 1_000_000;
+    private static final int KEYS = 1_000;
+    private static final int BACKLOG = 200_000;
+    private static final int URGENT = 1_000;
+
+    private enum Kind {
+        TPE("ThreadPoolExecutor"), FJP("ForkJoinPool"), WSS("WorkStealingScheduler");
+
+        final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    // What each scenario needs from an executor
+    private interface Pool extends AutoCloseable {
+        void submit(int priority, Object key, Runnable task);
+
+        @Override
+        void close();
+    }
+
+    public static void main(String[] args) {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   WORK STEALING vs ForkJoinPool vs ThreadPoolExecutor  ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.println("  Cores: " + Runtime.getRuntime().availableProcessors() + ", threads: " + THREADS);
+
+        for (Kind kind : Kind.values()) { // warm-up
+            flat(kind, FLAT_TASKS / 10);
+            keyed(kind, KEYED_TASKS / 10);
+        }
+
+        System.out.printf("%n  %-22s %12s %12s %12s %14s %14s%n", "Executor", "flat Mt/s", "fan-out Mt/s",
+            "keyed Mt/s", "urgent avg ms", "backlog avg ms");
+        for (Kind kind : Kind.values()) {
+            double flat = flat(kind, FLAT_TASKS);
+            double fanOut = fanOut(kind);
+            double keyed = keyed(kind, KEYED_TASKS);
+            double[] waits = priority(kind);
+            System.out.printf("  %-22s %12.2f %12.2f %12.2f %14.1f %14.1f%n", kind.label, flat, fanOut, keyed,
+                waits[0], waits[1]);
+        }
+    }
+
+    private static Pool open(Kind kind) {
+        return switch (kind) {
+            case TPE -> wrap(Executors.newFixedThreadPool(THREADS));
+            case FJP -> wrap(new ForkJoinPool(THREADS));
+            case WSS -> {
+                WorkStealingScheduler scheduler = new WorkStealingScheduler(THREADS);
+                yield new Pool() {
+                    public void submit(int priority, Object key, Runnable task) {
+                        if (key == null) {
+                            scheduler.submit("bench", priority, task);
+                        } else {
+                            scheduler.submit("bench", priority, key, task);
+                        }
+                    }
+
+                    public void close() {
+                        scheduler.close();
+                    }
+                };
+            }
+        };
+    }
+
+    private static Pool wrap(ExecutorService executor) {
+        return new Pool() {
+            public void submit(int priority, Object key, Runnable task) {
+                executor.execute(task);
+            }
+
+            public void close() {
+                executor.close();
+            }
+        };
+    }
+
+    // Million tasks per second
+    private static double flat(Kind kind, int tasks) {
+        LongAdder done = new LongAdder();
+        try (Pool pool = open(kind)) {
+            long began = System.nanoTime();
+            for (int i = 0; i < tasks; i++) {
+                int seed = i;
+                pool.submit(WorkStealingScheduler.DEFAULT_PRIORITY, null, () -> {
+                    work(seed);
+                    done.increment();
+                });
+            }
+            await(done, tasks);
+            return tasks / ((System.nanoTime() - began) / 1e3);
+        }
+    }
+
+    private static double fanOut(Kind kind) {
+        long tasks = (1L << (TREE_DEPTH + 1)) - 1;
+        LongAdder done = new LongAdder();
+        try (Pool pool = open(kind)) {
+            long began = System.nanoTime();
+            pool.submit(WorkStealingScheduler.DEFAULT_PRIORITY, null, node(pool, done, TREE_DEPTH));
+            await(done, tasks);
+            return tasks / ((System.nanoTime() - began) / 1e3);
+        }
+    }
+
+    private static Runnable node(Pool pool, LongAdder done, int depth) {
+        return () -> {
+            if (depth > 0) {
+                pool.submit(WorkStealingScheduler.DEFAULT_PRIORITY, null, node(pool, done, depth - 1));
+                pool.submit(WorkStealingScheduler.DEFAULT_PRIORITY, null, node(pool, done, depth - 1));
+            }
+            work(depth);
+            done.increment();
+        };
+    }
+
+    private static double keyed(Kind kind, int tasks) {
+        long[] counters = new long[KEYS];
+        Object[] locks = new Object[KEYS];
+        Arrays.setAll(locks, i -> new Object());
+        Integer[] keys = new Integer[KEYS];
+        Arrays.setAll(keys, i -> i);
+        LongAdder done = new LongAdder();
+        double throughput;
+        try (Pool pool = open(kind)) {
+            long began = System.nanoTime();
+            for (int i = 0; i < tasks; i++) {
+                int key = i % KEYS;
+                Runnable bump = kind == Kind.WSS
+                    ? () -> counters[key]++ // affinity: only one worker ever runs this key
+                    : () -> {
+                        synchronized (locks[key]) {
+                            counters[key]++;
+                        }
+                    };
+                pool.submit(WorkStealingScheduler.DEFAULT_PRIORITY, keys[key], () -> {
+                    bump.run();
+                    done.increment();
+                });
+            }
+            await(done, tasks);
+            throughput = tasks / ((System.nanoTime() - began) / 1e3);
+        }
+        for (int key = 0; key < KEYS; key++) {
+            if (counters[key] != tasks / KEYS) {
+                throw new AssertionError(kind.label + ": key " + key + " counted " + counters[key]
+                    + ", expected " + tasks / KEYS);
+            }
+        }
+        return throughput;
+    }
+
+    // {average wait of urgent tasks, average wait of backlog tasks} in ms,
+    // measured from the moment the workers are released: every worker is
+    // held at a gate while the queues fill, so the backlog is really queued
+    // when the urgent tasks arrive
+    private static double[] priority(Kind kind) {
+        LongAdder urgentWait = new LongAdder();
+        LongAdder backlogWait = new LongAdder();
+        LongAdder done = new LongAdder();
+        CountDownLatch held = new CountDownLatch(THREADS);
+        CountDownLatch gate = new CountDownLatch(1);
+        try (Pool pool = open(kind)) {
+            for (int t = 0; t < THREADS; t++) {
+                pool.submit(1, null, () -> {
+                    held.countDown();
+                    awaitUninterruptibly(gate);
+                });
+            }
+            awaitUninterruptibly(held);
+            long[] opened = new long[1]; // written before the gate opens, so visible to every task
+            for (int i = 0; i < BACKLOG + URGENT; i++) {
+                boolean urgent = i >= BACKLOG;
+                int seed = i;
+                pool.submit(urgent ? 1 : WorkStealingScheduler.PRIORITIES, null, () -> {
+                    (urgent ? urgentWait : backlogWait).add(System.nanoTime() - opened[0]);
+                    work(seed);
+                    done.increment();
+                });
+            }
+            opened[0] = System.nanoTime();
+            gate.countDown();
+            await(done, BACKLOG + URGENT);
+        }
+        return new double[] {urgentWait.sum() / 1e6 / URGENT, backlogWait.sum() / 1e6 / BACKLOG};
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException ignored) {
+                // benchmark threads are never interrupted on purpose
+            }
+        }
+    }
+
+    // ~100 ns of arithmetic the JIT cannot remove
+    private static void work(int seed) {
+        long x = seed | 1;
+        for (int i = 0; i < 32; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        if (x == 0) {
+            throw new AssertionError("xorshift never yields 0");
+        }
+    }
+
+    private static void await(LongAdder done, long expected) {
+        while (done.sum() < expected) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.masterjava.core.concurrency;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * STRIPED (CELL-PER-CONTENDER) COUNTERS
+ * =====================================
+ *
+ * Why AtomicCounter / SafeCounter collapse under many cores:
+ *
+ *   AtomicInteger            one cache line, N cores CAS-ing it
+ *   ┌──────────┐             → the line ping-pongs between cores; failed
+ *   │  count   │◀── all ──     CASes retry; throughput FALLS as cores rise
+ *   └──────────┘             (synchronized: same line + lock handoffs)
+ *
+ *   Striped                  one padded cell per contending thread group
+ *   ┌──────┐┌──────┐┌──────┐┌──────┐
+ *   │cell 0││cell 1││cell 2││cell 3│   each on its own cache line
+ *   └──▲───┘└──▲───┘└──▲───┘└──▲───┘
+ *      T1,T5   T2      T3      T4      read = combine(base, all cells)
+ *
+ * HOW:
+ * • Uncontended: a single CAS on {@code base} (as cheap as AtomicLong)
+ * • First failed CAS creates the cell table; a thread whose cell CAS
+ *   fails re-hashes to another cell, and the table doubles (up to the
+ *   core count) while collisions continue
+ * • Cells are padded with 7 longs on each side so two cells never share
+ *   a 64-byte cache line (false sharing would re-create the contention)
+ *
+ * READS are cheap and approximate: a plain pass over base + cells, no
+ * locks or CAS, so updates racing with the read may or may not be seen.
+ * Exact once writers are quiescent.
+ *
+ * The same design as java.util.concurrent.atomic.LongAdder/LongAccumulator,
+ * written out to show the mechanics.
+ */
+abstract class StripedAccumulator {
+    private static final int MAX_CELLS = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+    private static final VarHandle BASE;
+    private static final VarHandle CELLS_BUSY;
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(
+        () -> new int[] {ThreadLocalRandom.current().nextInt() | 1});
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BASE = lookup.findVarHandle(StripedAccumulator.class, "base", long.class);
+            CELLS_BUSY = lookup.findVarHandle(StripedAccumulator.class, "cellsBusy", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final LongBinaryOperator function;
+    private final long identity;
+    private volatile long base;
+    private volatile int cellsBusy; // spin lock guarding table creation/growth
+    private volatile Cell[] cells;
+
+    StripedAccumulator(LongBinaryOperator function, long identity) {
+        this.function = function;
+        this.identity = identity;
+        this.base = identity;
+    }
+
+    final void accumulate(long x) {
+        Cell[] table = cells;
+        if (table == null) {
+            long current = base;
+            if (BASE.compareAndSet(this, current, function.applyAsLong(current, x))) {
+                return; // uncontended fast path
+            }
+        }
+        int[] probe = PROBE.get();
+        boolean collided = false;
+        while (true) {
+            table = cells;
+            if (table == null) {
+                if (cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                    try {
+                        if (cells == null) {
+                            Cell[] created = new Cell[2];
+                            for (int i = 0; i < created.length; i++) {
+                                created[i] = new Cell(identity);
+                            }
+                            cells = created;
+                        }
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                    continue;
+                }
+                long current = base; // someone else is creating the table
+                if (BASE.compareAndSet(this, current, function.applyAsLong(current, x))) {
+                    return;
+                }
+                continue;
+            }
+            Cell cell = table[probe[0] & (table.length - 1)];
+            if (cell.cas(x, function)) {
+                return;
+            }
+            if (table.length < MAX_CELLS && collided && cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                try {
+                    if (cells == table) {
+                        Cell[] grown = new Cell[table.length * 2];
+                        System.arraycopy(table, 0, grown, 0, table.length);
+                        for (int i = table.length; i < grown.length; i++) {
+                            grown[i] = new Cell(identity);
+                        }
+                        cells = grown;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+                collided = false;
+                continue;
+            }
+            collided = true;
+            probe[0] = rehash(probe[0]);
+        }
+    }
+
+    // Combines base and every cell without blocking writers
+    final long combine() {
+        long result = base;
+        Cell[] table = cells;
+        if (table != null) {
+            for (Cell cell : table) {
+                result = function.applyAsLong(result, cell.value);
+            }
+        }
+        return result;
+    }
+
+    // Not atomic with respect to concurrent updates; use between phases
+    final void resetAll() {
+        base = identity;
+        Cell[] table = cells;
+        if (table != null) {
+            for (Cell cell : table) {
+                cell.value = identity;
+            }
+        }
+    }
+
+    final int cellCount() {
+        Cell[] table = cells;
+        return table == null ? 0 : table.length;
+    }
+
+    private static int rehash(int probe) {
+        probe ^= probe << 13; // xorshift
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        return probe;
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // PADDED CELL (superclass layering keeps the padding in place:
+    // the JVM lays out superclass fields before subclass fields)
+    // ═══════════════════════════════════════════════════════════
+
+    static class LeftPad {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    static class CellValue extends LeftPad {
+        volatile long value;
+    }
+
+    static final class Cell extends CellValue {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(CellValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long q1, q2, q3, q4, q5, q6, q7;
+
+        Cell(long initial) {
+            value = initial;
+        }
+
+        boolean cas(long x, LongBinaryOperator function) {
+            long current = value;
+            return VALUE.compareAndSet(this, current, function.applyAsLong(current, x));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.masterjava.core.concurrency;
+
+/**
+ * Striped sum of doubles (e.g. total latency, total bytes as double).
+ * Cells hold raw double bits. Floating-point addition is not
+ * associative, so the sum can differ in the last bits from a sequential
+ * one.
+ */
+final class StripedDoubleSum extends StripedAccumulator {
+    StripedDoubleSum() {
+        super((a, b) -> Double.doubleToRawLongBits(Double.longBitsToDouble(a) + Double.longBitsToDouble(b)),
+              Double.doubleToRawLongBits(0.0));
+    }
+
+    void add(double value) {
+        accumulate(Double.doubleToRawLongBits(value));
+    }
+
+    double sum() {
+        return Double.longBitsToDouble(combine());
+    }
+
+    void reset() {
+        resetAll();
+    }
+}
@@ -0,0 +1,28 @@
+package com.masterjava.core.concurrency;
+
+/**
+ * Striped long counter: drop-in for AtomicCounter / SafeCounter when many
+ * threads increment and few read.
+ */
+final class StripedLongCounter extends StripedAccumulator {
+    StripedLongCounter() {
+        super(Long::sum, 0);
+    }
+
+    void increment() {
+        accumulate(1);
+    }
+
+    void add(long delta) {
+        accumulate(delta);
+    }
+
+    // Approximate while writers run, exact once they stop
+    long sum() {
+        return combine();
+    }
+
+    void reset() {
+        resetAll();
+    }
+}
@@ -0,0 +1,23 @@
+package com.masterjava.core.concurrency;
+
+/**
+ * Striped running maximum (e.g. worst latency seen). Long.MIN_VALUE
+ * until the first update.
+ */
+final class StripedMax extends StripedAccumulator {
+    StripedMax() {
+        super(Math::max, Long.MIN_VALUE);
+    }
+
+    void update(long value) {
+        accumulate(value);
+    }
+
+    long max() {
+        return combine();
+    }
+
+    void reset() {
+        resetAll();
+    }
+}
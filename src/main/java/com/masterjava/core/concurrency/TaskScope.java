@@ -0,0 +1,128 @@
+package com.masterjava.core.concurrency;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * STRUCTURED TASK SCOPE ON VIRTUAL THREADS
+ * ========================================
+ *
+ * Fork subtasks, join them all, and never leak one past the block that
+ * started them - the "shutdown on failure" policy of Java's
+ * StructuredTaskScope, built on a virtual-thread-per-task executor.
+ * (StructuredTaskScope itself is a preview API in Java 21 and this build
+ * does not enable preview features.)
+ *
+ *   try (TaskScope scope = TaskScope.open()) {
+ *       Supplier<User>  user  = scope.fork(() -> findUser(id));
+ *       Supplier<Order> order = scope.fork(() -> latestOrder(id));
+ *       scope.join().throwIfFailed();
+ *       return new Page(user.get(), order.get());
+ *   }
+ *
+ * GUARANTEES:
+ * ✓ Every subtask has finished (or been cancelled) when close() returns:
+ *   no orphaned threads keep running after the caller moved on
+ * ✓ First failure cancels (interrupts) the siblings: no waiting for a
+ *   slow call whose result is useless now
+ * ✓ One virtual thread per subtask: blocking in a subtask is cheap
+ * ✗ Owner-confined: fork/join/close from the thread that opened it
+ */
+final class TaskScope implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Thread owner = Thread.currentThread();
+    private final List<Future<?>> forks = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private boolean joined;
+
+    private TaskScope(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    static TaskScope open() {
+        return new TaskScope(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("scope-", 0).factory()));
+    }
+
+    /**
+     * Starts a subtask. The returned supplier yields its result after a
+     * successful join(); calling it earlier (or for a failed or cancelled
+     * subtask) throws IllegalStateException.
+     */
+    <T> Supplier<T> fork(Callable<? extends T> task) {
+        ensureOwner();
+        if (joined) {
+            throw new IllegalStateException("Cannot fork after join()");
+        }
+        Future<T> future = executor.submit(() -> {
+            try {
+                return task.call();
+            } catch (Exception | Error e) {
+                if (failure.compareAndSet(null, e)) {
+                    cancelAll();
+                }
+                throw e;
+            }
+        });
+        synchronized (forks) {
+            forks.add(future);
+        }
+        if (failure.get() != null) {
+            future.cancel(true); // a sibling already failed
+        }
+        return () -> {
+            if (!joined || future.state() != Future.State.SUCCESS) {
+                throw new IllegalStateException("Subtask not completed successfully: " + future.state());
+            }
+            return future.resultNow();
+        };
+    }
+
+    // Waits for every subtask to succeed, or for the first failure to cancel the rest
+    TaskScope join() throws InterruptedException {
+        ensureOwner();
+        for (Future<?> future : snapshot()) {
+            try {
+                future.get();
+            } catch (ExecutionException | CancellationException ignored) {
+                // recorded in failure (or cancelled because of it)
+            }
+        }
+        joined = true;
+        return this;
+    }
+
+    void throwIfFailed() throws ExecutionException {
+        Throwable t = failure.get();
+        if (t != null) {
+            throw new ExecutionException(t);
+        }
+    }
+
+    /** Cancels anything still running and waits until it has all stopped. */
+    @Override
+    public void close() {
+        ensureOwner();
+        cancelAll();
+        executor.close();
+    }
+
+    private void cancelAll() {
+        for (Future<?> future : snapshot()) {
+            future.cancel(true);
+        }
+    }
+
+    private List<Future<?>> snapshot() {
+        synchronized (forks) {
+            return List.copyOf(forks);
+        }
+    }
+
+    private void ensureOwner() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("TaskScope is confined to " + owner);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.masterjava.core.concurrency;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * TRANSFER ENGINE THROUGHPUT + RANDOMIZED STRESS TEST
+ * ===================================================
+ *
+ * PART 1 - THROUGHPUT (1,000,000 accounts, uniform random pairs):
+ * • one lock   - a single ReentrantLock around every transfer
+ * • striped    - {@link TransferEngine}: ordered stripe locks
+ *
+ * PART 2 - STRESS (the part that would hang or corrupt a broken engine):
+ * • Skewed traffic: half the transfers touch one of 8 hot accounts, so
+ *   A→B and B→A transfers collide constantly (the classic deadlock)
+ * • Random amounts (some overdrafts, which must be refused), including
+ *   same-account and same-stripe transfers
+ * • Concurrent auditors: totalBalance() must always equal the initial total
+ * • Concurrent readers: balance() (optimistic) must never see a negative
+ * • Watchdog: if no transfer completes for 2 s, the run is a deadlock
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.core.concurrency.TransferBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control).
+ */
+public class TransferBenchmark {
+    private static final int ACCOUNTS = 1_000_000;
+    private static final long INITIAL = 1_000;
+    private static final long RUN_MILLIS = 500;
+    private static final long STRESS_MILLIS = 3_000;
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+    private interface Transfers {
+        boolean transfer(int from, int to, long amount);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   DEADLOCK-FREE TRANSFERS: THROUGHPUT + STRESS TEST    ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+        System.out.println("  Cores: " + Runtime.getRuntime().availableProcessors()
+            + ", accounts: " + ACCOUNTS);
+        System.out.printf("  %-8s %18s %18s%n", "Threads", "one lock (K/s)", "striped (K/s)");
+        for (int threads : THREAD_COUNTS) {
+            long[] globalBalances = new long[ACCOUNTS];
+            Arrays.fill(globalBalances, INITIAL);
+            Lock global = new ReentrantLock();
+            double oneLock = throughput(threads, (from, to, amount) -> {
+                global.lock();
+                try {
+                    if (globalBalances[from] < amount) {
+                        return false;
+                    }
+                    globalBalances[from] -= amount;
+                    globalBalances[to] += amount;
+                    return true;
+                } finally {
+                    global.unlock();
+                }
+            });
+            TransferEngine engine = new TransferEngine(ACCOUNTS, INITIAL);
+            double striped = throughput(threads, engine::transfer);
+            System.out.printf("  %-8d %18.0f %18.0f%n", threads, oneLock, striped);
+        }
+
+        System.out.println("\n  STRESS (" + STRESS_MILLIS / 1000 + " s, 64 transfer threads, hot accounts)");
+        stress();
+    }
+
+    // Transfers per second, in thousands
+    private static double throughput(int threads, Transfers transfers) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder done = new LongAdder();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                while (!stop.get()) {
+                    transfers.transfer(random.nextInt(ACCOUNTS), random.nextInt(ACCOUNTS), 1 + random.nextInt(10));
+                    count++;
+                }
+                done.add(count);
+            });
+            workers.add(worker);
+        }
+        long began = System.nanoTime();
+        workers.forEach(Thread::start);
+        Thread.sleep(RUN_MILLIS);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return done.sum() / ((System.nanoTime() - began) / 1e9) / 1e3;
+    }
+
+    private static void stress() throws InterruptedException {
+        int accounts = 10_000;
+        TransferEngine engine = new TransferEngine(accounts, INITIAL, 64); // few stripes: many collisions
+        long expectedTotal = accounts * INITIAL;
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder succeeded = new LongAdder();
+        LongAdder refused = new LongAdder();
+        LongAdder audits = new LongAdder();
+        LongAdder reads = new LongAdder();
+        List<String> violations = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 64; t++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!stop.get()) {
+                    int from = random.nextBoolean() ? random.nextInt(8) : random.nextInt(accounts);
+                    int to = random.nextBoolean() ? random.nextInt(8) : random.nextInt(accounts);
+                    if (engine.transfer(from, to, 1 + random.nextInt(2_000))) {
+                        succeeded.increment();
+                    } else {
+                        refused.increment();
+                    }
+                }
+            }));
+        }
+        for (int t = 0; t < 2; t++) {
+            threads.add(new Thread(() -> {
+                while (!stop.get()) {
+                    long total = engine.totalBalance();
+                    if (total != expectedTotal) {
+                        violations.add("total " + total + " != " + expectedTotal);
+                    }
+                    audits.increment();
+                }
+            }));
+        }
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!stop.get()) {
+                    int id = random.nextInt(16);
+                    long balance = engine.balance(id);
+                    if (balance < 0) {
+                        violations.add("negative balance " + balance + " on account " + id);
+                    }
+                    reads.increment();
+                }
+            }));
+        }
+        threads.forEach(thread -> thread.setDaemon(true)); // a deadlocked run must still exit
+        threads.forEach(Thread::start);
+
+        long deadline = System.currentTimeMillis() + STRESS_MILLIS;
+        long lastProgress = -1;
+        long stalledSince = System.currentTimeMillis();
+        boolean deadlocked = false;
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            long progress = succeeded.sum() + refused.sum();
+            if (progress != lastProgress) {
+                lastProgress = progress;
+                stalledSince = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - stalledSince > 2_000) {
+                deadlocked = true;
+                break;
+            }
+        }
+        stop.set(true);
+        if (!deadlocked) {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        long finalTotal = deadlocked ? -1 : engine.totalBalance();
+        System.out.printf("  transfers: %,d ok, %,d refused (overdraft); audits: %,d; reads: %,d%n",
+            succeeded.sum(), refused.sum(), audits.sum(), reads.sum());
+        System.out.println("  deadlock: " + (deadlocked ? "YES ✗" : "none ✓"));
+        System.out.println("  total conserved: " + (finalTotal == expectedTotal ? "✓" : "✗ " + finalTotal));
+        System.out.println("  violations: " + (violations.isEmpty() ? "none ✓" : violations.size() + " ✗ e.g. "
+            + violations.get(0)));
+        if (deadlocked || finalTotal != expectedTotal || !violations.isEmpty()) {
+            throw new AssertionError("Transfer engine stress test failed");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.masterjava.core.concurrency;
+
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * DEADLOCK-FREE MULTI-ACCOUNT TRANSFERS
+ * =====================================
+ *
+ * Atomic transfer(from, to, amount) across millions of accounts, where
+ * BankAccountWithLock (one lock object per account) would cost ~50 bytes
+ * of lock per account and deadlock the moment two threads transfer A→B
+ * and B→A while each locking "from" first.
+ *
+ * LAYOUT:
+ *   balances  long[accounts]                    8 bytes per account
+ *   stripes   StampedLock[S] (S ≪ accounts)     account → stripe by hash
+ *
+ *   transfer(7, 3): stripes {hash(3), hash(7)} locked in ASCENDING stripe
+ *   order, both balances updated, unlocked
+ *
+ * WHY IT CANNOT DEADLOCK:
+ * • Every thread takes the locks it needs in one global order (stripe
+ *   index); a cycle of threads each waiting on the next would need
+ *   some thread to hold a higher stripe while waiting for a lower one
+ * • Same stripe for both accounts → one lock (StampedLock is not
+ *   reentrant, so locking it twice would self-deadlock)
+ *
+ * READS:
+ * • balance(id): StampedLock optimistic read - read the long, then
+ *   validate() that no writer took the stripe meanwhile; no lock, no
+ *   CAS, no write to shared memory. Falls back to a read lock if a
+ *   transfer raced it
+ * • totalBalance(): read locks on every stripe (ascending), so the sum is
+ *   a consistent snapshot; the invariant total never changes
+ */
+class TransferEngine {
+    static final int DEFAULT_STRIPES = 4096;
+
+    private final long[] balances;
+    private final StampedLock[] stripes;
+    private final int stripeMask;
+
+    TransferEngine(int accounts, long initialBalance) {
+        this(accounts, initialBalance, DEFAULT_STRIPES);
+    }
+
+    TransferEngine(int accounts, long initialBalance, int stripes) {
+        if (accounts < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("accounts=" + accounts + ", stripes=" + stripes
+                + " (stripes must be a power of two)");
+        }
+        this.balances = new long[accounts];
+        Arrays.fill(balances, initialBalance);
+        this.stripes = new StampedLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new StampedLock();
+        }
+        this.stripeMask = stripes - 1;
+    }
+
+    int accounts() {
+        return balances.length;
+    }
+
+    /**
+     * Moves {@code amount} from one account to another, atomically with
+     * respect to every other transfer and read.
+     *
+     * @return false (and changes nothing) if {@code from} has insufficient funds
+     */
+    boolean transfer(int from, int to, long amount) {
+        Objects.checkIndex(from, balances.length);
+        Objects.checkIndex(to, balances.length);
+        if (amount <= 0) {
+            throw new IllegalArgumentException("amount must be positive: " + amount);
+        }
+        if (from == to) {
+            return balance(from) >= amount;
+        }
+        int first = stripeOf(from);
+        int second = stripeOf(to);
+        if (first > second) {
+            int swap = first;
+            first = second;
+            second = swap;
+        }
+        StampedLock low = stripes[first];
+        StampedLock high = stripes[second];
+        long lowStamp = low.writeLock();
+        long highStamp = first == second ? 0 : high.writeLock();
+        try {
+            if (balances[from] < amount) {
+                return false;
+            }
+            balances[from] -= amount;
+            balances[to] += amount;
+            return true;
+        } finally {
+            if (first != second) {
+                high.unlockWrite(highStamp);
+            }
+            low.unlockWrite(lowStamp);
+        }
+    }
+
+    void deposit(int id, long amount) {
+        StampedLock lock = stripes[stripeOf(Objects.checkIndex(id, balances.length))];
+        long stamp = lock.writeLock();
+        try {
+            balances[id] += amount;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    long balance(int id) {
+        StampedLock lock = stripes[stripeOf(Objects.checkIndex(id, balances.length))];
+        long stamp = lock.tryOptimisticRead();
+        long balance = balances[id];
+        if (lock.validate(stamp)) {
+            return balance;
+        }
+        stamp = lock.readLock(); // a transfer raced us: read under the lock
+        try {
+            return balances[id];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Consistent sum of all balances (blocks transfers while it runs)
+    long totalBalance() {
+        long[] stamps = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stamps[i] = stripes[i].readLock();
+        }
+        try {
+            long total = 0;
+            for (long balance : balances) {
+                total += balance;
+            }
+            return total;
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlockRead(stamps[i]);
+            }
+        }
+    }
+
+    // Scrambles ids so neighbouring (often co-hot) accounts land on different stripes
+    private int stripeOf(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & stripeMask;
+    }
+}
@@ -0,0 +1,13 @@
+package com.masterjava.core.concurrency;
+
+class UnsafeCounter {
+    private int count = 0;
+    
+    public void increment() {
+        count++; // Not atomic! Read-modify-write
+    }
+    
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,369 @@
+package com.masterjava.core.concurrency;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * WORK-STEALING SCHEDULER WITH PRIORITY LANES AND KEY AFFINITY
+ * ============================================================
+ *
+ * For many small tasks, where newFixedThreadPool's single shared
+ * LinkedBlockingQueue (one lock for every put and take) becomes the
+ * bottleneck.
+ *
+ * LAYOUT (per worker):
+ *   worker 0                        worker 1
+ *   ┌───────────────────────┐       ┌───────────────────────┐
+ *   │ pinned[1..3]   FIFO   │       │ pinned[1..3]          │  keyed tasks: never stolen
+ *   │ deque [1..3]          │       │ deque [1..3]          │
+ *   │  oldest ──────────────┼──────►│ (thief takes oldest)  │
+ *   │  newest ◄── owner     │       │                       │
+ *   └───────────────────────┘       └───────────────────────┘
+ *   one small lock per worker, held for a single push/poll; volatile
+ *   bitmasks of non-empty lanes let everyone skip empty lanes unlocked
+ *
+ * SCHEDULING:
+ * • Tasks go to one worker's deque (the submitting worker's own, for
+ *   tasks spawned by tasks: cache-warm and uncontended); external
+ *   submissions land on a random worker
+ * • The owner takes its newest task (LIFO: a spawned subtask runs while
+ *   its data is hot, and recursive work stays depth-first and shallow)
+ * • An idle worker steals the OLDEST tasks (usually the biggest pieces of
+ *   work) from a random victim, up to half of that lane in one go; busy
+ *   victims are skipped rather than waited for
+ * • Priority lanes, 1 = highest (same convention as CollectionsDemo's
+ *   Task): a worker serves lane 1 (own, then stolen) before lane 2...
+ * • Aging: after 32 consecutive higher-lane tasks a worker serves the
+ *   lowest lane first once, so a flood of urgent work cannot starve it
+ * ✗ No ordering promise between unkeyed tasks
+ *
+ * KEY AFFINITY:
+ * • Tasks with a key always run on the worker the key hashes to, from a
+ *   queue nobody steals from → tasks for one key run one at a time, in
+ *   submission order within a lane, and may mutate per-key state with
+ *   no lock
+ * ✗ A hot key is limited to one worker (its unkeyed work is still stolen)
+ *
+ * IDLE WORKERS park (no spinning); submit() unparks one if any is idle.
+ */
+final class WorkStealingScheduler implements Executor, AutoCloseable {
+    static final int PRIORITIES = 3;
+    static final int DEFAULT_PRIORITY = 2;
+    private static final int AGING_INTERVAL = 32;
+    private static final int MAX_STEAL_BATCH = 32;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    record Task(String name, int priority, Object key, Runnable body) {
+        Task {
+            Objects.requireNonNull(body, "body");
+            if (priority < 1 || priority > PRIORITIES) {
+                throw new IllegalArgumentException("priority must be in [1, " + PRIORITIES + "]: " + priority);
+            }
+        }
+    }
+
+    record Stats(long executed, long stolen, long failed) { }
+
+    private final Worker[] workers;
+    private final AtomicInteger idle = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder stolen = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean shutdown;
+    private volatile boolean terminated;
+
+    WorkStealingScheduler(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    // Unkeyed, default priority
+    @Override
+    public void execute(Runnable body) {
+        submit(new Task("task", DEFAULT_PRIORITY, null, body));
+    }
+
+    void submit(String name, int priority, Runnable body) {
+        submit(new Task(name, priority, null, body));
+    }
+
+    // Runs serially with every other task submitted for the same key
+    void submit(String name, int priority, Object key, Runnable body) {
+        submit(new Task(name, priority, Objects.requireNonNull(key, "key"), body));
+    }
+
+    void submit(Task task) {
+        Worker current = currentWorker();
+        // Count first, then check: close() sets shutdown before it reads the
+        // counters, so either this sees shutdown or close() sees this count
+        submitted.increment();
+        if (shutdown && current == null) {
+            rejected.increment(); // never undo submitted: awaitQuiescence relies on it only growing
+            throw new RejectedExecutionException("Scheduler is shut down");
+        }
+        int lane = task.priority() - 1;
+        Worker target;
+        if (task.key() != null) {
+            target = workers[affinity(task.key())];
+        } else {
+            target = current != null ? current : workers[ThreadLocalRandom.current().nextInt(workers.length)];
+        }
+        target.push(task, lane);
+        if (idle.get() > 0) {
+            wake(target, task.key() != null);
+        }
+    }
+
+    // Waits until every submitted task (including ones they spawned) has run.
+    // All three counters only grow and a task is counted in submitted before
+    // it can complete or be rejected, so as submitted is read last, a match
+    // means nothing was in flight when completed was read
+    void awaitQuiescence() {
+        while (completed.sum() + rejected.sum() != submitted.sum()) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /** Stops accepting external tasks, runs everything already queued, stops the workers. */
+    @Override
+    public void close() {
+        shutdown = true;
+        awaitQuiescence();
+        terminated = true;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    Stats stats() {
+        return new Stats(completed.sum(), stolen.sum(), failed.sum());
+    }
+
+    private int affinity(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), workers.length);
+    }
+
+    private Worker currentWorker() {
+        return Thread.currentThread() instanceof Worker worker && worker.scheduler() == this ? worker : null;
+    }
+
+    // Pinned work must wake its own worker; anything else wakes whoever is idle
+    private void wake(Worker preferred, boolean onlyPreferred) {
+        if (preferred.wake() || onlyPreferred) {
+            return;
+        }
+        for (Worker worker : workers) {
+            if (worker.wake()) {
+                return;
+            }
+        }
+    }
+
+    private final class Worker extends Thread {
+        // Guards the queues below; held for a single push or poll
+        private final ReentrantLock lock = new ReentrantLock();
+        // One queue per lane, indexed by lane
+        private final List<ArrayDeque<Task>> pinned = new ArrayList<>(PRIORITIES);
+        private final List<ArrayDeque<Task>> deque = new ArrayList<>(PRIORITIES);
+        // Bit per non-empty lane, written under the lock, read without it:
+        // empty lanes and victims are skipped without locking anything
+        private volatile int pinnedMask;
+        private volatile int dequeMask;
+        private final AtomicBoolean parked = new AtomicBoolean();
+
+        Worker(int index) {
+            super("ws-worker-" + index);
+            setDaemon(true);
+            for (int lane = 0; lane < PRIORITIES; lane++) {
+                pinned.add(new ArrayDeque<>());
+                deque.add(new ArrayDeque<>());
+            }
+        }
+
+        WorkStealingScheduler scheduler() {
+            return WorkStealingScheduler.this;
+        }
+
+        void push(Task task, int lane) {
+            lock.lock();
+            try {
+                if (task.key() != null) {
+                    pinned.get(lane).addLast(task);
+                    pinnedMask |= 1 << lane;
+                } else {
+                    deque.get(lane).addLast(task);
+                    dequeMask |= 1 << lane;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // The CAS elects one waker per park: a burst of submits costs one unpark, not one each
+        boolean wake() {
+            if (parked.get() && parked.compareAndSet(true, false)) {
+                LockSupport.unpark(this);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            int streak = 0;
+            while (!terminated) {
+                boolean lowestFirst = streak >= AGING_INTERVAL;
+                Task task = find(lowestFirst);
+                if (task == null) {
+                    idle();
+                    continue;
+                }
+                streak = lowestFirst || task.priority() == PRIORITIES ? 0 : streak + 1;
+                try {
+                    task.body().run();
+                } catch (Throwable t) {
+                    failed.increment();
+                    getUncaughtExceptionHandler().uncaughtException(this, t); // worker survives
+                } finally {
+                    completed.increment();
+                }
+            }
+        }
+
+        // Lane by lane: own pinned, own deque (newest), then steal (oldest)
+        private Task find(boolean lowestFirst) {
+            for (int i = 0; i < PRIORITIES; i++) {
+                int lane = lowestFirst ? PRIORITIES - 1 - i : i;
+                int bit = 1 << lane;
+                if (((pinnedMask | dequeMask) & bit) != 0) {
+                    Task task = pollOwn(lane, bit);
+                    if (task != null) {
+                        return task;
+                    }
+                }
+                Task task = steal(lane, bit);
+                if (task != null) {
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        private Task pollOwn(int lane, int bit) {
+            lock.lock();
+            try {
+                Task task = pinned.get(lane).pollFirst();
+                if (task != null) {
+                    if (pinned.get(lane).isEmpty()) {
+                        pinnedMask &= ~bit;
+                    }
+                    return task;
+                }
+                return pollDeque(lane, bit, false);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Caller holds lock. Owner takes the newest (tail), thieves the oldest (head)
+        private Task pollDeque(int lane, int bit, boolean oldest) {
+            Task task = oldest ? deque.get(lane).pollFirst() : deque.get(lane).pollLast();
+            if (deque.get(lane).isEmpty()) {
+                dequeMask &= ~bit;
+            }
+            return task;
+        }
+
+        // Takes up to half the victim's lane (one to run, the rest queued
+        // here) so a drained worker is not back stealing after every task.
+        // Busy victims (lock held) are skipped, not waited for; the extras
+        // are queued after the victim's lock is released, so a thief never
+        // holds two locks
+        private Task steal(int lane, int bit) {
+            int start = ThreadLocalRandom.current().nextInt(workers.length);
+            for (int i = 0; i < workers.length; i++) {
+                Worker victim = workers[(start + i) % workers.length];
+                if (victim == this || (victim.dequeMask & bit) == 0 || !victim.lock.tryLock()) {
+                    continue;
+                }
+                Task task;
+                Task[] extra;
+                try {
+                    task = victim.pollDeque(lane, bit, true);
+                    if (task == null) {
+                        continue;
+                    }
+                    extra = new Task[Math.min(MAX_STEAL_BATCH, victim.deque.get(lane).size() / 2)];
+                    for (int j = 0; j < extra.length; j++) {
+                        extra[j] = victim.pollDeque(lane, bit, true);
+                    }
+                } finally {
+                    victim.lock.unlock();
+                }
+                if (extra.length > 0) {
+                    lock.lock();
+                    try {
+                        for (Task moved : extra) { // keep the victim's order
+                            deque.get(lane).addLast(moved);
+                        }
+                        dequeMask |= bit;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                stolen.add(1 + extra.length);
+                return task;
+            }
+            return null;
+        }
+
+        // Announce idleness BEFORE the final check: a concurrent submit()
+        // either sees parked/idle and unparks us, or we see its task
+        private void idle() {
+            parked.set(true);
+            idle.incrementAndGet();
+            try {
+                if (!hasWork() && !terminated) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            } finally {
+                idle.decrementAndGet();
+                parked.set(false);
+            }
+        }
+
+        private boolean hasWork() {
+            if ((pinnedMask | dequeMask) != 0) {
+                return true;
+            }
+            for (Worker worker : workers) {
+                if (worker.dequeMask != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.masterjava.core.functional;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * ROW OBJECTS vs COLUMNAR TABLE
+ * =============================
+ *
+ * Memory per row and aggregation speed of 1,000,000 employees held as a
+ * List<Employee> vs an {@link EmployeeTable}.
+ *
+ * DATA:
+ * • 2,000 distinct names, 12 departments
+ * • Rows are built the way a loader (CSV, JDBC) builds them: every row
+ *   gets its own String instances, so the list cannot share them
+ *
+ * MEASURED:
+ * • Retained heap after GC, per row
+ * • Average salary per department (groupingBy vs code-indexed arrays)
+ * • Total salary (mapToDouble().sum() vs a double[] loop)
+ *
+ * RUN:
+ *   mvn exec:java -Dexec.mainClass="com.masterjava.core.functional.ColumnarBenchmark"
+ *
+ * Indicative numbers only (no JMH forking/warm-up control); run with a
+ * heap of at least 1 GB.
+ */
+public class ColumnarBenchmark {
+    private static final int ROWS = 1_000_000;
+    private static final int NAMES = 2_000;
+    private static final String[] DEPARTMENTS = {
+        "IT", "HR", "Finance", "Sales", "Legal", "Ops", "Support", "R&D", "Marketing", "QA", "Security", "Admin"
+    };
+
+    public static void main(String[] args) {
+        System.out.println("╔════════════════════════════════════════════════════════╗");
+        System.out.println("║   ROW OBJECTS vs COLUMNAR TABLE (1M employees)         ║");
+        System.out.println("╚════════════════════════════════════════════════════════╝\n");
+
+        long baseline = usedHeap();
+        List<Employee> rows = loadRows();
+        long rowBytes = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        EmployeeTable table = EmployeeTable.of(loadRows()); // loader rows become garbage
+        long tableBytes = usedHeap() - baseline;
+
+        System.out.printf("  %-34s %14s %14s%n", "", "List<Employee>", "EmployeeTable");
+        System.out.printf("  %-34s %14.1f %14.1f%n", "Heap bytes per row", (double) rowBytes / ROWS,
+            (double) tableBytes / ROWS);
+
+        double rowAvg = time(() -> rows.stream().collect(Collectors.groupingBy(
+            Employee::getDepartment, Collectors.averagingDouble(Employee::getSalary))).size());
+        double tableAvg = time(() -> table.averageSalaryByDepartment().size());
+        System.out.printf("  %-34s %11.2f ms %11.2f ms%n", "Average salary by department", rowAvg, tableAvg);
+
+        double rowSum = time(() -> rows.stream().mapToDouble(Employee::getSalary).sum());
+        double tableSum = time(table::totalSalary);
+        System.out.printf("  %-34s %11.2f ms %11.2f ms%n", "Total salary", rowSum, tableSum);
+
+        // Keep both alive until measured
+        System.out.println("\n  Rows: " + rows.size() + " / " + table.size());
+    }
+
+    private static List<Employee> loadRows() {
+        Random random = new Random(42);
+        List<Employee> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            String name = new String("employee-" + random.nextInt(NAMES));
+            String department = new String(DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+            rows.add(new Employee(name, department, 40_000 + random.nextInt(80_000)));
+        }
+        return rows;
+    }
+
+    // Median of 7 runs, in milliseconds
+    private static double time(DoubleSupplier work) {
+        double[] millis = new double[7];
+        double sink = 0;
+        for (int i = 0; i < millis.length; i++) {
+            long began = System.nanoTime();
+            sink += work.getAsDouble();
+            millis[i] = (System.nanoTime() - began) / 1e6;
+        }
+        if (sink == 42) {
+            System.out.println(); // defeat dead-code elimination
+        }
+        Arrays.sort(millis);
+        return millis[millis.length / 2];
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,195 @@
+package com.masterjava.core.functional;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * COLUMNAR EMPLOYEE TABLE (STRUCT OF ARRAYS)
+ * ==========================================
+ *
+ * Stores {@link Employee} rows as parallel primitive columns instead of
+ * one heap object per row.
+ *
+ * ROW STORE (List<Employee>):              COLUMN STORE (this class):
+ * ┌──────┐   ┌─────────────────────┐       names       [ 0 | 1 | 0 | 2 ...]  int codes
+ * │ ref ─┼──→│ header | name ─┐    │       departments [ 0 | 1 | 0 | 1 ...]  int codes
+ * │ ref  │   │ dept ─┐| salary│    │       salaries    [7e4|5e4|8e4|5.5e4 ]  double
+ * │ ref  │   └───────┼────────┼────┘
+ * └──────┘           ↓        ↓            dictionaries: code ↔ String,
+ *              String+byte[] each          each distinct value stored once
+ *
+ * WHY:
+ * ✓ ~16 bytes per row (4 + 4 + 8) instead of an object header, two
+ *   references and, when rows come from a loader, two String copies
+ * ✓ A salary aggregation reads one contiguous double[]: sequential,
+ *   prefetch-friendly, no pointer chasing, no unboxing
+ * ✓ Grouping by department indexes small arrays by its int code instead
+ *   of hashing Strings into a HashMap per row
+ * ✗ Reading a whole row back means re-assembling it (row())
+ * ✗ Appends only; not thread-safe (like ArrayList)
+ */
+class EmployeeTable {
+    private final Dictionary names = new Dictionary();
+    private final Dictionary departments = new Dictionary();
+    private int[] nameCodes;
+    private int[] departmentCodes;
+    private double[] salaries;
+    private int size;
+
+    EmployeeTable() {
+        this(16);
+    }
+
+    EmployeeTable(int initialCapacity) {
+        nameCodes = new int[Math.max(initialCapacity, 1)];
+        departmentCodes = new int[nameCodes.length];
+        salaries = new double[nameCodes.length];
+    }
+
+    static EmployeeTable of(Collection<Employee> employees) {
+        EmployeeTable table = new EmployeeTable(employees.size());
+        for (Employee employee : employees) {
+            table.append(employee);
+        }
+        return table;
+    }
+
+    // Returns the new row's index
+    int append(Employee employee) {
+        return append(employee.getName(), employee.getDepartment(), employee.getSalary());
+    }
+
+    int append(String name, String department, double salary) {
+        if (size == salaries.length) {
+            int capacity = size * 2;
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+            departmentCodes = Arrays.copyOf(departmentCodes, capacity);
+            salaries = Arrays.copyOf(salaries, capacity);
+        }
+        nameCodes[size] = names.encode(name);
+        departmentCodes[size] = departments.encode(department);
+        salaries[size] = salary;
+        return size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String name(int row) {
+        return names.decode(nameCodes[checkRow(row)]);
+    }
+
+    String department(int row) {
+        return departments.decode(departmentCodes[checkRow(row)]);
+    }
+
+    double salary(int row) {
+        return salaries[checkRow(row)];
+    }
+
+    // Re-assembles one row as an object
+    Employee row(int row) {
+        return new Employee(name(row), department(row), salary(row));
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // SCANS & AGGREGATIONS
+    // ═══════════════════════════════════════════════════════════
+
+    DoubleStream salaries() {
+        return Arrays.stream(salaries, 0, size);
+    }
+
+    double totalSalary() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += salaries[i];
+        }
+        return total;
+    }
+
+    int countSalaryAbove(double threshold) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (salaries[i] > threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    Map<String, Long> countByDepartment() {
+        long[] counts = new long[departments.size()];
+        for (int i = 0; i < size; i++) {
+            counts[departmentCodes[i]]++;
+        }
+        Map<String, Long> result = new TreeMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                result.put(departments.decode(code), counts[code]);
+            }
+        }
+        return result;
+    }
+
+    Map<String, Double> averageSalaryByDepartment() {
+        double[] sums = new double[departments.size()];
+        long[] counts = new long[sums.length];
+        for (int i = 0; i < size; i++) {
+            int code = departmentCodes[i];
+            sums[code] += salaries[i];
+            counts[code]++;
+        }
+        Map<String, Double> result = new TreeMap<>();
+        for (int code = 0; code < sums.length; code++) {
+            if (counts[code] > 0) {
+                result.put(departments.decode(code), sums[code] / counts[code]);
+            }
+        }
+        return result;
+    }
+
+    // Bytes held by the columns (allocated capacity) plus one copy of each distinct string
+    long estimatedBytes() {
+        return (long) salaries.length * (Integer.BYTES * 2 + Double.BYTES)
+            + names.estimatedBytes() + departments.estimatedBytes();
+    }
+
+    private int checkRow(int row) {
+        return Objects.checkIndex(row, size);
+    }
+
+    // String ↔ dense int code; codes are assigned in first-seen order
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        // Rough: String object + byte[] per entry, plus map/list overhead
+        long estimatedBytes() {
+            long bytes = 0;
+            for (String value : values) {
+                bytes += 24 + 16 + value.length() + 48;
+            }
+            return bytes;
+        }
+    }
+}
@@ -481,10 +481,18 @@ public class LambdaStreamsDemo {
             .collect(Collectors.partitioningBy(e -> e.getSalary() > 60000));
         System.out.println("    High salary: " + partitioned.get(true).size());
         System.out.println("    Low salary: " + partitioned.get(false).size());
+
+        // Same aggregation over a columnar table (see ColumnarBenchmark)
+        System.out.println("\n  Columnar table (average salary by department):");
+        EmployeeTable table = EmployeeTable.of(employees);
+        table.averageSalaryByDepartment().forEach((dept, avg) ->
+            System.out.println("    " + dept + ": $" + String.format("%.0f", avg))
+        );
         
         System.out.println("\n  💡 Grouping operations:");
         System.out.println("  - groupingBy: group by key");
         System.out.println("  - partitioningBy: split by predicate (true/false)");
+        System.out.println("  - Hot aggregations over many rows: keep columns, not objects");
     }
 
     private static void demonstrateParallelStreams() {
@@ -588,27 +596,6 @@ interface Calculator {
     int calculate(int a, int b);
 }
 
-class Employee {
-    private String name;
-    private String department;
-    private double salary;
-    
-    public Employee(String name, String department, double salary) {
-        this.name = name;
-        this.department = department;
-        this.salary = salary;
-    }
-    
-    public String getName() { return name; }
-    public String getDepartment() { return department; }
-    public double getSalary() { return salary; }
-    
-    @Override
-    public String toString() {
-        return name + " (" + department + ", $" + salary + ")";
-    }
-}
-
 class Product {
     private String name;
     private double price;
@@ -0,0 +1,341 @@
+package com.masterjava.core.io;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * DIRECT BYTEBUFFER POOL (SLABS CARVED BY A BUDDY ALLOCATOR)
+ * ==========================================================
+ *
+ * Hands out direct (off-heap) buffers with explicit allocate/free, carved
+ * out of a few large chunks that are allocated once and kept.
+ *
+ * WHY NOT allocateDirect() PER BUFFER:
+ * • allocateDirect zeroes the memory, takes a global reservation lock and
+ *   may even trigger System.gc() when -XX:MaxDirectMemorySize is reached
+ * • Its memory is returned only when the GC notices the ByteBuffer object
+ *   is unreachable: a heap with little garbage can pin gigabytes natively
+ *
+ * LAYOUT (chunk = 1 MB, min block = 4 KB, sizes rounded up to 2^n):
+ * ┌──────────────────────────── chunk 0 (allocateDirect, 1 MB) ─────────────┐
+ * │ 512K free                          │ 256K used  │ 128K │ 64K │ 64K used  │
+ * └─────────────────────────────────────────────────────────────────────────┘
+ *   free lists per size class:  4K 8K 16K ... 512K [chunk0@0] 1M
+ *
+ * • allocate(n): take the smallest free block ≥ n, splitting larger ones
+ *   in halves (the unused half goes to the next smaller free list)
+ * • free: if the block's "buddy" (its other half) is free too, merge them
+ *   and repeat one size up, so free space does not splinter
+ *
+ * UNPOOLED FALLBACK (allocate never fails for lack of pool space):
+ * • A request larger than a chunk, or one arriving when all maxChunks are
+ *   in use and no block fits, gets its own allocateDirect buffer
+ * • It is still a Lease: counted in usage() (unpooledBuffers/Bytes) and
+ *   leak-checked like any other
+ * • But close() cannot free it: its native memory goes back only when the
+ *   GC collects the buffer (see above), so a steadily non-zero unpooled
+ *   count means the pool is sized too small
+ *
+ * LEAK DETECTION:
+ * • Every leased buffer is registered with a Cleaner: a buffer that
+ *   becomes unreachable without close() is counted as a leak, reported
+ *   (with the allocation stack trace when tracking is on), and its block
+ *   reclaimed
+ * • The Cleaner watches the ByteBuffer, not the Lease: a caller that
+ *   drops the Lease but keeps the buffer is still writing to the block,
+ *   which must not go to a second owner until the buffer itself is gone
+ *
+ * RULES FOR CALLERS:
+ * ✓ try (Lease lease = pool.allocate(n)) { ... lease.buffer() ... }
+ * ✗ Never keep lease.buffer() (or a duplicate/slice of it) after close():
+ *   the block is handed to the next caller
+ * ✗ Never let a duplicate/slice outlive lease.buffer() either: views
+ *   reference the underlying chunk, not the leased buffer, so they do
+ *   not hold the block back from leak reclamation
+ * ✗ Contents are not zeroed on allocate
+ *
+ * Thread-safe (allocation and free synchronize on the pool; both are a
+ * few free-list operations).
+ */
+public final class DirectBufferPool {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    public static final int DEFAULT_MIN_BLOCK = 4 << 10;
+    public static final int DEFAULT_MAX_CHUNKS = 64;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final int MAX_LEAK_REPORTS = 16;
+
+    private final int chunkSize;
+    private final int minBlock;
+    private final int maxChunks;
+    private final int maxOrder;
+    private final boolean trackAllocationSites;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    // Free blocks per order (block size = minBlock << order), keyed by
+    // (chunk << 32 | offset); a set so a buddy can be found and removed in O(1)
+    private final List<Set<Long>> free;
+    private final Deque<String> leakReports = new ArrayDeque<>();
+
+    private long allocatedBytes;
+    private long requestedBytes;
+    private int liveBuffers;
+    private int unpooledBuffers;
+    private long unpooledBytes;
+    private long leaks;
+
+    public DirectBufferPool() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_MIN_BLOCK, DEFAULT_MAX_CHUNKS, false);
+    }
+
+    /**
+     * @param chunkSize            bytes per chunk; power of two
+     * @param minBlock             smallest size class; power of two ≤ chunkSize
+     * @param maxChunks            chunks the pool may ever allocate
+     * @param trackAllocationSites capture a stack trace per allocation so
+     *                             leak reports say where the lease came from
+     */
+    public DirectBufferPool(int chunkSize, int minBlock, int maxChunks, boolean trackAllocationSites) {
+        if (Integer.bitCount(chunkSize) != 1 || Integer.bitCount(minBlock) != 1
+                || minBlock > chunkSize || maxChunks < 1) {
+            throw new IllegalArgumentException("chunkSize=" + chunkSize + ", minBlock=" + minBlock
+                + ", maxChunks=" + maxChunks);
+        }
+        this.chunkSize = chunkSize;
+        this.minBlock = minBlock;
+        this.maxChunks = maxChunks;
+        this.maxOrder = Integer.numberOfTrailingZeros(chunkSize / minBlock);
+        this.trackAllocationSites = trackAllocationSites;
+        this.free = new ArrayList<>(maxOrder + 1);
+        for (int order = 0; order <= maxOrder; order++) {
+            free.add(new LinkedHashSet<>());
+        }
+    }
+
+    /**
+     * Returns a lease on a direct buffer with position 0 and limit
+     * {@code size} (its capacity is the rounded-up size class). Falls back
+     * to an unpooled buffer when the request cannot be carved from a chunk.
+     */
+    public Lease allocate(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        Throwable site = trackAllocationSites ? new Throwable("Lease allocated here") : null;
+        int order = size > chunkSize ? -1 : orderFor(size);
+        ByteBuffer buffer = null;
+        long key = -1;
+        synchronized (this) {
+            if (order >= 0) {
+                key = takeBlock(order);
+            }
+            if (key >= 0) {
+                buffer = chunks.get((int) (key >>> 32)).slice((int) key, blockSize(order)).limit(size);
+                allocatedBytes += blockSize(order);
+                requestedBytes += size;
+                liveBuffers++;
+            }
+        }
+        if (buffer == null) {
+            // Outside the lock: allocateDirect may stall in a System.gc()
+            ByteBuffer unpooled = ByteBuffer.allocateDirect(size);
+            synchronized (this) {
+                unpooledBuffers++;
+                unpooledBytes += size;
+            }
+            return new Lease(unpooled, new Block(this, -1, -1, size, site));
+        }
+        return new Lease(buffer, new Block(this, key, order, size, site));
+    }
+
+    public synchronized Usage usage() {
+        int largest = 0;
+        long freeBytes = 0;
+        for (int order = 0; order <= maxOrder; order++) {
+            if (!free.get(order).isEmpty()) {
+                largest = blockSize(order);
+                freeBytes += (long) free.get(order).size() * blockSize(order);
+            }
+        }
+        return new Usage(chunks.size(), (long) chunks.size() * chunkSize, allocatedBytes, requestedBytes,
+                         freeBytes, largest, liveBuffers, unpooledBuffers, unpooledBytes, leaks);
+    }
+
+    // Most recent leak descriptions, oldest first
+    public synchronized List<String> leakReports() {
+        return List.copyOf(leakReports);
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // BUDDY ALLOCATION
+    // ═══════════════════════════════════════════════════════════
+
+    // Key of a free block of the given order, or -1 if no block fits and
+    // the pool may not grow
+    private long takeBlock(int order) {
+        int available = order;
+        while (available <= maxOrder && free.get(available).isEmpty()) {
+            available++;
+        }
+        if (available > maxOrder) {
+            if (chunks.size() == maxChunks) {
+                return -1;
+            }
+            chunks.add(ByteBuffer.allocateDirect(chunkSize));
+            free.get(maxOrder).add((long) (chunks.size() - 1) << 32);
+            available = maxOrder;
+        }
+        Iterator<Long> first = free.get(available).iterator();
+        long block = first.next();
+        first.remove();
+        // Split down to the requested size; each upper half becomes free
+        while (available > order) {
+            available--;
+            free.get(available).add(block + blockSize(available));
+        }
+        return block;
+    }
+
+    private synchronized void release(Block block, boolean leaked) {
+        if (leaked) {
+            leaks++;
+            if (leakReports.size() == MAX_LEAK_REPORTS) {
+                leakReports.removeFirst();
+            }
+            leakReports.addLast(describeLeak(block));
+        }
+        if (block.order < 0) {
+            unpooledBuffers--;
+            unpooledBytes -= block.size;
+            return;
+        }
+        allocatedBytes -= blockSize(block.order);
+        requestedBytes -= block.size;
+        liveBuffers--;
+        long key = block.key;
+        int order = block.order;
+        // Merge with the buddy (offset XOR size) while it is free
+        while (order < maxOrder && free.get(order).remove(key ^ blockSize(order))) {
+            key &= ~(long) blockSize(order);
+            order++;
+        }
+        free.get(order).add(key);
+    }
+
+    private String describeLeak(Block block) {
+        String leak = "Leaked " + block.size + "-byte direct buffer (never closed)";
+        if (block.site == null) {
+            return leak + "; enable trackAllocationSites to see where it was allocated";
+        }
+        StringBuilder report = new StringBuilder(leak).append(", allocated at:");
+        for (StackTraceElement frame : block.site.getStackTrace()) {
+            report.append("\n\tat ").append(frame);
+        }
+        return report.toString();
+    }
+
+    private int orderFor(int size) {
+        int blocks = (size + minBlock - 1) / minBlock;
+        return 32 - Integer.numberOfLeadingZeros(blocks - 1);
+    }
+
+    private int blockSize(int order) {
+        return minBlock << order;
+    }
+
+    // ═══════════════════════════════════════════════════════════
+    // LEASES
+    // ═══════════════════════════════════════════════════════════
+
+    /**
+     * One allocated buffer. close() returns it to the pool; closing twice
+     * is a bug and throws.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final ByteBuffer buffer;
+        private final Block block;
+        private final Cleaner.Cleanable cleanable;
+        private boolean closed;
+
+        private Lease(ByteBuffer buffer, Block block) {
+            this.buffer = buffer;
+            this.block = block;
+            this.cleanable = CLEANER.register(buffer, block);
+        }
+
+        public ByteBuffer buffer() {
+            if (closed) {
+                throw new IllegalStateException("Lease already closed");
+            }
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                throw new IllegalStateException("Lease already closed");
+            }
+            closed = true;
+            block.explicit = true;
+            cleanable.clean();
+        }
+    }
+
+    // Cleaner action: must not reference the buffer (or the Lease holding
+    // it), or the buffer never becomes unreachable
+    private static final class Block implements Runnable {
+        final DirectBufferPool pool;
+        final long key;
+        final int order;  // -1 for an unpooled buffer
+        final int size;
+        final Throwable site;
+        volatile boolean explicit;
+
+        Block(DirectBufferPool pool, long key, int order, int size, Throwable site) {
+            this.pool = pool;
+            this.key = key;
+            this.order = order;
+            this.size = size;
+            this.site = site;
+        }
+
+        @Override
+        public void run() {
+            pool.release(this, !explicit);
+        }
+    }
+
+    /**
+     * Point-in-time usage.
+     *
+     * • internalFragmentation: share of allocated bytes lost to rounding
+     *   requests up to their size class
+     * • externalFragmentation: share of free bytes NOT in the largest free
+     *   block (free, but too splintered for a big request); no block can
+     *   exceed one chunk, so whole free chunks count as unfragmented
+     */
+    public record Usage(int chunks, long reservedBytes, long allocatedBytes, long requestedBytes,
+                        long freeBytes, int largestFreeBlock, int liveBuffers,
+                        int unpooledBuffers, long unpooledBytes, long leaks) {
+
+        public double internalFragmentation() {
+            return allocatedBytes == 0 ? 0 : 1 - (double) requestedBytes / allocatedBytes;
+        }
+
+        public double externalFragmentation() {
+            long chunkSize = chunks == 0 ? 0 : reservedBytes / chunks;
+            long attainable = Math.min(freeBytes, chunkSize);
+            return attainable == 0 ? 0 : 1 - (double) largestFreeBlock / attainable;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("chunks=%d reserved=%dK allocated=%dK requested=%dK free=%dK largestFree=%dK"
+                    + " live=%d unpooled=%d (%dK) leaks=%d internalFrag=%.1f%% externalFrag=%.1f%%",
+                chunks, reservedBytes >> 10, allocatedBytes >> 10, requestedBytes >> 10, freeBytes >> 10,
+                largestFreeBlock >> 10, liveBuffers, unpooledBuffers, unpooledBytes >> 10, leaks,
+                internalFragmentation() * 100, externalFragmentation() * 100);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.masterjava.core.io;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -68,6 +70,10 @@ public class FileIODemo {
     private static final String DEMO_FILE = WORK_DIR + "/demo.txt";
     private static final String DEMO_BIN = WORK_DIR + "/demo.bin";
     private static final String DEMO_OBJ = WORK_DIR + "/demo.obj";
+
+    // Direct buffers for channel I/O, allocated off-heap once and reused
+    static final DirectBufferPool BUFFER_POOL = new DirectBufferPool();
+    private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
     
     public static void main(String[] args) {
         
@@ -146,6 +152,13 @@ public class FileIODemo {
             demonstrateModernTechniques();
             System.out.println();
 
+            // ═══════════════════════════════════════════════════════════
+            // SECTION 11: CHANNEL I/O WITH POOLED DIRECT BUFFERS
+            // ═══════════════════════════════════════════════════════════
+            System.out.println("━━━ 11. CHANNEL I/O WITH POOLED DIRECT BUFFERS ━━━");
+            demonstratePooledChannelIO();
+            System.out.println();
+
             // Cleanup
             cleanup();
 
@@ -457,6 +470,51 @@ public class FileIODemo {
         System.out.println("  - Cleaner code");
     }
 
+    private static void demonstratePooledChannelIO() throws IOException {
+        Path source = Paths.get(DEMO_BIN);
+        Path copy = Paths.get(WORK_DIR, "demo_copy.bin");
+        byte[] data = new byte[256 * 1024];
+        new Random(42).nextBytes(data);
+        Files.write(source, data);
+
+        long copied = copy(source, copy);
+        System.out.println("  ✓ Copied " + copied + " bytes through a pooled "
+            + CHANNEL_BUFFER_SIZE / 1024 + " KB direct buffer");
+        System.out.println("  Identical: " + Arrays.equals(data, Files.readAllBytes(copy)));
+        Files.deleteIfExists(copy);
+
+        System.out.println("  Pool: " + BUFFER_POOL.usage());
+        System.out.println("\n  💡 Why direct + pooled:");
+        System.out.println("  - Heap buffers are copied to a temporary direct buffer on every channel read/write");
+        System.out.println("  - allocateDirect is slow and only freed when the GC gets to it");
+        System.out.println("  - A pool allocates off-heap memory once and frees explicitly (close())");
+    }
+
+    /**
+     * Copies a file through FileChannels using one direct buffer leased
+     * from {@link #BUFFER_POOL}: the kernel reads into and writes from it
+     * directly, and the buffer goes back to the pool afterwards.
+     *
+     * @return bytes copied
+     */
+    static long copy(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DirectBufferPool.Lease lease = BUFFER_POOL.allocate(CHANNEL_BUFFER_SIZE)) {
+            ByteBuffer buffer = lease.buffer();
+            long total = 0;
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    total += out.write(buffer);
+                }
+                buffer.clear();
+            }
+            return total;
+        }
+    }
+
     private static void cleanup() {
         try {
             Files.deleteIfExists(Paths.get(DEMO_FILE));
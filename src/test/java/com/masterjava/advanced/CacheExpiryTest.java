@@ -0,0 +1,86 @@
+package com.masterjava.advanced;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class CacheExpiryTest {
+
+    @Test
+    public void entryExpiresAfterWrite() throws InterruptedException {
+        ConcurrentCache<String, Integer> cache = ConcurrentCache.<String, Integer>builder()
+            .expireAfterWrite(Duration.ofMillis(50))
+            .build();
+        cache.put("a", 1);
+        assertEquals(Optional.of(1), cache.get("a"));
+
+        Thread.sleep(100);
+
+        assertEquals(Optional.empty(), cache.get("a"));
+    }
+
+    @Test
+    public void perPutTimeToLiveOverridesDefault() throws InterruptedException {
+        ConcurrentCache<String, Integer> cache = ConcurrentCache.<String, Integer>builder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+        cache.put("short", 1, Duration.ofMillis(50));
+        cache.put("long", 2);
+
+        Thread.sleep(100);
+
+        assertEquals(Optional.empty(), cache.get("short"));
+        assertEquals(Optional.of(2), cache.get("long"));
+    }
+
+    @Test
+    public void readsKeepIdleEntryAlive() throws InterruptedException {
+        ConcurrentCache<String, Integer> cache = ConcurrentCache.<String, Integer>builder()
+            .expireAfterAccess(Duration.ofMillis(300))
+            .build();
+        cache.put("a", 1);
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(100);
+            assertEquals("read " + i, Optional.of(1), cache.get("a"));
+        }
+
+        Thread.sleep(500);
+
+        assertEquals(Optional.empty(), cache.get("a"));
+    }
+
+    @Test
+    public void rewriteRestartsTimeToLive() throws InterruptedException {
+        ConcurrentCache<String, Integer> cache = ConcurrentCache.<String, Integer>builder()
+            .expireAfterWrite(Duration.ofMillis(300))
+            .build();
+        cache.put("a", 1);
+        Thread.sleep(200);
+        cache.put("a", 2);
+        Thread.sleep(200);
+
+        assertEquals(Optional.of(2), cache.get("a"));
+    }
+
+    @Test
+    public void expiredEntriesAreReclaimedByTheTimerWheel() throws InterruptedException {
+        ConcurrentCache<Integer, Integer> cache = ConcurrentCache.<Integer, Integer>builder()
+            .expireAfterWrite(Duration.ofMillis(20))
+            .recordStats()
+            .build();
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(100, cache.size());
+
+        // Level-0 buckets span ~1.07 s, so reclamation lags expiry by up to one bucket
+        Thread.sleep(2_300);
+        cache.cleanUp();
+
+        assertEquals(0, cache.size());
+        assertEquals(100, cache.stats().expirationCount());
+    }
+}
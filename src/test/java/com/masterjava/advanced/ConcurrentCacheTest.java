@@ -0,0 +1,125 @@
+package com.masterjava.advanced;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentCacheTest {
+
+    @Test
+    public void getReturnsLatestPut() {
+        ConcurrentCache<String, Integer> cache = new ConcurrentCache<>(10);
+        cache.put("a", 1);
+        cache.put("a", 2);
+
+        assertEquals(Optional.of(2), cache.get("a"));
+        assertEquals(Optional.empty(), cache.get("b"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void boundedCacheNeverExceedsMaximumSize() {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(100);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+
+        assertTrue("size " + cache.size(), cache.size() <= 100);
+    }
+
+    @Test
+    public void frequentlyReadKeySurvivesScan() {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(100);
+        cache.put(-1, -1);
+        for (int i = 0; i < 10_000; i++) {
+            cache.get(-1);
+            cache.put(i, i);
+        }
+
+        assertEquals(Optional.of(-1), cache.get(-1));
+    }
+
+    @Test
+    public void clearRemovesEverything() {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(Optional.empty(), cache.get(7));
+    }
+
+    @Test
+    public void statsCountHitsAndMisses() {
+        ConcurrentCache<String, Integer> cache = ConcurrentCache.<String, Integer>builder()
+            .maximumSize(10)
+            .recordStats()
+            .build();
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test
+    public void statsSnapshotCannotBeChangedThroughItsHistogram() {
+        long[] histogram = new long[CacheStats.HISTOGRAM_BUCKETS];
+        histogram[10] = 1;
+        CacheStats stats = new CacheStats(0, 0, 1, 0, 1024, 0, 0, histogram);
+
+        histogram[10] = 0;
+        stats.loadLatencyHistogram()[10] = 0;
+
+        assertEquals(1, stats.loadLatencyHistogram()[10]);
+        assertEquals(2048, stats.loadLatencyPercentileNanos(50));
+    }
+
+    @Test
+    public void concurrentReadersAndWritersKeepTheBound() throws Exception {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(256);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            workers.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    for (int i = 0; i < 50_000; i++) {
+                        int key = random.nextInt(2_000);
+                        if (random.nextInt(4) == 0) {
+                            cache.put(key, key);
+                        } else {
+                            cache.get(key).ifPresent(value -> assertEquals(key, (int) value));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertNull(failure.get());
+        cache.cleanUp();
+        assertTrue("size " + cache.size(), cache.size() <= 256);
+    }
+}
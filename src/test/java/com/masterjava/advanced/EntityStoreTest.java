@@ -0,0 +1,154 @@
+package com.masterjava.advanced;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class EntityStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void idsAreDenseAndNeverReused() {
+        EntityStore<String> store = new EntityStore<>();
+        assertEquals(1, store.insert("a"));
+        assertEquals(2, store.insert("b"));
+        store.remove(2);
+
+        assertEquals(3, store.insert("c"));
+        assertNull(store.get(2));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void pagesWalkEveryLiveEntityOnce() {
+        EntityStore<Integer> store = new EntityStore<>();
+        for (int i = 1; i <= 10; i++) {
+            store.insert(i);
+        }
+
+        List<Integer> seen = new ArrayList<>();
+        Page<Integer> page = store.page(0, 3);
+        seen.addAll(page.items());
+        while (page.hasNext()) {
+            page = store.page(page.nextCursor(), 3);
+            seen.addAll(page.items());
+        }
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), seen);
+    }
+
+    @Test
+    public void deleteBetweenPagesDoesNotSkipRows() {
+        EntityStore<Integer> store = new EntityStore<>();
+        for (int i = 1; i <= 6; i++) {
+            store.insert(i);
+        }
+        Page<Integer> first = store.page(0, 3);
+        store.remove(1); // before the cursor: an offset-based cursor would now skip 4
+
+        Page<Integer> second = store.page(first.nextCursor(), 3);
+
+        assertEquals(List.of(1, 2, 3), first.items());
+        assertEquals(List.of(4, 5, 6), second.items());
+    }
+
+    @Test
+    public void deletedTailReportsNoNextPage() {
+        EntityStore<Integer> store = new EntityStore<>();
+        for (int i = 1; i <= 5; i++) {
+            store.insert(i);
+        }
+        store.remove(4);
+        store.remove(5);
+
+        Page<Integer> page = store.page(0, 3);
+
+        assertEquals(List.of(1, 2, 3), page.items());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    public void streamSkipsDeletedSlots() {
+        EntityStore<Integer> store = new EntityStore<>();
+        for (int i = 1; i <= 5000; i++) {
+            store.insert(i);
+        }
+        for (int i = 2; i <= 5000; i += 2) {
+            store.remove(i);
+        }
+
+        assertEquals(2500, store.stream().count());
+        assertEquals(2500L * 2500, store.stream().parallel().mapToLong(Integer::longValue).sum());
+    }
+
+    @Test
+    public void readViewSeesStateAtOpen() {
+        EntityStore<String> store = new EntityStore<>();
+        store.insert("a");
+        store.insert("b");
+
+        try (ReadView<String> view = store.openReadView()) {
+            store.insert("c");
+            store.remove(1);
+            Versioned<String> b = store.getVersioned(2);
+            assertTrue(store.compareAndUpdate(2, b.version(), "b2", (before, after) -> { }));
+
+            assertEquals(List.of("a", "b"), view.findAll());
+            assertEquals("a", view.findById(1));
+            assertNull(view.findById(3));
+            assertEquals(List.of("b2", "c"), store.values());
+        }
+    }
+
+    @Test
+    public void closingLastViewReleasesOldVersions() {
+        EntityStore<String> store = new EntityStore<>();
+        store.insert("a");
+        ReadView<String> view = store.openReadView();
+        store.remove(1);
+        assertTrue(store.pendingGarbage() > 0);
+
+        view.close();
+
+        assertEquals(0, store.openViewCount());
+        assertEquals(0, store.pendingGarbage());
+        assertThrows(IllegalStateException.class, () -> view.findById(1));
+    }
+
+    @Test
+    public void repositoryExposesReadViews() {
+        PersonRepository repository = new PersonRepository();
+        repository.save(new Person("Bob", 30));
+        ReadViewSource<Person> source = repository;
+
+        try (ReadView<Person> view = source.openReadView()) {
+            repository.delete(1);
+            assertEquals(1, view.findAll().size());
+            assertTrue(repository.findAll().isEmpty());
+        }
+    }
+
+    @Test
+    public void failedLogWriteStopsFurtherWrites() throws IOException {
+        EntityStore<String> store = EntityStore.durable(folder.getRoot().toPath(), Codec.UTF8, 8);
+        store.insert("a");
+        store.insert("b");
+        store.log().close(); // every append from here on fails
+
+        assertThrows(IllegalStateException.class, () -> store.remove(1));
+        // Memory is now ahead of the log, so nothing else may change it
+        IllegalStateException rejected = assertThrows(IllegalStateException.class,
+            () -> store.compareAndUpdate(2, 1, "b2", (before, after) -> { }));
+        assertNotNull(rejected.getCause());
+        assertEquals("b", store.get(2));
+        assertThrows(IllegalStateException.class, () -> store.insert("c"));
+        assertEquals(2, store.maxId());
+    }
+}
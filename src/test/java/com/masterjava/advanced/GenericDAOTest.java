@@ -0,0 +1,92 @@
+package com.masterjava.advanced;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class GenericDAOTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void staleVersionLosesTheRace() {
+        GenericDAO<String> dao = new GenericDAO<>();
+        int id = dao.save("v1");
+        long read = dao.findVersioned(id).orElseThrow().version();
+
+        assertTrue(dao.update(id, read, "first"));
+        assertFalse("second writer read the same version", dao.update(id, read, "second"));
+
+        assertEquals(Optional.of("first"), dao.findById(id));
+        assertEquals(read + 1, dao.findVersioned(id).orElseThrow().version());
+    }
+
+    @Test
+    public void updateOfDeletedEntityFails() {
+        GenericDAO<String> dao = new GenericDAO<>();
+        int id = dao.save("v1");
+        long read = dao.findVersioned(id).orElseThrow().version();
+        dao.delete(id);
+
+        assertFalse(dao.update(id, read, "v2"));
+        assertEquals(Optional.empty(), dao.update(id, value -> value + "!"));
+        assertEquals(Optional.empty(), dao.findById(id));
+    }
+
+    @Test
+    public void concurrentReadModifyWritesLoseNothing() throws Exception {
+        GenericDAO<String> dao = new GenericDAO<>();
+        int id = dao.save("");
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                done.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        dao.update(id, value -> value + "x");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : done) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Versioned<String> result = dao.findVersioned(id).orElseThrow();
+        assertEquals(threads * perThread, result.value().length());
+        assertEquals(1 + threads * perThread, result.version());
+    }
+
+    @Test
+    public void durableUpdatesReplayWithTheirVersion() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        int id;
+        try (GenericDAO<String> dao = new GenericDAO<>(dir, Codec.UTF8)) {
+            id = dao.save("v1");
+            dao.update(id, value -> "v2");
+            dao.update(id, value -> "v3");
+        }
+
+        try (GenericDAO<String> reopened = new GenericDAO<>(dir, Codec.UTF8)) {
+            Versioned<String> replayed = reopened.findVersioned(id).orElseThrow();
+            assertEquals("v3", replayed.value());
+            assertEquals(3, replayed.version());
+            assertFalse("old version must still conflict after replay", reopened.update(id, 2, "stale"));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.masterjava.advanced;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class LoadingCacheTest {
+
+    @Test
+    public void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<String, String> cache = ConcurrentCache.<String, String>builder()
+            .maximumSize(10)
+            .build(key -> {
+                loads.incrementAndGet();
+                await(release);
+                return key.toUpperCase();
+            });
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("k")));
+            }
+            waitUntil(() -> cache.loadsInFlight() == 1 && loads.get() == 1);
+            Thread.sleep(50); // let the other callers reach the shared future
+            release.countDown();
+            for (Future<Optional<String>> result : results) {
+                assertEquals(Optional.of("K"), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void staleReadTriggersRefresh() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        LoadingCache<String, Integer> cache = ConcurrentCache.<String, Integer>builder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .refreshAfterWrite(Duration.ofMillis(50))
+            .build(key -> version.incrementAndGet());
+        assertEquals(Optional.of(1), cache.get("k"));
+
+        Thread.sleep(100);
+        assertEquals("stale value is served while refreshing", Optional.of(1), cache.get("k"));
+        waitUntil(() -> cache.loadsInFlight() == 0);
+
+        assertEquals(Optional.of(2), cache.get("k"));
+    }
+
+    @Test
+    public void refreshDoesNotOverwriteConcurrentPut() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<String, String> cache = ConcurrentCache.<String, String>builder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .refreshAfterWrite(Duration.ofMillis(50))
+            .build(key -> {
+                if (calls.getAndIncrement() == 0) {
+                    return "loaded";
+                }
+                refreshStarted.countDown();
+                await(release);
+                return "refreshed";
+            });
+        assertEquals(Optional.of("loaded"), cache.get("k"));
+        Thread.sleep(100);
+        cache.get("k"); // starts the refresh
+        assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+
+        cache.put("k", "written");
+        release.countDown();
+        waitUntil(() -> cache.loadsInFlight() == 0);
+
+        assertEquals(Optional.of("written"), cache.get("k"));
+    }
+
+    @Test
+    public void missLoadDoesNotOverwriteConcurrentPut() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<String, String> cache = ConcurrentCache.<String, String>builder()
+            .build(key -> {
+                loadStarted.countDown();
+                await(release);
+                return "loaded";
+            });
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<String>> miss = pool.submit(() -> cache.get("k"));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+            cache.put("k", "written");
+            release.countDown();
+
+            assertEquals(Optional.of("loaded"), miss.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(Optional.of("written"), cache.get("k"));
+    }
+
+    @Test
+    public void nullFromLoaderIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<String, String> cache = ConcurrentCache.<String, String>builder()
+            .build(key -> {
+                loads.incrementAndGet();
+                return null;
+            });
+
+        assertEquals(Optional.empty(), cache.get("k"));
+        assertEquals(Optional.empty(), cache.get("k"));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not reached within 5 s");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.masterjava.advanced;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class OffHeapTierTest {
+
+    @Test
+    public void removeReturnsStoredValueOnce() {
+        OffHeapTier<String, String> tier = new OffHeapTier<>(Codec.UTF8, 4096, 1024);
+        tier.put("k", "value", 42);
+
+        OffHeapTier.Promoted<String> promoted = tier.remove("k");
+        assertEquals("value", promoted.value());
+        assertEquals(42, promoted.expiresAt());
+        assertNull(tier.remove("k"));
+        assertEquals(0, tier.liveBytes());
+    }
+
+    @Test
+    public void invalidateDropsValue() {
+        OffHeapTier<String, String> tier = new OffHeapTier<>(Codec.UTF8, 4096, 1024);
+        tier.put("k", "value", Long.MAX_VALUE);
+
+        tier.invalidate("k");
+
+        assertNull(tier.remove("k"));
+        assertEquals(0, tier.size());
+    }
+
+    @Test
+    public void wrappingRingEvictsOldestSlab() {
+        OffHeapTier<Integer, String> tier = new OffHeapTier<>(Codec.UTF8, 2048, 1024);
+        String value = "x".repeat(500);
+        for (int i = 0; i < 6; i++) {
+            tier.put(i, value, Long.MAX_VALUE);
+        }
+
+        assertNull(tier.remove(0));
+        assertEquals(value, tier.remove(5).value());
+        assertTrue(tier.evictions() > 0);
+    }
+
+    @Test
+    public void recyclingSlabKeepsKeysRewrittenElsewhere() {
+        OffHeapTier<Integer, String> tier = new OffHeapTier<>(Codec.UTF8, 2048, 1024);
+        String value = "x".repeat(500);
+        String moved = "y".repeat(500);
+        tier.put(0, value, Long.MAX_VALUE); // slab 0
+        tier.put(1, value, Long.MAX_VALUE); // slab 0
+        tier.put(0, moved, Long.MAX_VALUE); // slab 1; its slab-0 copy is dead
+        tier.put(2, value, Long.MAX_VALUE); // slab 1
+        tier.put(3, value, Long.MAX_VALUE); // wraps: slab 0 is wiped
+
+        assertEquals(1, tier.evictions());
+        assertNull(tier.remove(1));
+        assertEquals(moved, tier.remove(0).value());
+        assertEquals(value, tier.remove(3).value());
+    }
+
+    @Test
+    public void evictedValueIsPromotedBack() {
+        ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder()
+            .maximumSize(2)
+            .offHeapTier(Codec.UTF8, 1 << 20)
+            .build();
+        cache.put("k", "v1");
+        pushOutOfHeap(cache);
+
+        assertEquals(Optional.of("v1"), cache.get("k"));
+    }
+
+    @Test
+    public void putInvalidatesTierCopy() throws InterruptedException {
+        ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder()
+            .maximumSize(2)
+            .offHeapTier(Codec.UTF8, 1 << 20)
+            .build();
+        cache.put("k", "v1");
+        pushOutOfHeap(cache); // v1 now lives in the tier
+
+        cache.put("k", "v2", Duration.ofMillis(20));
+        // Let v2 expire and be reclaimed from the map (level-0 wheel buckets span ~1.07 s)
+        Thread.sleep(2_300);
+        cache.cleanUp();
+
+        assertEquals("stale v1 must not be promoted", Optional.empty(), cache.get("k"));
+    }
+
+    @Test
+    public void plainCachePutInvalidatesTierCopy() {
+        OffHeapTier<String, String> tier = new OffHeapTier<>(Codec.UTF8, 1 << 20);
+        Cache<String, String> cache = new Cache<>(2, tier);
+        cache.put("k", "v1");
+        for (int i = 0; i < 20; i++) {
+            for (int hit = 0; hit < 3; hit++) {
+                cache.put("other-" + i, "x");
+            }
+        }
+        assertEquals(1, countTierCopies(tier, "k"));
+
+        cache.put("k", "v2");
+
+        assertEquals(0, countTierCopies(tier, "k"));
+        assertEquals(Optional.of("v2"), cache.get("k"));
+    }
+
+    // Writes more frequent keys until "k" loses the admission contest and is demoted
+    private static void pushOutOfHeap(ConcurrentCache<String, String> cache) {
+        for (int i = 0; i < 20; i++) {
+            for (int hit = 0; hit < 3; hit++) {
+                cache.put("other-" + i, "x");
+            }
+        }
+    }
+
+    private static int countTierCopies(OffHeapTier<String, String> tier, String key) {
+        OffHeapTier.Promoted<String> promoted = tier.remove(key);
+        if (promoted == null) {
+            return 0;
+        }
+        tier.put(key, promoted.value(), promoted.expiresAt());
+        return 1;
+    }
+}
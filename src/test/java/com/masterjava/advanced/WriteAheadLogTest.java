@@ -0,0 +1,128 @@
+package com.masterjava.advanced;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.*;
+
+public class WriteAheadLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsReplayInOrderAfterReopen() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (WriteAheadLog log = WriteAheadLog.open(dir, 8, record -> { })) {
+            for (int i = 1; i <= 5; i++) {
+                assertEquals(i, log.appendAndSync(WriteAheadLog.SAVE, i, bytes("v" + i)));
+            }
+        }
+
+        List<WriteAheadLog.Record> replayed = replay(dir);
+
+        assertEquals(5, replayed.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, replayed.get(i).lsn());
+            assertEquals("v" + (i + 1), new String(replayed.get(i).payload(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void tornTailIsCutAndLaterAppendsSurvive() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        writeThree(dir);
+        Path segment = onlySegment(dir);
+        long intact = Files.size(segment);
+        // A crash mid-write: header promises 100 body bytes, only 10 made it
+        ByteBuffer torn = ByteBuffer.allocate(18).putInt(100).putInt(0).put(new byte[10]).flip();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(torn);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(dir, 8, record -> { })) {
+            assertEquals(intact, Files.size(segment));
+            assertEquals(4, log.appendAndSync(WriteAheadLog.SAVE, 4, bytes("v4")));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), lsns(replay(dir)));
+    }
+
+    @Test
+    public void corruptRecordEndsReplay() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        writeThree(dir);
+        Path segment = onlySegment(dir);
+        byte[] content = Files.readAllBytes(segment);
+        content[content.length - 1] ^= 1; // last record's payload no longer matches its CRC
+        Files.write(segment, content);
+
+        assertEquals(List.of(1L, 2L), lsns(replay(dir)));
+    }
+
+    @Test
+    public void failedBatchFailsOnlyItsOwnFutures() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (WriteAheadLog log = WriteAheadLog.open(dir, 8, record -> { })) {
+            // A null payload makes encoding throw on the writer thread
+            CompletionException failed = assertThrows(CompletionException.class,
+                () -> log.append(WriteAheadLog.SAVE, 1, null).join());
+            assertTrue(failed.getCause() instanceof NullPointerException);
+
+            assertFalse(log.failed());
+            assertEquals(1, log.appendAndSync(WriteAheadLog.SAVE, 2, bytes("v2")));
+        }
+
+        List<WriteAheadLog.Record> replayed = replay(dir);
+        assertEquals(1, replayed.size());
+        assertEquals(2, replayed.get(0).id());
+    }
+
+    @Test
+    public void appendAfterCloseIsRejected() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(folder.getRoot().toPath(), 8, record -> { });
+        log.close();
+
+        assertThrows(IllegalStateException.class,
+            () -> log.appendAndSync(WriteAheadLog.SAVE, 1, bytes("v1")));
+    }
+
+    private static void writeThree(Path dir) throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(dir, 8, record -> { })) {
+            for (int i = 1; i <= 3; i++) {
+                log.appendAndSync(WriteAheadLog.SAVE, i, bytes("v" + i));
+            }
+        }
+    }
+
+    private static List<WriteAheadLog.Record> replay(Path dir) throws IOException {
+        List<WriteAheadLog.Record> replayed = new ArrayList<>();
+        WriteAheadLog.open(dir, 8, replayed::add).close();
+        return replayed;
+    }
+
+    private static List<Long> lsns(List<WriteAheadLog.Record> records) {
+        return records.stream().map(WriteAheadLog.Record::lsn).toList();
+    }
+
+    private static Path onlySegment(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            List<Path> segments = files.toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
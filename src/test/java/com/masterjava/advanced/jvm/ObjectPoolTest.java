@@ -0,0 +1,115 @@
+package com.masterjava.advanced.jvm;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ObjectPoolTest {
+
+    private static final ObjectPool.ObjectFactory<StringBuilder> BUILDERS = new ObjectPool.ObjectFactory<>() {
+        public StringBuilder create() { return new StringBuilder(); }
+        public void reset(StringBuilder builder) { builder.setLength(0); }
+    };
+
+    @Test
+    public void neverPoolsMoreThanMaxSize() {
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(BUILDERS, 10, 4);
+        List<StringBuilder> held = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            held.add(pool.acquire());
+        }
+        held.forEach(pool::release);
+
+        ObjectPool.Stats stats = pool.stats();
+        assertTrue(stats.reservedSlots() <= 10);
+        assertEquals(40, stats.dropped());
+    }
+
+    @Test
+    public void releasedObjectIsResetAndReused() {
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(BUILDERS, 10);
+        StringBuilder first = pool.acquire().append("dirty");
+        pool.release(first);
+
+        StringBuilder second = pool.acquire();
+
+        assertSame(first, second);
+        assertEquals(0, second.length());
+    }
+
+    @Test
+    public void drainedCacheIsReusedByAnotherThread() throws InterruptedException {
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(BUILDERS, 10, 4);
+        Set<StringBuilder> released = Collections.newSetFromMap(new IdentityHashMap<>());
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 3; i++) {
+                StringBuilder builder = pool.acquire();
+                released.add(builder);
+                pool.release(builder);
+            }
+            pool.drainThreadCache();
+        });
+        producer.start();
+        producer.join();
+
+        assertTrue(released.contains(pool.acquire()));
+    }
+
+    @Test
+    public void deadThreadReturnsItsReservation() throws InterruptedException {
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(BUILDERS, 10, 4);
+        Thread worker = new Thread(() -> pool.release(new StringBuilder())); // no drainThreadCache()
+        worker.start();
+        worker.join();
+        assertEquals(4, pool.stats().reservedSlots());
+
+        worker = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pool.stats().reservedSlots() != 0 && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertEquals(0, pool.stats().reservedSlots());
+    }
+
+    @Test
+    public void closeLetsGoOfCachedObjects() throws InterruptedException {
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(BUILDERS, 10, 4);
+        WeakReference<StringBuilder> cached = releaseOne(pool);
+
+        pool.close();
+        pool.release(new StringBuilder());
+
+        assertEquals(0, pool.stats().reservedSlots());
+        assertEquals(1, pool.stats().dropped());
+        assertTrue("closed pool still holds its object", collected(cached));
+    }
+
+    @Test
+    public void discardedPoolLetsGoOfCachedObjects() throws InterruptedException {
+        // This thread outlives the pool, as pooling threads usually do
+        WeakReference<StringBuilder> cached = releaseOne(new ObjectPool<>(BUILDERS, 10, 4));
+
+        assertTrue("discarded pool still holds its object", collected(cached));
+    }
+
+    private static WeakReference<StringBuilder> releaseOne(ObjectPool<StringBuilder> pool) {
+        StringBuilder builder = new StringBuilder();
+        pool.release(builder); // now in this thread's magazine
+        return new WeakReference<>(builder);
+    }
+
+    private static boolean collected(WeakReference<?> reference) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (reference.get() != null && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        return reference.get() == null;
+    }
+}
@@ -0,0 +1,149 @@
+package com.masterjava.core.concurrency;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class RingBufferTest {
+
+    private static final class LongEvent {
+        long value;
+    }
+
+    @Test
+    public void singleProducerEventsArriveInOrder() throws InterruptedException {
+        RingBuffer<LongEvent> ring = new RingBuffer<>(16, LongEvent::new,
+            RingBuffer.ProducerType.SINGLE, RingBuffer.WaitStrategy.YIELDING);
+        List<Long> seen = Collections.synchronizedList(new ArrayList<>());
+        RingBuffer.BatchConsumer<LongEvent> consumer = ring.consumer((event, sequence, endOfBatch) -> {
+            assertEquals(sequence, event.value);
+            seen.add(event.value);
+        });
+        Thread thread = start(consumer);
+
+        for (long i = 0; i < 1_000; i++) {
+            long value = i;
+            ring.publishEvent(event -> event.value = value);
+        }
+        awaitProcessed(consumer, 999);
+        stop(consumer, thread);
+
+        assertEquals(1_000, seen.size());
+        for (int i = 0; i < seen.size(); i++) {
+            assertEquals(i, (long) seen.get(i));
+        }
+    }
+
+    @Test
+    public void multiProducerEventsArriveExactlyOnce() throws Exception {
+        int producers = 4;
+        int perProducer = 5_000;
+        RingBuffer<LongEvent> ring = new RingBuffer<>(64, LongEvent::new,
+            RingBuffer.ProducerType.MULTI, RingBuffer.WaitStrategy.YIELDING);
+        long[] sum = new long[1];
+        long[] count = new long[1];
+        RingBuffer.BatchConsumer<LongEvent> consumer = ring.consumer((event, sequence, endOfBatch) -> {
+            sum[0] += event.value;
+            count[0]++;
+        });
+        Thread thread = start(consumer);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long first = (long) p * perProducer + 1;
+                done.add(pool.submit(() -> {
+                    for (long v = first; v < first + perProducer; v++) {
+                        long value = v;
+                        ring.publishEvent(event -> event.value = value);
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long total = (long) producers * perProducer;
+        awaitProcessed(consumer, total - 1);
+        stop(consumer, thread);
+
+        assertEquals(total, count[0]);
+        assertEquals(total * (total + 1) / 2, sum[0]);
+    }
+
+    @Test
+    public void haltStopsConsumerUnderContinuousPublishing() throws InterruptedException {
+        RingBuffer<LongEvent> ring = new RingBuffer<>(8, LongEvent::new,
+            RingBuffer.ProducerType.SINGLE, RingBuffer.WaitStrategy.BUSY_SPIN);
+        // Each event publishes the next, so the consumer never finds the ring empty
+        RingBuffer.BatchConsumer<LongEvent> consumer = ring.consumer(
+            (event, sequence, endOfBatch) -> ring.publishEvent(next -> next.value = sequence + 1));
+        ring.publishEvent(event -> event.value = 0);
+        Thread thread = start(consumer);
+        awaitProcessed(consumer, 1_000);
+
+        consumer.halt();
+        thread.join(5_000);
+
+        assertFalse("consumer ignored halt()", thread.isAlive());
+    }
+
+    @Test
+    public void throwingHandlerDoesNotStallProducers() throws InterruptedException {
+        RingBuffer<LongEvent> ring = new RingBuffer<>(8, LongEvent::new,
+            RingBuffer.ProducerType.SINGLE, RingBuffer.WaitStrategy.YIELDING);
+        RingBuffer.BatchConsumer<LongEvent> consumer = ring.consumer((event, sequence, endOfBatch) -> {
+            if (sequence % 3 == 0) {
+                throw new IllegalStateException("bad event " + sequence);
+            }
+        });
+        List<Long> failed = Collections.synchronizedList(new ArrayList<>());
+        consumer.setExceptionHandler((failure, sequence, event) -> failed.add(sequence));
+        Thread thread = start(consumer);
+
+        // 100 events through an 8-slot ring: only possible if the consumer keeps advancing
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                ring.publishEvent(event -> event.value = 1);
+            }
+        });
+        producer.start();
+        producer.join(5_000);
+        assertFalse("producer stalled", producer.isAlive());
+        awaitProcessed(consumer, 99);
+        stop(consumer, thread);
+
+        assertEquals(34, failed.size());
+        assertEquals(0L, (long) failed.get(0));
+        assertEquals(99L, (long) failed.get(33));
+    }
+
+    private static Thread start(RingBuffer.BatchConsumer<?> consumer) {
+        Thread thread = new Thread(consumer);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void stop(RingBuffer.BatchConsumer<?> consumer, Thread thread) throws InterruptedException {
+        consumer.halt();
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+    }
+
+    private static void awaitProcessed(RingBuffer.BatchConsumer<?> consumer, long sequence)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (consumer.processed() < sequence) {
+            if (System.nanoTime() > deadline) {
+                fail("consumer stuck at " + consumer.processed() + ", expected " + sequence);
+            }
+            Thread.sleep(1);
+        }
+    }
+}
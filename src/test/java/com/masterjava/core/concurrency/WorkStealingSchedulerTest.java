@@ -0,0 +1,114 @@
+package com.masterjava.core.concurrency;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.Assert.*;
+
+public class WorkStealingSchedulerTest {
+
+    @Test
+    public void keyedTasksRunOneAtATimeInSubmissionOrder() {
+        int keys = 8;
+        int perKey = 500;
+        List<List<Integer>> runs = new ArrayList<>();
+        List<AtomicInteger> running = new ArrayList<>();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        for (int k = 0; k < keys; k++) {
+            runs.add(new ArrayList<>()); // unsynchronized on purpose: the key serializes access
+            running.add(new AtomicInteger());
+        }
+        try (WorkStealingScheduler scheduler = new WorkStealingScheduler(4)) {
+            for (int i = 0; i < perKey; i++) {
+                for (int k = 0; k < keys; k++) {
+                    int key = k;
+                    int order = i;
+                    scheduler.submit("keyed", WorkStealingScheduler.DEFAULT_PRIORITY, "key-" + key, () -> {
+                        if (running.get(key).incrementAndGet() > 1) {
+                            overlapped.set(true);
+                        }
+                        runs.get(key).add(order);
+                        running.get(key).decrementAndGet();
+                    });
+                }
+            }
+            scheduler.awaitQuiescence();
+        }
+
+        assertFalse("two tasks for one key ran at once", overlapped.get());
+        for (List<Integer> run : runs) {
+            assertEquals(perKey, run.size());
+            for (int i = 0; i < perKey; i++) {
+                assertEquals(i, (int) run.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void spawnedTasksAreAwaited() {
+        AtomicInteger ran = new AtomicInteger();
+        try (WorkStealingScheduler scheduler = new WorkStealingScheduler(4)) {
+            for (int i = 0; i < 100; i++) {
+                scheduler.execute(() -> spawn(scheduler, ran, 5));
+            }
+            scheduler.awaitQuiescence();
+            assertEquals(100 * 31, ran.get()); // a binary tree of depth 5 per root
+            assertEquals(100 * 31, scheduler.stats().executed());
+        }
+    }
+
+    @Test
+    public void submitAfterCloseIsRejected() {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(2);
+        scheduler.close();
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.execute(() -> { }));
+    }
+
+    @Test
+    public void everyAcceptedTaskRunsWhenCloseRacesSubmits() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            WorkStealingScheduler scheduler = new WorkStealingScheduler(2);
+            AtomicLong accepted = new AtomicLong();
+            AtomicLong ran = new AtomicLong();
+            ExecutorService submitters = Executors.newFixedThreadPool(4);
+            try {
+                CountDownLatch started = new CountDownLatch(4);
+                List<Future<?>> loops = new ArrayList<>();
+                for (int s = 0; s < 4; s++) {
+                    loops.add(submitters.submit(() -> {
+                        started.countDown();
+                        while (true) {
+                            try {
+                                scheduler.execute(ran::incrementAndGet);
+                            } catch (RejectedExecutionException e) {
+                                return;
+                            }
+                            accepted.incrementAndGet();
+                        }
+                    }));
+                }
+                started.await();
+                scheduler.close();
+                for (Future<?> loop : loops) {
+                    loop.get(10, TimeUnit.SECONDS);
+                }
+            } finally {
+                submitters.shutdownNow();
+            }
+
+            assertEquals("round " + round, accepted.get(), ran.get());
+        }
+    }
+
+    private static void spawn(WorkStealingScheduler scheduler, AtomicInteger ran, int depth) {
+        ran.incrementAndGet();
+        if (depth > 1) {
+            scheduler.execute(() -> spawn(scheduler, ran, depth - 1));
+            scheduler.execute(() -> spawn(scheduler, ran, depth - 1));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.masterjava.core.io;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class DirectBufferPoolTest {
+
+    private static final int CHUNK = 64 << 10;
+
+    @Test
+    public void freedBuddiesMergeBackIntoAChunk() {
+        DirectBufferPool pool = new DirectBufferPool(CHUNK, 4 << 10, 1, false);
+        DirectBufferPool.Lease a = pool.allocate(5_000); // rounds up to 8K
+        DirectBufferPool.Lease b = pool.allocate(4_096);
+        assertEquals(8 << 10, a.buffer().capacity());
+        assertEquals(5_000, a.buffer().limit());
+
+        a.close();
+        b.close();
+
+        DirectBufferPool.Usage usage = pool.usage();
+        assertEquals(CHUNK, usage.largestFreeBlock());
+        assertEquals(0, usage.liveBuffers());
+    }
+
+    @Test
+    public void exhaustedPoolFallsBackToUnpooledBuffer() {
+        DirectBufferPool pool = new DirectBufferPool(CHUNK, 4 << 10, 1, false);
+        DirectBufferPool.Lease pooled = pool.allocate(CHUNK);
+
+        try (DirectBufferPool.Lease overflow = pool.allocate(1_000)) {
+            assertTrue(overflow.buffer().isDirect());
+            assertEquals(1_000, overflow.buffer().remaining());
+            DirectBufferPool.Usage usage = pool.usage();
+            assertEquals(1, usage.chunks());
+            assertEquals(1, usage.unpooledBuffers());
+            assertEquals(1_000, usage.unpooledBytes());
+        }
+        pooled.close();
+
+        assertEquals(0, pool.usage().unpooledBuffers());
+        assertEquals(0, pool.usage().unpooledBytes());
+    }
+
+    @Test
+    public void oversizedRequestIsTrackedAsUnpooled() {
+        DirectBufferPool pool = new DirectBufferPool(CHUNK, 4 << 10, 4, false);
+
+        DirectBufferPool.Lease huge = pool.allocate(CHUNK + 1);
+
+        assertEquals(CHUNK + 1, huge.buffer().capacity());
+        assertEquals(0, pool.usage().chunks());
+        assertEquals(CHUNK + 1, pool.usage().unpooledBytes());
+        huge.close();
+        assertEquals(0, pool.usage().unpooledBuffers());
+    }
+
+    @Test
+    public void closingTwiceThrows() {
+        DirectBufferPool pool = new DirectBufferPool();
+        DirectBufferPool.Lease lease = pool.allocate(100);
+        lease.close();
+
+        assertThrows(IllegalStateException.class, lease::close);
+        assertThrows(IllegalStateException.class, lease::buffer);
+    }
+
+    @Test
+    public void keptBufferIsNotReclaimedWhenOnlyTheLeaseIsDropped() throws InterruptedException {
+        // One chunk of two 4K blocks
+        DirectBufferPool pool = new DirectBufferPool(8 << 10, 4 << 10, 1, false);
+        ByteBuffer kept = pool.allocate(4_096).buffer(); // the Lease itself is dropped at once
+        kept.putInt(0, 0xCAFE);
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        DirectBufferPool.Lease other = pool.allocate(4_096);  // the chunk's other block
+        DirectBufferPool.Lease third = pool.allocate(4_096);  // kept's block is still taken
+        third.buffer().putInt(0, 0xBEEF);
+        other.buffer().putInt(0, 0xBEEF);
+
+        assertEquals(0, pool.usage().leaks());
+        assertEquals(1, pool.usage().unpooledBuffers());
+        assertEquals(0xCAFE, kept.getInt(0));
+    }
+}